@@ -0,0 +1,55 @@
+package com.rf5860.sudoku;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link ColumnSelector} strategies, on the hardest corpus and on an empty 16x16 grid.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ColumnSelectorBenchmark {
+    @Param({"MINIMUM_SIZE", "RANDOM_TIES", "BUCKETED"})
+    private ColumnSelector selector;
+
+    private List<Sudoku> puzzles;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        puzzles = Corpus.load("hardest");
+    }
+
+    @Benchmark
+    public boolean hasUniqueSolution() {
+        final SudokuSolver solver = new SudokuSolver(puzzles.get(next));
+        next = (next + 1) % puzzles.size();
+        solver.setEngine(SolverEngine.DANCING_LINKS);
+        solver.setColumnSelector(selector);
+        return solver.hasUniqueSolution();
+    }
+
+    @Benchmark
+    public boolean solveEmptyLargeGrid() {
+        final SudokuSolver solver = new SudokuSolver(new Sudoku(16));
+        solver.setEngine(SolverEngine.DANCING_LINKS);
+        solver.setColumnSelector(selector);
+        return solver.solve();
+    }
+}
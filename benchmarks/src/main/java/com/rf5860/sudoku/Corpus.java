@@ -0,0 +1,85 @@
+package com.rf5860.sudoku;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the puzzle corpora bundled as test resources, in the line format (<code>.</code> or <code>0</code> for blanks).
+ */
+final class Corpus {
+    private Corpus() {
+    }
+
+    /**
+     * Load the puzzles of the given corpus.
+     *
+     * @param name the name of the corpus, such as <code>easy</code> or <code>17-clue</code>
+     * @return the puzzles in the corpus
+     */
+    static List<Sudoku> load(final String name) {
+        final List<Sudoku> puzzles = new ArrayList<>();
+        try (final InputStream in = Corpus.class.getResourceAsStream("/corpus/" + name + ".txt")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown corpus: " + name);
+            }
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(in, US_ASCII));
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (!line.isEmpty()) {
+                    puzzles.add(parse(line));
+                }
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return puzzles;
+    }
+
+    /**
+     * Get the version of the given corpus, as the start of the SHA-256 digest of its file, so results measured over
+     * different puzzles are never compared.
+     *
+     * @param name the name of the corpus
+     * @return the digest of the corpus, as 16 hexadecimal digits
+     */
+    static String digest(final String name) {
+        try (final InputStream in = Corpus.class.getResourceAsStream("/corpus/" + name + ".txt")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown corpus: " + name);
+            }
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final byte[] buffer = new byte[8192];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+            final StringBuilder hex = new StringBuilder();
+            final byte[] hash = digest.digest();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Sudoku parse(final String line) {
+        final int length = (int) Math.sqrt(line.length());
+        final int[][] digits = new int[length][length];
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            digits[i / length][i % length] = c == '.' ? 0 : Character.digit(c, Character.MAX_RADIX);
+        }
+        return new Sudoku(digits);
+    }
+}
@@ -0,0 +1,148 @@
+package com.rf5860.sudoku;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>An end-to-end performance regression harness, which solves each bundled corpus with {@link SudokuSolver} on one
+ * thread, for a fixed time after a warm-up, and records the latency of every solve in a {@link LatencyHistogram}.</p>
+ * <p>The throughput and latency percentiles of each corpus are written as JSON (see {@link RegressionReport}). Given
+ * a baseline report, the run fails if any corpus regressed by more than a threshold. Each corpus is identified by the
+ * digest of its file, so editing a corpus never compares against the old one.</p>
+ * <pre>
+ * java -cp benchmarks.jar com.rf5860.sudoku.RegressionHarness [--corpora easy,medium,...] [--warmup seconds]
+ *     [--time seconds] [--output report.json] [--baseline baseline.json] [--threshold percent]
+ * </pre>
+ */
+public final class RegressionHarness {
+    static final List<String> CORPORA = Arrays.asList("easy", "medium", "hard", "17-clue", "16x16");
+
+    private List<String> corpora = CORPORA;
+    private long warmupNanos = TimeUnit.SECONDS.toNanos(5);
+    private long timeNanos = TimeUnit.SECONDS.toNanos(10);
+    private Path output = Paths.get("regression.json");
+    private Path baseline;
+    private double threshold = 10;
+    private long checksum;
+
+    private RegressionHarness() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final RegressionHarness harness = new RegressionHarness();
+        for (int i = 0; i < args.length; i++) {
+            final String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--corpora":
+                    harness.corpora = Arrays.asList(require(args[i], value).split(","));
+                    break;
+                case "--warmup":
+                    harness.warmupNanos = (long) (Double.parseDouble(require(args[i], value)) * 1e9);
+                    break;
+                case "--time":
+                    harness.timeNanos = (long) (Double.parseDouble(require(args[i], value)) * 1e9);
+                    break;
+                case "--output":
+                    harness.output = Paths.get(require(args[i], value));
+                    break;
+                case "--baseline":
+                    harness.baseline = Paths.get(require(args[i], value));
+                    break;
+                case "--threshold":
+                    harness.threshold = Double.parseDouble(require(args[i], value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+            i++;
+        }
+        System.exit(harness.run() ? 0 : 1);
+    }
+
+    private static String require(final String option, final String value) {
+        if (value == null) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return value;
+    }
+
+    /**
+     * Measure every corpus, write the report, and compare it against the baseline if there is one.
+     *
+     * @return <code>false</code> if any corpus regressed, <code>true</code> otherwise
+     */
+    private boolean run() throws IOException {
+        final RegressionReport report = new RegressionReport(RegressionReport.currentEnvironment());
+        System.out.println(report.getEnvironment());
+        System.out.printf(Locale.ROOT, "%-10s %8s %12s %10s %10s %10s %10s%n",
+            "corpus", "puzzles", "solves/s", "p50 us", "p99 us", "p99.9 us", "max us");
+        for (final String corpus : corpora) {
+            final RegressionReport.Result result = measure(corpus);
+            report.add(result);
+            System.out.printf(Locale.ROOT, "%-10s %8d %12.1f %10.1f %10.1f %10.1f %10.1f%n", result.corpus,
+                result.puzzles, result.throughput, result.p50, result.p99, result.p999, result.max);
+        }
+        report.write(output);
+        System.out.println("Wrote " + output.toAbsolutePath() + " (checksum " + Long.toHexString(checksum) + ")");
+        if (baseline == null) {
+            return true;
+        }
+        if (!Files.exists(baseline)) {
+            System.out.println("No baseline at " + baseline.toAbsolutePath() + ", so nothing to compare against");
+            return true;
+        }
+        System.out.printf(Locale.ROOT, "%nCompared to %s (threshold %.1f%%)%n", baseline, threshold);
+        final List<String> regressions = report.compare(RegressionReport.read(baseline), threshold, System.out);
+        for (final String regression : regressions) {
+            System.out.println("Regression: " + regression);
+        }
+        return regressions.isEmpty();
+    }
+
+    /**
+     * Solve a corpus over and over, first to warm up, then while recording the latency of every solve. Every pass
+     * solves every puzzle, so each puzzle has the same weight in the percentiles.
+     */
+    private RegressionReport.Result measure(final String corpus) {
+        final List<Sudoku> puzzles = Corpus.load(corpus);
+        solveFor(puzzles, warmupNanos, null);
+        System.gc();
+        final LatencyHistogram latencies = new LatencyHistogram();
+        final long elapsed = solveFor(puzzles, timeNanos, latencies);
+        return new RegressionReport.Result(corpus, Corpus.digest(corpus), puzzles.size(), latencies.getCount(),
+            latencies.getCount() * 1e9 / elapsed, latencies.getMean() / 1e3, latencies.getPercentile(50) / 1e3,
+            latencies.getPercentile(99) / 1e3, latencies.getPercentile(99.9) / 1e3, latencies.getMax() / 1e3);
+    }
+
+    /**
+     * Solve passes over the puzzles until the time is up, always finishing at least one pass.
+     *
+     * @return the time taken, in nanoseconds
+     */
+    private long solveFor(final List<Sudoku> puzzles, final long nanos, final LatencyHistogram latencies) {
+        final long start = System.nanoTime();
+        long now = start;
+        do {
+            for (final Sudoku puzzle : puzzles) {
+                final long before = System.nanoTime();
+                final SudokuSolver solver = new SudokuSolver(puzzle);
+                final boolean solved = solver.solve();
+                now = System.nanoTime();
+                if (latencies != null) {
+                    latencies.record(now - before);
+                }
+                if (!solved) {
+                    throw new IllegalStateException("Could not solve " + puzzle);
+                }
+                checksum = checksum * 31 + solver.getPossibleSolution().hashCode();
+            }
+        } while (now - start < nanos);
+        return now - start;
+    }
+}
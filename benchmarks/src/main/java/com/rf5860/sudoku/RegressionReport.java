@@ -0,0 +1,310 @@
+package com.rf5860.sudoku;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The results of a {@link RegressionHarness} run: the throughput and latency percentiles of each corpus, with the
+ * digest of the corpus and a description of the machine they were measured on. Reports are written and read as JSON,
+ * so a run can be kept as the baseline of later runs.
+ */
+final class RegressionReport {
+    static final int FORMAT_VERSION = 1;
+
+    private final String environment;
+    private final Map<String, Result> results = new LinkedHashMap<>();
+
+    RegressionReport(final String environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Describe the JVM and machine the current process runs on.
+     *
+     * @return the Java version, VM, operating system, architecture and number of processors
+     */
+    static String currentEnvironment() {
+        return String.format(Locale.ROOT, "Java %s (%s), %s %s, %d processors",
+            System.getProperty("java.version"), System.getProperty("java.vm.name"), System.getProperty("os.name"),
+            System.getProperty("os.arch"), Runtime.getRuntime().availableProcessors());
+    }
+
+    String getEnvironment() {
+        return environment;
+    }
+
+    void add(final Result result) {
+        results.put(result.corpus, result);
+    }
+
+    Collection<Result> getResults() {
+        return results.values();
+    }
+
+    /**
+     * Write the report as JSON.
+     *
+     * @param path the file to write
+     * @throws IOException if the file can not be written
+     */
+    void write(final Path path) throws IOException {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"version\": ").append(FORMAT_VERSION).append(",\n");
+        json.append("  \"environment\": \"").append(environment.replace("\\", "\\\\").replace("\"", "\\\"")).append("\",\n");
+        json.append("  \"corpora\": {");
+        String separator = "\n";
+        for (final Result result : results.values()) {
+            json.append(separator).append(String.format(Locale.ROOT,
+                "    \"%s\": {\"digest\": \"%s\", \"puzzles\": %d, \"solves\": %d, \"throughput\": %.1f, "
+                    + "\"latencyMicros\": {\"mean\": %.3f, \"p50\": %.3f, \"p99\": %.3f, \"p99.9\": %.3f, \"max\": %.3f}}",
+                result.corpus, result.digest, result.puzzles, result.solves, result.throughput,
+                result.mean, result.p50, result.p99, result.p999, result.max));
+            separator = ",\n";
+        }
+        json.append("\n  }\n}\n");
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.write(path, json.toString().getBytes(UTF_8));
+    }
+
+    /**
+     * Read a report written by {@link #write(Path)}.
+     *
+     * @param path the file to read
+     * @return the report
+     * @throws IOException              if the file can not be read
+     * @throws IllegalArgumentException if the file is not a report
+     */
+    @SuppressWarnings("unchecked")
+    static RegressionReport read(final Path path) throws IOException, IllegalArgumentException {
+        final Object json = new JsonReader(new String(Files.readAllBytes(path), UTF_8)).read();
+        if (!(json instanceof Map) || !Double.valueOf(FORMAT_VERSION).equals(((Map<String, Object>) json).get("version"))) {
+            throw new IllegalArgumentException(path + " is not a version " + FORMAT_VERSION + " regression report");
+        }
+        final Map<String, Object> root = (Map<String, Object>) json;
+        final RegressionReport report = new RegressionReport(String.valueOf(root.get("environment")));
+        for (final Map.Entry<String, Object> entry : ((Map<String, Object>) root.get("corpora")).entrySet()) {
+            final Map<String, Object> corpus = (Map<String, Object>) entry.getValue();
+            final Map<String, Object> latency = (Map<String, Object>) corpus.get("latencyMicros");
+            report.add(new Result(entry.getKey(), (String) corpus.get("digest"),
+                ((Double) corpus.get("puzzles")).intValue(), ((Double) corpus.get("solves")).longValue(),
+                (Double) corpus.get("throughput"), (Double) latency.get("mean"), (Double) latency.get("p50"),
+                (Double) latency.get("p99"), (Double) latency.get("p99.9"), (Double) latency.get("max")));
+        }
+        return report;
+    }
+
+    /**
+     * <p>Compare this report against a baseline, printing the change in each metric.</p>
+     * <p>A corpus regresses when its throughput drops, or its p50, p99 or p99.9 latency rises, by more than the
+     * threshold. Corpora which are missing from the baseline, or whose digest has changed, are not compared.</p>
+     *
+     * @param baseline  the report to compare against
+     * @param threshold the largest change allowed, as a percentage
+     * @param out       where to print the comparison
+     * @return the regressions found, which is empty if there are none
+     */
+    List<String> compare(final RegressionReport baseline, final double threshold, final Appendable out) throws IOException {
+        final List<String> regressions = new ArrayList<>();
+        if (!environment.equals(baseline.environment)) {
+            out.append(String.format("Warning: the baseline was measured on %s%n", baseline.environment));
+        }
+        out.append(String.format(Locale.ROOT, "%-10s %-10s %12s %12s %9s%n", "corpus", "metric", "baseline", "current", "change"));
+        for (final Result result : results.values()) {
+            final Result base = baseline.results.get(result.corpus);
+            if (base == null) {
+                out.append(String.format("%-10s not in the baseline%n", result.corpus));
+                continue;
+            }
+            if (!base.digest.equals(result.digest)) {
+                out.append(String.format("%-10s corpus changed (%s, was %s), not compared%n", result.corpus, result.digest, base.digest));
+                continue;
+            }
+            // Throughput regresses by falling, and latencies by rising
+            compare(result.corpus, "solves/s", base.throughput, result.throughput, true, threshold, regressions, out);
+            compare(result.corpus, "p50 us", base.p50, result.p50, false, threshold, regressions, out);
+            compare(result.corpus, "p99 us", base.p99, result.p99, false, threshold, regressions, out);
+            compare(result.corpus, "p99.9 us", base.p999, result.p999, false, threshold, regressions, out);
+        }
+        return regressions;
+    }
+
+    private static void compare(final String corpus, final String metric, final double base, final double current,
+                                final boolean higherIsBetter, final double threshold, final List<String> regressions,
+                                final Appendable out) throws IOException {
+        final double change = base == 0 ? 0 : 100 * (current - base) / base;
+        final double worse = higherIsBetter ? -change : change;
+        out.append(String.format(Locale.ROOT, "%-10s %-10s %12.1f %12.1f %+8.1f%%%s%n", corpus, metric, base, current,
+            change, worse > threshold ? "  REGRESSION" : ""));
+        if (worse > threshold) {
+            regressions.add(String.format(Locale.ROOT, "%s %s is %.1f%% worse than the baseline", corpus, metric, worse));
+        }
+    }
+
+    /**
+     * The throughput and latencies of solving one corpus.
+     */
+    static final class Result {
+        final String corpus;
+        final String digest;
+        final int puzzles;
+        final long solves;
+        final double throughput;
+        final double mean;
+        final double p50;
+        final double p99;
+        final double p999;
+        final double max;
+
+        Result(final String corpus, final String digest, final int puzzles, final long solves, final double throughput,
+               final double mean, final double p50, final double p99, final double p999, final double max) {
+            this.corpus = corpus;
+            this.digest = digest;
+            this.puzzles = puzzles;
+            this.solves = solves;
+            this.throughput = throughput;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+    }
+
+    /**
+     * A minimal JSON reader, into maps, lists, strings, doubles, booleans and <code>null</code>.
+     */
+    private static final class JsonReader {
+        private final String text;
+        private int position;
+
+        private JsonReader(final String text) {
+            this.text = text;
+        }
+
+        Object read() {
+            final Object value = value();
+            skipSpace();
+            if (position != text.length()) {
+                throw error("Unexpected text");
+            }
+            return value;
+        }
+
+        private Object value() {
+            skipSpace();
+            if (position >= text.length()) {
+                throw error("Unexpected end");
+            }
+            final char c = text.charAt(position);
+            if (c == '{') {
+                final Map<String, Object> object = new LinkedHashMap<>();
+                position++;
+                skipSpace();
+                if (peek('}')) {
+                    return object;
+                }
+                do {
+                    skipSpace();
+                    final String key = string();
+                    skipSpace();
+                    expect(':');
+                    object.put(key, value());
+                    skipSpace();
+                } while (peek(','));
+                expect('}');
+                return object;
+            } else if (c == '[') {
+                final List<Object> array = new ArrayList<>();
+                position++;
+                skipSpace();
+                if (peek(']')) {
+                    return array;
+                }
+                do {
+                    array.add(value());
+                    skipSpace();
+                } while (peek(','));
+                expect(']');
+                return array;
+            } else if (c == '"') {
+                return string();
+            } else if (text.startsWith("true", position)) {
+                position += 4;
+                return true;
+            } else if (text.startsWith("false", position)) {
+                position += 5;
+                return false;
+            } else if (text.startsWith("null", position)) {
+                position += 4;
+                return null;
+            }
+            final int start = position;
+            while (position < text.length() && "+-.0123456789eE".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            try {
+                return Double.valueOf(text.substring(start, position));
+            } catch (final NumberFormatException e) {
+                throw error("Invalid value");
+            }
+        }
+
+        private String string() {
+            expect('"');
+            final StringBuilder string = new StringBuilder();
+            while (position < text.length() && text.charAt(position) != '"') {
+                char c = text.charAt(position++);
+                if (c == '\\' && position < text.length()) {
+                    c = text.charAt(position++);
+                    if (c == 'u' && position + 4 <= text.length()) {
+                        c = (char) Integer.parseInt(text.substring(position, position + 4), 16);
+                        position += 4;
+                    } else if (c == 'n') {
+                        c = '\n';
+                    } else if (c == 't') {
+                        c = '\t';
+                    }
+                }
+                string.append(c);
+            }
+            expect('"');
+            return string.toString();
+        }
+
+        private boolean peek(final char c) {
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(final char c) {
+            if (!peek(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private void skipSpace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(final String message) {
+            return new IllegalArgumentException(message + " at character " + position);
+        }
+    }
+}
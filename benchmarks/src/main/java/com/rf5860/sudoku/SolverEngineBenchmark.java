@@ -0,0 +1,97 @@
+package com.rf5860.sudoku;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link SolverEngine}s, on the 9x9 corpora and on 16x16 grids, to decide
+ * {@link SolverEngine#forLength(int)}. The 16x16 puzzles are random grids with half of their cells blanked (with a
+ * fixed seed), and the empty 16x16 grid.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SolverEngineBenchmark {
+    @Param({"DANCING_LINKS", "BITSET", "OFF_HEAP"})
+    private SolverEngine engine;
+
+    @Param({"easy", "hardest", "17-clue", "16x16-half", "16x16-empty"})
+    private String corpus;
+
+    private List<Sudoku> puzzles;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        switch (corpus) {
+            case "16x16-half":
+                puzzles = halfBlank(16, 20);
+                break;
+            case "16x16-empty":
+                puzzles = new ArrayList<>();
+                puzzles.add(new Sudoku(16));
+                break;
+            default:
+                puzzles = Corpus.load(corpus);
+        }
+    }
+
+    private static List<Sudoku> halfBlank(final int length, final int count) {
+        final Random random = new Random(length);
+        final SudokuSolver empty = new SudokuSolver(new Sudoku(length));
+        empty.solve();
+        final Sudoku solution = empty.getPossibleSolution();
+        final List<Sudoku> grids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Relabel the digits of the grid at random, then blank each cell with even odds
+            final List<Integer> digits = new ArrayList<>();
+            for (int digit = 1; digit <= length; digit++) {
+                digits.add(digit);
+            }
+            Collections.shuffle(digits, random);
+            final Sudoku grid = new Sudoku(length);
+            for (int cell = 0; cell < length * length; cell++) {
+                if (random.nextBoolean()) {
+                    grid.set(cell / length, cell % length, digits.get(solution.get(cell / length, cell % length) - 1));
+                }
+            }
+            grids.add(grid);
+        }
+        return grids;
+    }
+
+    private SudokuSolver nextSolver() {
+        final SudokuSolver solver = new SudokuSolver(puzzles.get(next));
+        next = (next + 1) % puzzles.size();
+        solver.setEngine(engine);
+        return solver;
+    }
+
+    @Benchmark
+    public boolean solve() {
+        return nextSolver().solve();
+    }
+
+    @Benchmark
+    public boolean hasUniqueSolution() {
+        return nextSolver().hasUniqueSolution();
+    }
+}
@@ -0,0 +1,71 @@
+package com.rf5860.sudoku;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for the query methods of {@link Sudoku}, over a partially filled 9x9 grid.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SudokuBenchmark {
+    private Sudoku sudoku;
+
+    @Setup
+    public void setUp() {
+        sudoku = Corpus.load("easy").get(0);
+    }
+
+    @Benchmark
+    public void isMoveValid(final Blackhole blackhole) {
+        for (int row = 0; row < 9; row++) {
+            for (int column = 0; column < 9; column++) {
+                blackhole.consume(sudoku.isMoveValid(row, column, 5));
+            }
+        }
+    }
+
+    @Benchmark
+    public void isInSubGrid(final Blackhole blackhole) {
+        for (int subGrid = 1; subGrid <= 9; subGrid++) {
+            blackhole.consume(sudoku.isInSubGrid(subGrid, 5));
+        }
+    }
+
+    @Benchmark
+    public void getSubGridIndexes(final Blackhole blackhole) {
+        for (int subGrid = 1; subGrid <= 9; subGrid++) {
+            blackhole.consume(sudoku.getSubGridIndexes(subGrid));
+        }
+    }
+
+    @Benchmark
+    public int[][] getColumns() {
+        return sudoku.getColumns();
+    }
+
+    @Benchmark
+    public int hashCodeOf() {
+        return sudoku.hashCode();
+    }
+
+    @Benchmark
+    public Sudoku cloneOf() {
+        return sudoku.clone();
+    }
+}
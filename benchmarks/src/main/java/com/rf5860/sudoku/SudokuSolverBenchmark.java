@@ -0,0 +1,55 @@
+package com.rf5860.sudoku;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end benchmarks for {@link SudokuSolver}, over the bundled puzzle corpora.
+ * Each operation solves the next puzzle in the corpus, cycling through it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SudokuSolverBenchmark {
+    @Param({"easy", "hard", "hardest", "17-clue"})
+    private String corpus;
+
+    private List<Sudoku> puzzles;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        puzzles = Corpus.load(corpus);
+    }
+
+    private Sudoku nextPuzzle() {
+        final Sudoku puzzle = puzzles.get(next);
+        next = (next + 1) % puzzles.size();
+        return puzzle;
+    }
+
+    @Benchmark
+    public boolean solve() {
+        return new SudokuSolver(nextPuzzle()).solve();
+    }
+
+    @Benchmark
+    public boolean hasUniqueSolution() {
+        return new SudokuSolver(nextPuzzle()).hasUniqueSolution();
+    }
+}
@@ -0,0 +1,83 @@
+package com.rf5860.sudoku;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h1>JFR Solver Listener</h1>
+ * <p>Emits a Java Flight Recorder event for each solve, so slow solves can be lined up with garbage collection, CPU
+ * load and the rest of a recording. The event (<code>com.rf5860.sudoku.Solve</code>) spans the whole solve, and
+ * carries its {@link SolverStats}.</p>
+ * <p>This is opt-in: register it with {@link SudokuSolver#addListener(SolverListener)}. While the event is not enabled
+ * in a recording, each solve only pays for the stats and a check of the event.</p>
+ */
+public final class JfrSolverListener implements SolverListener {
+    private final ThreadLocal<SolveEvent> events = new ThreadLocal<>();
+
+    @Override
+    public void solveStarted() {
+        final SolveEvent event = new SolveEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            events.set(event);
+        }
+    }
+
+    @Override
+    public void solveFinished(@NotNull final SolverStats stats) {
+        final SolveEvent event = events.get();
+        if (event == null) {
+            return;
+        }
+        events.remove();
+        event.end();
+        if (event.shouldCommit()) {
+            event.length = stats.getLength();
+            event.nodes = stats.getNodes();
+            event.backtracks = stats.getBacktracks();
+            event.covers = stats.getCovers();
+            event.uncovers = stats.getUncovers();
+            event.maxDepth = stats.getMaxDepth();
+            event.solutions = stats.getSolutions();
+            event.matrixTime = stats.getMatrixNanos();
+            event.searchTime = stats.getSearchNanos();
+            event.commit();
+        }
+    }
+
+    /**
+     * A single solve.
+     */
+    @Name("com.rf5860.sudoku.Solve")
+    @Label("Sudoku Solve")
+    @Category("Sudoku")
+    @Description("A Sudoku puzzle solved by Algorithm X")
+    static final class SolveEvent extends Event {
+        @Label("Length")
+        int length;
+        @Label("Nodes")
+        long nodes;
+        @Label("Backtracks")
+        long backtracks;
+        @Label("Covers")
+        long covers;
+        @Label("Uncovers")
+        long uncovers;
+        @Label("Max Depth")
+        int maxDepth;
+        @Label("Solutions")
+        long solutions;
+        @Label("Matrix Time")
+        @Timespan
+        long matrixTime;
+        @Label("Search Time")
+        @Timespan
+        long searchTime;
+    }
+}
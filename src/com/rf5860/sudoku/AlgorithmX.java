@@ -0,0 +1,334 @@
+package com.rf5860.sudoku;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+/**
+ * <h1>Algorithm X</h1>
+ * <p>A resumable, depth-first search for exact covers over a {@link DancingLinks} matrix.</p>
+ * <p>The search is driven by an explicit, preallocated stack of chosen nodes rather than recursion, so it never runs out
+ * of call stack however deep the grid, and each call to {@link #next()} runs only until the next solution is found.
+ * The caller decides whether to keep going, which lets solutions be consumed lazily and the search abandoned at any
+ * point.</p>
+ * <p>Because the whole state of the search is the stack, it can be saved as a {@link Position} (which is serializable)
+ * and replayed onto a fresh copy of the same matrix, to carry on from exactly the same place.</p>
+ */
+final class AlgorithmX {
+    private final DancingLinks links;
+    private final int[] headers;
+    private final int[] nodes;
+    private ColumnSelector selector = ColumnSelector.MINIMUM_SIZE;
+    private SolverStats stats;
+    private SearchBudget budget;
+    private int depth;
+    private boolean entering = true;
+    private boolean exhausted;
+    private boolean stopped;
+    /**
+     * Whether the column at the current depth is covered, and the search stopped before trying its next row.
+     */
+    private boolean pending;
+
+    /**
+     * Constructs a new search over the given matrix.
+     *
+     * @param links    the matrix to search, with any fixed rows already selected
+     * @param maxDepth the maximum number of rows in a solution
+     */
+    AlgorithmX(final DancingLinks links, final int maxDepth) {
+        this.links = links;
+        headers = new int[maxDepth + 1];
+        nodes = new int[maxDepth + 1];
+    }
+
+    /**
+     * Constructs a new search over the given matrix, which chooses columns with the given selector.
+     *
+     * @param links    the matrix to search, with any fixed rows already selected
+     * @param maxDepth the maximum number of rows in a solution
+     * @param selector the strategy for choosing the column to branch on
+     */
+    AlgorithmX(final DancingLinks links, final int maxDepth, final ColumnSelector selector) {
+        this(links, maxDepth);
+        setColumnSelector(selector);
+    }
+
+    /**
+     * Set the strategy for choosing the column to branch on, and prepare the matrix for it.
+     * This must only be called before the search starts, or after {@link #reset()}.
+     *
+     * @param selector the strategy for choosing the column to branch on
+     */
+    void setColumnSelector(final ColumnSelector selector) {
+        this.selector = selector;
+        selector.prepare(links);
+    }
+
+    /**
+     * Set the stats to record the search in, or <code>null</code> to stop recording.
+     * This is cleared by {@link #reset()}.
+     *
+     * @param stats the stats to record the search in
+     */
+    void setStats(final SolverStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Set the budget to spend a node of before each row the search selects, or <code>null</code> for no limits.
+     * Once the budget runs out, the search stops (see {@link #isStopped()}), and setting a new budget lets it carry on
+     * from where it stopped. This is cleared by {@link #reset()}.
+     *
+     * @param budget the budget of the search
+     */
+    void setBudget(final SearchBudget budget) {
+        this.budget = budget;
+        stopped = false;
+    }
+
+    /**
+     * Check if the search was stopped because its budget ran out, rather than being exhausted.
+     *
+     * @return <code>true</code> if the search was stopped, <code>false</code> otherwise
+     */
+    boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Check if the search has been exhausted, so there are no more solutions.
+     *
+     * @return <code>true</code> if the search is exhausted, <code>false</code> otherwise
+     */
+    boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Advance the search to the next exact cover.
+     *
+     * @return <code>true</code> if another solution was found, <code>false</code> if the search is exhausted or was
+     * stopped by its budget
+     */
+    boolean next() {
+        if (exhausted || stopped) {
+            return false;
+        }
+        while (true) {
+            if (pending) {
+                pending = false;
+            } else if (entering) {
+                if (links.isEmpty()) {
+                    entering = false;
+                    if (stats != null) {
+                        stats.solution();
+                    }
+                    return true;
+                }
+                final int header = selector.choose(links);
+                if (stats != null) {
+                    stats.branch(links.size[header]);
+                }
+                links.cover(header);
+                headers[depth] = header;
+                nodes[depth] = header;
+            } else {
+                if (depth == 0) {
+                    exhausted = true;
+                    return false;
+                }
+                links.deselect(nodes[--depth]);
+                if (stats != null) {
+                    stats.deselect(width(nodes[depth]) - 1);
+                }
+            }
+            final int node = links.down[nodes[depth]];
+            if (node == headers[depth]) {
+                links.uncover(headers[depth]);
+                if (stats != null) {
+                    stats.uncover();
+                }
+                entering = false;
+            } else if (budget != null && !budget.spend()) {
+                // Keep the column covered, so the search can carry on with this row
+                pending = true;
+                stopped = true;
+                return false;
+            } else {
+                nodes[depth++] = node;
+                links.select(node);
+                if (stats != null) {
+                    stats.select(depth, width(node) - 1);
+                }
+                entering = true;
+            }
+        }
+    }
+
+    /**
+     * Undo every row and column chosen by the search, returning the matrix to the state it was in when the search
+     * started, so the search can be run again.
+     */
+    void reset() {
+        if (pending) {
+            links.uncover(headers[depth]);
+        }
+        if (!exhausted) {
+            while (depth > 0) {
+                links.deselect(nodes[--depth]);
+                links.uncover(headers[depth]);
+            }
+        }
+        depth = 0;
+        entering = true;
+        exhausted = false;
+        stopped = false;
+        pending = false;
+        stats = null;
+        budget = null;
+    }
+
+    /**
+     * Get the number of nodes in the matrix row of the given node.
+     */
+    private int width(final int node) {
+        int width = 1;
+        for (int next = links.right[node]; next != node; next = links.right[next]) {
+            width++;
+        }
+        return width;
+    }
+
+    /**
+     * Save the current position of the search, between calls to {@link #next()}.
+     *
+     * @return the position of the search
+     */
+    Position position() {
+        final int levels = pending ? depth + 1 : depth;
+        final int[] columns = new int[levels];
+        final int[] rows = new int[levels];
+        for (int level = 0; level < levels; level++) {
+            columns[level] = headers[level];
+            rows[level] = nodes[level] == headers[level] ? -1 : links.row[nodes[level]];
+        }
+        return new Position(columns, rows, depth, entering, exhausted, pending);
+    }
+
+    /**
+     * Replay a saved position onto the matrix, by covering the same columns and selecting the same rows in the same
+     * order. The search must be at its start, and the matrix must be a copy of the one the position was saved from
+     * (with the same fixed rows selected). The search then carries on exactly as the saved search would have.
+     *
+     * @param position the position to move to
+     * @throws IllegalArgumentException if the position does not fit the matrix
+     */
+    void moveTo(final Position position) throws IllegalArgumentException {
+        if (depth != 0 || !entering || exhausted || pending) {
+            throw new IllegalStateException("The search must be at its start");
+        }
+        final int levels = position.columns.length;
+        if (levels > headers.length || position.depth > levels || levels > position.depth + 1
+            || position.pending != (levels > position.depth)) {
+            throw new IllegalArgumentException("Invalid search position");
+        }
+        for (int level = 0; level < levels; level++) {
+            final int header = position.columns[level];
+            if (header <= DancingLinks.ROOT || header > links.columns || links.right[links.left[header]] != header) {
+                reset();
+                throw new IllegalArgumentException("Column " + header + " can not be covered at depth " + level);
+            }
+            links.cover(header);
+            headers[level] = header;
+            nodes[level] = header;
+            depth = level;
+            pending = true;
+            if (position.rows[level] >= 0) {
+                int node = links.down[header];
+                while (node != header && links.row[node] != position.rows[level]) {
+                    node = links.down[node];
+                }
+                if (node == header) {
+                    reset();
+                    throw new IllegalArgumentException("Row " + position.rows[level] + " is not in column " + header);
+                }
+                nodes[level] = node;
+            }
+            if (level < position.depth) {
+                if (nodes[level] == header) {
+                    reset();
+                    throw new IllegalArgumentException("No row is selected at depth " + level);
+                }
+                links.select(nodes[level]);
+                depth = level + 1;
+                pending = false;
+            }
+        }
+        depth = position.depth;
+        entering = position.entering;
+        exhausted = position.exhausted;
+        pending = position.pending;
+    }
+
+    /**
+     * Get the number of rows selected by the search.
+     *
+     * @return the depth of the search
+     */
+    int depth() {
+        return depth;
+    }
+
+    /**
+     * Get the node selected at the given level of the search.
+     *
+     * @param level the level of the search, from <code>0</code> to {@link #depth()} (exclusive)
+     * @return the selected node at the given level
+     */
+    int node(final int level) {
+        return nodes[level];
+    }
+
+    /**
+     * Get the matrix row selected at the given level of the search.
+     *
+     * @param level the level of the search, from <code>0</code> to {@link #depth()} (exclusive)
+     * @return the identifier of the selected row
+     */
+    int row(final int level) {
+        return links.row[nodes[level]];
+    }
+
+    /**
+     * The saved state of a search: the column covered and row selected at each level of the stack.
+     */
+    static final class Position implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] columns;
+        private final int[] rows;
+        private final int depth;
+        private final boolean entering;
+        private final boolean exhausted;
+        private final boolean pending;
+
+        private Position(final int[] columns, final int[] rows, final int depth, final boolean entering,
+                         final boolean exhausted, final boolean pending) {
+            this.columns = columns;
+            this.rows = rows;
+            this.depth = depth;
+            this.entering = entering;
+            this.exhausted = exhausted;
+            this.pending = pending;
+        }
+
+        private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            if (columns == null || rows == null || columns.length != rows.length || depth < 0) {
+                throw new InvalidObjectException("Invalid search position");
+            }
+        }
+    }
+}
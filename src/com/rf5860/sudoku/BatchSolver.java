@@ -0,0 +1,323 @@
+package com.rf5860.sudoku;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h1>Batch Solver</h1>
+ * <p>Solves files of puzzles, one puzzle per line, in the common line format: each cell in row-major order, with
+ * <code>1</code> to <code>9</code> for digits and <code>.</code> or <code>0</code> for blank cells (81 characters for a
+ * 9x9 grid).</p>
+ * <p>The input file is memory-mapped and split into chunks at line boundaries. Chunks are solved by a pool of worker
+ * threads, and their results are written to the output file in input order. Each puzzle is parsed straight into a
+ * byte array and solved by the {@link SolverEngine} {@link SudokuSolver} would pick for it, without creating any
+ * {@link Sudoku} objects.</p>
+ * <p>Each output line is the solution of the matching input line. Lines which can not be solved (because they are
+ * malformed, or have no solution) are written back unchanged, and blank lines are written back blank.</p>
+ */
+public final class BatchSolver {
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int MAX_LINE_LENGTH = 1 << 10;
+
+    private final int threads;
+
+    /**
+     * Constructs a new batch solver, with one worker thread per available processor.
+     */
+    public BatchSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new batch solver.
+     *
+     * @param threads the number of worker threads to solve with
+     * @throws IllegalArgumentException if the number of threads is less than <code>1</code>
+     */
+    public BatchSolver(final int threads) throws IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("There must be at least one thread");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Solve every puzzle in the input file, and write the solutions to the output file.
+     *
+     * @param input  the file of puzzles to solve
+     * @param output the file to write the solutions to. This is replaced if it already exists
+     * @return the statistics of the run
+     * @throws IOException if either file can not be read or written, or if the input contains an overly long line
+     */
+    public Result solve(@NotNull final Path input, @NotNull final Path output) throws IOException {
+        final long start = System.nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final Queue<Future<Chunk>> pending = new ArrayDeque<>();
+        long puzzles = 0;
+        long solved = 0;
+        try (final FileChannel in = FileChannel.open(input, READ);
+             final FileChannel out = FileChannel.open(output, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            final long size = in.size();
+            long position = 0;
+            while (position < size) {
+                final MappedByteBuffer buffer = in.map(READ_ONLY, position, Math.min(size - position, CHUNK_SIZE + MAX_LINE_LENGTH));
+                final int length = chunkLength(buffer, position + buffer.capacity() == size);
+                buffer.limit(length);
+                pending.add(executor.submit(() -> solveChunk(buffer)));
+                position += length;
+                // Bound the chunks in flight, so memory stays flat however large the input is
+                if (pending.size() > 2 * threads) {
+                    final Chunk chunk = write(pending.remove(), out);
+                    puzzles += chunk.puzzles;
+                    solved += chunk.solved;
+                }
+            }
+            while (!pending.isEmpty()) {
+                final Chunk chunk = write(pending.remove(), out);
+                puzzles += chunk.puzzles;
+                solved += chunk.solved;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Result(puzzles, solved, System.nanoTime() - start);
+    }
+
+    /**
+     * Find the length of the next chunk, ending after the last line break in the first {@value CHUNK_SIZE} bytes.
+     */
+    private static int chunkLength(final ByteBuffer buffer, final boolean isLast) throws IOException {
+        if (isLast && buffer.capacity() <= CHUNK_SIZE) {
+            return buffer.capacity();
+        }
+        for (int i = Math.min(CHUNK_SIZE, buffer.capacity()) - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        for (int i = CHUNK_SIZE; i < buffer.capacity(); i++) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        if (isLast) {
+            return buffer.capacity();
+        }
+        throw new IOException("Lines must be shorter than " + MAX_LINE_LENGTH + " bytes");
+    }
+
+    private static Chunk write(final Future<Chunk> pending, final FileChannel out) throws IOException {
+        final Chunk chunk;
+        try {
+            chunk = pending.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while solving", e);
+        } catch (final ExecutionException e) {
+            throw new IOException("Failed to solve chunk", e.getCause());
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(chunk.output.toByteArray());
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        return chunk;
+    }
+
+    /**
+     * Solve every line in the chunk, from the start of the buffer to its limit.
+     */
+    static Chunk solveChunk(final ByteBuffer buffer) {
+        return solveChunk(buffer, null);
+    }
+
+    /**
+     * Solve every line in the chunk, from the start of the buffer to its limit, within a budget for each puzzle.
+     * Puzzles which run out of budget are written back unchanged, like those with no solution.
+     *
+     * @param budget the budget to restart for each puzzle, or <code>null</code> for no limits
+     */
+    static Chunk solveChunk(final ByteBuffer buffer, final SearchBudget budget) {
+        final Chunk chunk = new Chunk(buffer.limit());
+        byte[] cells = new byte[0];
+        int start = 0;
+        while (start < buffer.limit()) {
+            int end = start;
+            while (end < buffer.limit() && buffer.get(end) != '\n') {
+                end++;
+            }
+            final int next = end + 1;
+            if (end > start && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            // Blank lines are written back blank, so output lines stay aligned with input lines
+            if (end > start) {
+                if (cells.length != end - start) {
+                    cells = new byte[end - start];
+                }
+                chunk.puzzles++;
+                if (budget != null) {
+                    budget.restart();
+                }
+                if (parse(buffer, start, cells) && solve(cells, budget)) {
+                    chunk.solved++;
+                    for (final byte digit : cells) {
+                        chunk.output.write('0' + digit);
+                    }
+                } else {
+                    if (budget != null && budget.getReason() != null) {
+                        chunk.limited++;
+                    }
+                    for (int i = start; i < end; i++) {
+                        chunk.output.write(buffer.get(i));
+                    }
+                }
+            }
+            chunk.output.write('\n');
+            start = next;
+        }
+        return chunk;
+    }
+
+    /**
+     * Parse a line into the digits of each cell.
+     *
+     * @return <code>false</code> if the line is not a valid puzzle, <code>true</code> otherwise
+     */
+    private static boolean parse(final ByteBuffer buffer, final int start, final byte[] cells) {
+        final int length = (int) Math.sqrt(cells.length);
+        final int subGridLength = (int) Math.sqrt(length);
+        if (length * length != cells.length || subGridLength * subGridLength != length || length > 9) {
+            return false;
+        }
+        for (int i = 0; i < cells.length; i++) {
+            final byte c = buffer.get(start + i);
+            if (c == '.' || c == '0') {
+                cells[i] = 0;
+            } else if (c > '0' && c <= '0' + length) {
+                cells[i] = (byte) (c - '0');
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Solve the puzzle in place, with the default engine and column selector for its length.
+     *
+     * @param budget the budget of the puzzle, or <code>null</code> for no limits
+     * @return <code>true</code> if the puzzle was solved, <code>false</code> if it has no solutions or ran out of budget
+     */
+    private static boolean solve(final byte[] cells, final SearchBudget budget) {
+        final int length = (int) Math.sqrt(cells.length);
+        return SolverEngine.forLength(length).search(cells, length, ColumnSelector.forLength(length), null, budget, 1) == 1;
+    }
+
+    /**
+     * Solve a file of puzzles from the command line, and report the throughput.
+     *
+     * @param args the input file, the output file, and optionally the number of threads
+     * @throws IOException if either file can not be read or written
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: BatchSolver <input> <output> [threads]");
+            System.exit(1);
+        }
+        final BatchSolver solver = args.length == 3 ? new BatchSolver(Integer.parseInt(args[2])) : new BatchSolver();
+        System.out.println(solver.solve(Paths.get(args[0]), Paths.get(args[1])));
+    }
+
+    /**
+     * The solved lines of a chunk.
+     */
+    static final class Chunk {
+        final ByteArrayOutputStream output;
+        long puzzles;
+        long solved;
+        long limited;
+
+        private Chunk(final int size) {
+            output = new ByteArrayOutputStream(size);
+        }
+    }
+
+    /**
+     * The statistics of a batch run.
+     */
+    public static final class Result {
+        private final long puzzles;
+        private final long solved;
+        private final long nanos;
+
+        private Result(final long puzzles, final long solved, final long nanos) {
+            this.puzzles = puzzles;
+            this.solved = solved;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Get the number of puzzles read.
+         *
+         * @return the number of non-blank input lines
+         */
+        public long getPuzzles() {
+            return puzzles;
+        }
+
+        /**
+         * Get the number of puzzles solved.
+         *
+         * @return the number of puzzles solved
+         */
+        public long getSolved() {
+            return solved;
+        }
+
+        /**
+         * Get the time taken to solve the batch.
+         *
+         * @return the elapsed time, in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Get the throughput of the batch.
+         *
+         * @return the number of puzzles read per second
+         */
+        public double getPuzzlesPerSecond() {
+            return nanos == 0 ? 0 : puzzles * 1e9 / nanos;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("Solved %d of %d puzzles in %.3fs (%.0f puzzles/sec)",
+                                 solved, puzzles, nanos / 1e9, getPuzzlesPerSecond());
+        }
+    }
+}
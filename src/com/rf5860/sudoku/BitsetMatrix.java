@@ -0,0 +1,390 @@
+package com.rf5860.sudoku;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h1>Bitset Matrix</h1>
+ * <p>The exact cover matrix for Sudoku grids of a given length, searched with Algorithm X over bitsets rather than
+ * dancing links.</p>
+ * <p>The state of the search is two bitsets: the matrix rows which are still available, and the columns which are
+ * still uncovered. Each column holds a mask of its rows, which for a Sudoku constraint only touches a few words, so it
+ * is stored sparsely as (word, mask) pairs. Selecting a row clears its columns, and ANDs out the rows of each of them,
+ * word by word. Each level of the search has its own copy of the state, so backtracking is just returning to the
+ * level above, and nothing has to be uncovered.</p>
+ * <p>Column sizes are not kept up to date, so choosing the smallest column counts the bits of each one. This is
+ * cheap while the matrix fits in a few cache lines (a 9x9 grid has 729 rows, which is 12 words), and grows with the
+ * cube of the length, which is where {@link SudokuMatrix} wins.</p>
+ * <p>Instances are not thread-safe. {@link #acquire(int)} lends out an instance pooled for the current thread.</p>
+ */
+final class BitsetMatrix {
+    private static final int CONSTRAINTS = 4;
+    private static final Map<Integer, Template> TEMPLATES = new ConcurrentHashMap<>();
+    private static final ThreadLocal<BitsetMatrix[]> POOL = ThreadLocal.withInitial(() -> new BitsetMatrix[0]);
+
+    final int length;
+    private final Template template;
+    private final ConstraintPropagation propagation;
+    private final int rowWords;
+    private final int columnWords;
+    /**
+     * The available rows at each level of the search, <code>rowWords</code> words per level.
+     */
+    private final long[] rows;
+    /**
+     * The uncovered columns at each level of the search, <code>columnWords</code> words per level.
+     */
+    private final long[] columns;
+    private final int[] chosenColumns;
+    private final int[] chosenRows;
+    private int chosenSize;
+    private boolean pooled;
+    private boolean inUse;
+
+    private BitsetMatrix(final int length) {
+        this.length = length;
+        template = TEMPLATES.computeIfAbsent(length, Template::new);
+        propagation = length <= ConstraintPropagation.MAX_LENGTH ? new ConstraintPropagation(length) : null;
+        final int maxDepth = length * length;
+        rowWords = words(maxDepth * length);
+        columnWords = words(CONSTRAINTS * maxDepth);
+        rows = new long[(maxDepth + 1) * rowWords];
+        columns = new long[(maxDepth + 1) * columnWords];
+        chosenColumns = new int[maxDepth + 1];
+        chosenRows = new int[maxDepth + 1];
+    }
+
+    /**
+     * Borrow the matrix pooled for the current thread. It must be given back with {@link #release()} once the solve
+     * is finished. If the pooled matrix is already in use, a new one is created instead.
+     *
+     * @param length the length of the Sudoku grid
+     * @return a matrix
+     */
+    static BitsetMatrix acquire(final int length) {
+        BitsetMatrix[] pool = POOL.get();
+        if (length >= pool.length) {
+            pool = Arrays.copyOf(pool, length + 1);
+            POOL.set(pool);
+        }
+        BitsetMatrix matrix = pool[length];
+        if (matrix == null) {
+            matrix = new BitsetMatrix(length);
+            matrix.pooled = true;
+            pool[length] = matrix;
+        }
+        if (matrix.inUse) {
+            return new BitsetMatrix(length);
+        }
+        matrix.inUse = true;
+        return matrix;
+    }
+
+    /**
+     * Return the matrix to the pool of the current thread.
+     */
+    void release() {
+        if (pooled) {
+            inUse = false;
+        }
+    }
+
+    /**
+     * <p>Search for up to <code>limit</code> solutions of a puzzle, filling the first one into its cells.</p>
+     * <p>Like {@link SudokuMatrix#load(byte[], ColumnSelector)}, the grid is first reduced by
+     * {@link ConstraintPropagation}, and the candidates it eliminates are removed before the search starts.</p>
+     *
+     * @param cells  the digits of the grid in row-major order, with <code>0</code> for blank cells
+     * @param stats  the stats to record the search in, or <code>null</code>
+     * @param budget the budget to spend a node of before each row is selected, or <code>null</code> for no limits
+     * @param limit  the maximum number of solutions to find
+     * @return the number of solutions found. If this is less than <code>limit</code> and the budget has a reason, the
+     * search was stopped by the budget
+     * @throws IllegalArgumentException if any digit is outside the range of the grid
+     */
+    int search(final byte[] cells, final SolverStats stats, final SearchBudget budget, final int limit)
+        throws IllegalArgumentException {
+        final long start = stats == null ? 0 : System.nanoTime();
+        final boolean loaded = load(cells);
+        if (stats != null) {
+            stats.matrixLoaded(System.nanoTime() - start);
+        }
+        if (!loaded || budget != null && !budget.check()) {
+            return 0;
+        }
+        int count = 0;
+        int depth = 0;
+        boolean entering = true;
+        while (true) {
+            boolean backtrack = !entering;
+            if (entering) {
+                final int column = isCovered(depth) ? -1 : chooseColumn(depth);
+                if (stats != null && column != -1) {
+                    stats.branch(chosenSize);
+                }
+                if (column < 0) {
+                    if (column == -2) {
+                        if (stats != null) {
+                            stats.uncover();
+                        }
+                    } else {
+                        if (stats != null) {
+                            stats.solution();
+                        }
+                        if (count++ == 0) {
+                            for (int level = 0; level < depth; level++) {
+                                SudokuMatrix.fill(cells, length, chosenRows[level]);
+                            }
+                        }
+                        if (count >= limit) {
+                            return count;
+                        }
+                    }
+                    backtrack = true;
+                } else {
+                    chosenColumns[depth] = column;
+                    chosenRows[depth] = -1;
+                }
+            }
+            if (backtrack) {
+                if (depth == 0) {
+                    return count;
+                }
+                depth--;
+                if (stats != null) {
+                    stats.deselect(CONSTRAINTS - 1);
+                }
+            }
+            final int row = nextRow(depth);
+            if (row < 0) {
+                if (stats != null) {
+                    stats.uncover();
+                }
+                entering = false;
+            } else if (budget != null && !budget.spend()) {
+                return count;
+            } else {
+                chosenRows[depth] = row;
+                select(depth, row);
+                depth++;
+                if (stats != null) {
+                    stats.select(depth, CONSTRAINTS - 1);
+                }
+                entering = true;
+            }
+        }
+    }
+
+    /**
+     * Reset the first level to the puzzle: every candidate left by propagation is available, and the rows of the filled
+     * cells are selected.
+     *
+     * @return <code>false</code> if the puzzle has no solutions, <code>true</code> otherwise
+     */
+    private boolean load(final byte[] cells) throws IllegalArgumentException {
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] < 0 || cells[cell] > length) {
+                throw new IllegalArgumentException(String.format("Invalid digit %d at [%d][%d]", cells[cell], cell / length, cell % length));
+            }
+        }
+        if (propagation != null && !propagation.apply(cells)) {
+            return false;
+        }
+        System.arraycopy(template.allRows, 0, rows, 0, rowWords);
+        System.arraycopy(template.allColumns, 0, columns, 0, columnWords);
+        if (propagation != null) {
+            for (int cell = 0; cell < cells.length; cell++) {
+                long eliminated = propagation.eliminated(cell);
+                while (eliminated != 0) {
+                    final int row = cell * length + Long.numberOfTrailingZeros(eliminated) - 1;
+                    eliminated &= eliminated - 1;
+                    rows[row >>> 6] &= ~(1L << row);
+                }
+            }
+        }
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] != 0) {
+                final int row = cell * length + cells[cell] - 1;
+                if ((rows[row >>> 6] & 1L << row) == 0) {
+                    return false;
+                }
+                cover(0, row);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if every column has been covered at the given level.
+     */
+    private boolean isCovered(final int depth) {
+        final int base = depth * columnWords;
+        for (int word = 0; word < columnWords; word++) {
+            if (columns[base + word] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Choose the uncovered column with the fewest available rows at the given level, preferring the first on ties.
+     *
+     * @return the chosen column, or <code>-2</code> if a column has no rows left
+     */
+    private int chooseColumn(final int depth) {
+        final int columnBase = depth * columnWords;
+        final int rowBase = depth * rowWords;
+        final int[] start = template.start;
+        final int[] wordIndexes = template.wordIndexes;
+        final long[] masks = template.masks;
+        int best = -1;
+        int bestSize = Integer.MAX_VALUE;
+        for (int word = 0; word < columnWords; word++) {
+            long uncovered = columns[columnBase + word];
+            while (uncovered != 0) {
+                final int column = word << 6 | Long.numberOfTrailingZeros(uncovered);
+                uncovered &= uncovered - 1;
+                int size = 0;
+                for (int entry = start[column]; entry < start[column + 1]; entry++) {
+                    size += Long.bitCount(rows[rowBase + wordIndexes[entry]] & masks[entry]);
+                }
+                if (size < bestSize) {
+                    best = column;
+                    bestSize = size;
+                    if (size <= 1) {
+                        chosenSize = size;
+                        return size == 0 ? -2 : best;
+                    }
+                }
+            }
+        }
+        chosenSize = bestSize;
+        return best;
+    }
+
+    /**
+     * Find the next available row of the chosen column at the given level, after the last row tried.
+     *
+     * @return the row, or <code>-1</code> if every row has been tried
+     */
+    private int nextRow(final int depth) {
+        final int column = chosenColumns[depth];
+        final int after = chosenRows[depth];
+        final int afterWord = after < 0 ? -1 : after >>> 6;
+        final int rowBase = depth * rowWords;
+        for (int entry = template.start[column]; entry < template.start[column + 1]; entry++) {
+            final int word = template.wordIndexes[entry];
+            if (word < afterWord) {
+                continue;
+            }
+            long candidates = rows[rowBase + word] & template.masks[entry];
+            if (word == afterWord) {
+                candidates &= -2L << after;
+            }
+            if (candidates != 0) {
+                return word << 6 | Long.numberOfTrailingZeros(candidates);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Copy the state of the given level to the next one, and select the row in it.
+     */
+    private void select(final int depth, final int row) {
+        System.arraycopy(rows, depth * rowWords, rows, (depth + 1) * rowWords, rowWords);
+        System.arraycopy(columns, depth * columnWords, columns, (depth + 1) * columnWords, columnWords);
+        cover(depth + 1, row);
+    }
+
+    /**
+     * Cover every column of the row at the given level, removing every row which shares one of them.
+     */
+    private void cover(final int depth, final int row) {
+        final int columnBase = depth * columnWords;
+        final int rowBase = depth * rowWords;
+        for (int constraint = 0; constraint < CONSTRAINTS; constraint++) {
+            final int column = template.rowColumns[row * CONSTRAINTS + constraint];
+            columns[columnBase + (column >>> 6)] &= ~(1L << column);
+            for (int entry = template.start[column]; entry < template.start[column + 1]; entry++) {
+                rows[rowBase + template.wordIndexes[entry]] &= ~template.masks[entry];
+            }
+        }
+    }
+
+    private static int words(final int bits) {
+        return (bits + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * The structure of the matrix for one length: the columns of each row, and the rows of each column as (word, mask)
+     * pairs, in the order of their words.
+     */
+    private static final class Template {
+        private final int[] rowColumns;
+        private final int[] start;
+        private final int[] wordIndexes;
+        private final long[] masks;
+        private final long[] allRows;
+        private final long[] allColumns;
+
+        private Template(final int length) {
+            final int subGridLength = (int) Math.sqrt(length);
+            final int area = length * length;
+            final int rowCount = area * length;
+            final int columnCount = CONSTRAINTS * area;
+            rowColumns = new int[rowCount * CONSTRAINTS];
+            final long[][] columnRows = new long[columnCount][words(rowCount)];
+            for (int cell = 0; cell < area; cell++) {
+                final int row = cell / length;
+                final int column = cell % length;
+                final int subGrid = row / subGridLength * subGridLength + column / subGridLength;
+                for (int digit = 0; digit < length; digit++) {
+                    final int matrixRow = cell * length + digit;
+                    final int[] constraints = {
+                        cell,
+                        area + row * length + digit,
+                        2 * area + column * length + digit,
+                        3 * area + subGrid * length + digit
+                    };
+                    for (int constraint = 0; constraint < CONSTRAINTS; constraint++) {
+                        rowColumns[matrixRow * CONSTRAINTS + constraint] = constraints[constraint];
+                        columnRows[constraints[constraint]][matrixRow >>> 6] |= 1L << matrixRow;
+                    }
+                }
+            }
+            start = new int[columnCount + 1];
+            for (int column = 0; column < columnCount; column++) {
+                int entries = 0;
+                for (final long mask : columnRows[column]) {
+                    entries += mask != 0 ? 1 : 0;
+                }
+                start[column + 1] = start[column] + entries;
+            }
+            wordIndexes = new int[start[columnCount]];
+            masks = new long[start[columnCount]];
+            for (int column = 0; column < columnCount; column++) {
+                int entry = start[column];
+                for (int word = 0; word < columnRows[column].length; word++) {
+                    if (columnRows[column][word] != 0) {
+                        wordIndexes[entry] = word;
+                        masks[entry++] = columnRows[column][word];
+                    }
+                }
+            }
+            allRows = ones(rowCount);
+            allColumns = ones(columnCount);
+        }
+
+        private static long[] ones(final int bits) {
+            final long[] words = new long[words(bits)];
+            Arrays.fill(words, -1L);
+            if (bits % Long.SIZE != 0) {
+                words[words.length - 1] = (1L << bits) - 1;
+            }
+            return words;
+        }
+    }
+}
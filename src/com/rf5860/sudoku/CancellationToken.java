@@ -0,0 +1,28 @@
+package com.rf5860.sudoku;
+
+/**
+ * <h1>Cancellation Token</h1>
+ * <p>A flag which can be set from any thread to stop the solves it was passed to (see
+ * {@link SolveOptions#withCancellation(CancellationToken)}). Cancellation is cooperative: the search checks the token
+ * every few hundred nodes, and stops with {@link SolveResult.Status#CANCELLED}.</p>
+ * <p>A token can be shared by any number of solves, and can not be reset once cancelled.</p>
+ */
+public final class CancellationToken {
+    private volatile boolean cancelled;
+
+    /**
+     * Cancel every solve using the token.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Check if the token has been cancelled.
+     *
+     * @return <code>true</code> if {@link #cancel()} has been called, <code>false</code> otherwise
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
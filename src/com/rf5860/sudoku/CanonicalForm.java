@@ -0,0 +1,529 @@
+package com.rf5860.sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h1>Canonical Form</h1>
+ * <p>A representative of all the grids which are equivalent to a given grid under the symmetries of Sudoku:
+ * relabeling the digits, swapping rows within a band, swapping bands, swapping columns within a stack, swapping stacks
+ * and transposition (see {@link SudokuTransform}). Equivalent grids always have the same canonical form, so it can
+ * be used as a key for grids which are "the same puzzle".</p>
+ * <p>The canonical form is the transformed grid which is smallest when read in row-major order, where the digits are
+ * relabeled in the order they first appear (so the first digit is always <code>1</code>, the next new digit is
+ * <code>2</code>, and so on) and blank cells sort first.</p>
+ * <p>Finding it means trying each row first, arranging the stacks and columns to make that row as small as possible,
+ * then building the remaining rows one at a time. Only the choices which give the smallest prefix are followed, a
+ * prefix is dropped as soon as it is larger than the best grid found so far, and identical rows and columns are only
+ * tried once. Larger grids have too many arrangements for this, so only grids of up to
+ * {@value MAX_LENGTH}x{@value MAX_LENGTH} are supported.</p>
+ */
+public final class CanonicalForm {
+    public static final int MAX_LENGTH = 9;
+
+    private final Sudoku sudoku;
+    private final SudokuTransform transform;
+
+    private CanonicalForm(final Sudoku sudoku, final SudokuTransform transform) {
+        this.sudoku = sudoku;
+        this.transform = transform;
+    }
+
+    /**
+     * Check if grids of the given length can be canonicalized.
+     *
+     * @param length the length of the grid
+     * @return <code>true</code> if {@link #of(Sudoku)} supports the length, <code>false</code> otherwise
+     */
+    public static boolean supports(final int length) {
+        return length <= MAX_LENGTH;
+    }
+
+    /**
+     * Find the canonical form of a grid.
+     *
+     * @param sudoku the grid to canonicalize
+     * @return the canonical form, and the transform which maps the grid to it
+     * @throws IllegalArgumentException if the grid is larger than {@value MAX_LENGTH}x{@value MAX_LENGTH},
+     *                                  or has digits outside of its range
+     */
+    @NotNull
+    public static CanonicalForm of(@NotNull final Sudoku sudoku) throws IllegalArgumentException {
+        final int length = sudoku.getLength();
+        if (!supports(length)) {
+            throw new IllegalArgumentException(String.format("Only grids of up to %dx%d can be canonicalized", MAX_LENGTH, MAX_LENGTH));
+        }
+        final byte[] cells = sudoku.getCells();
+        for (final byte digit : cells) {
+            if (digit > length) {
+                throw new IllegalArgumentException(String.format("Digit %d is outside of a %dx%d grid", digit, length, length));
+            }
+        }
+        final Search search = new Search(length, cells);
+        search.run();
+        return new CanonicalForm(new Sudoku(length, search.best), search.transform());
+    }
+
+    /**
+     * Get the canonical grid.
+     *
+     * @return the canonical grid
+     */
+    @NotNull
+    public Sudoku getSudoku() {
+        return sudoku.clone();
+    }
+
+    /**
+     * Get the transform which maps the original grid to the canonical grid.
+     * {@link SudokuTransform#revert(Sudoku)} maps the canonical grid (or a solution of it) back to the original.
+     *
+     * @return the transform to the canonical grid
+     */
+    @NotNull
+    public SudokuTransform getTransform() {
+        return transform;
+    }
+
+    /**
+     * The search for the smallest transformed grid.
+     */
+    private static final class Search {
+        private final int length;
+        private final int subGridLength;
+        private final byte[] cells;
+        private final byte[] oriented;
+        private final List<int[]> permutations;
+        private final int[] columns;
+        private final int[] rows;
+        private final boolean[] usedRows;
+        private final boolean[] usedBands;
+        private final boolean[] usedStacks;
+        /**
+         * The first row, column, band and stack which is identical to each row, column, band and stack. Swapping two
+         * identical rows (or columns, bands or stacks) leaves the grid unchanged, so only the first needs searching.
+         */
+        private final int[] rowClass;
+        private final int[] columnClass;
+        private final int[] bandClass;
+        private final int[] stackClass;
+        /**
+         * Whether each column order of each stack only differs from an earlier one by swapping identical columns.
+         */
+        private final boolean[][] redundantOrders;
+        /**
+         * The digit labels after each stack of the first row.
+         */
+        private final int[][] stackLabels;
+        /**
+         * The digit labels at each depth of the row search, with one extra slot for the next free label.
+         */
+        private final int[][] labels;
+        private final int[] leftLabels;
+        private final int[] rightLabels;
+        private final byte[] current;
+        private byte[] best;
+        private int version;
+        private boolean bestTranspose;
+        private int[] bestRows;
+        private int[] bestColumns;
+        private int[] bestLabels;
+        private boolean transpose;
+
+        private Search(final int length, final byte[] cells) {
+            this.length = length;
+            this.cells = cells;
+            subGridLength = (int) Math.sqrt(length);
+            oriented = new byte[cells.length];
+            permutations = permutations(subGridLength);
+            columns = new int[length];
+            rows = new int[length];
+            usedRows = new boolean[length];
+            usedBands = new boolean[subGridLength];
+            usedStacks = new boolean[subGridLength];
+            rowClass = new int[length];
+            columnClass = new int[length];
+            bandClass = new int[subGridLength];
+            stackClass = new int[subGridLength];
+            redundantOrders = new boolean[subGridLength][permutations.size()];
+            stackLabels = new int[subGridLength + 1][length + 2];
+            labels = new int[length + 1][length + 2];
+            leftLabels = new int[length + 2];
+            rightLabels = new int[length + 2];
+            current = new byte[cells.length];
+        }
+
+        private void run() {
+            for (int orientation = 0; orientation < 2; orientation++) {
+                transpose = orientation == 1;
+                for (int row = 0; row < length; row++) {
+                    for (int column = 0; column < length; column++) {
+                        oriented[row * length + column] = cells[transpose ? column * length + row : row * length + column];
+                    }
+                }
+                classify();
+                // Each row can come first, after which the columns are arranged to make it as small as possible
+                for (int row = 0; row < length; row++) {
+                    if (isAllowed(row, -1)) {
+                        rows[0] = row;
+                        usedRows[row] = true;
+                        usedBands[row / subGridLength] = true;
+                        searchColumns(0, best == null ? -1 : 0, version);
+                        usedRows[row] = false;
+                        usedBands[row / subGridLength] = false;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Find the identical rows, columns, bands and stacks of the oriented grid.
+         */
+        private void classify() {
+            for (int i = 0; i < length; i++) {
+                rowClass[i] = i;
+                columnClass[i] = i;
+                for (int j = i - i % subGridLength; j < i; j++) {
+                    if (rowClass[i] == i && rowClass[j] == j && isSameRow(i, j)) {
+                        rowClass[i] = j;
+                    }
+                    if (columnClass[i] == i && columnClass[j] == j && isSameColumn(i, j)) {
+                        columnClass[i] = j;
+                    }
+                }
+            }
+            for (int i = 0; i < subGridLength; i++) {
+                bandClass[i] = i;
+                stackClass[i] = i;
+                for (int j = 0; j < i; j++) {
+                    if (bandClass[i] == i && bandClass[j] == j && isSameBand(i, j)) {
+                        bandClass[i] = j;
+                    }
+                    if (stackClass[i] == i && stackClass[j] == j && isSameStack(i, j)) {
+                        stackClass[i] = j;
+                    }
+                }
+                for (int order = 0; order < permutations.size(); order++) {
+                    redundantOrders[i][order] = false;
+                    for (int earlier = 0; earlier < order && !redundantOrders[i][order]; earlier++) {
+                        redundantOrders[i][order] = isSameOrder(i, permutations.get(order), permutations.get(earlier));
+                    }
+                }
+            }
+        }
+
+        private boolean isSameRow(final int left, final int right) {
+            for (int column = 0; column < length; column++) {
+                if (oriented[left * length + column] != oriented[right * length + column]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isSameColumn(final int left, final int right) {
+            for (int row = 0; row < length; row++) {
+                if (oriented[row * length + left] != oriented[row * length + right]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isSameBand(final int left, final int right) {
+            for (int i = 0; i < subGridLength; i++) {
+                if (!isSameRow(left * subGridLength + i, right * subGridLength + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isSameStack(final int left, final int right) {
+            for (int i = 0; i < subGridLength; i++) {
+                if (!isSameColumn(left * subGridLength + i, right * subGridLength + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isSameOrder(final int stack, final int[] left, final int[] right) {
+            for (int i = 0; i < subGridLength; i++) {
+                if (columnClass[stack * subGridLength + left[i]] != columnClass[stack * subGridLength + right[i]]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Choose the stack, and the order of its columns, for the given slot of the first row.
+         *
+         * @param slot         the stack of the result being chosen
+         * @param compare      how the first row so far compares to the best grid: <code>-1</code> if smaller
+         *                     (or there is no best grid yet) and <code>0</code> if equal
+         * @param knownVersion the version of the best grid <code>compare</code> was worked out against
+         */
+        private void searchColumns(final int slot, final int compare, final int knownVersion) {
+            if (slot == subGridLength) {
+                System.arraycopy(stackLabels[slot], 0, labels[1], 0, length + 2);
+                searchRows(1, compare, knownVersion);
+                return;
+            }
+            final int offset = slot * subGridLength;
+            // Find the smallest stack which can go in this slot, then follow every choice which gives it
+            int minimumStack = -1;
+            int minimumOrder = -1;
+            for (int stack = 0; stack < subGridLength; stack++) {
+                for (int order = 0; order < permutations.size(); order++) {
+                    if (isAllowedStack(stack, order)
+                        && (minimumStack < 0 || compareStacks(stack, order, minimumStack, minimumOrder, slot) < 0)) {
+                        minimumStack = stack;
+                        minimumOrder = order;
+                    }
+                }
+            }
+            for (int stack = minimumStack; stack < subGridLength; stack++) {
+                for (int order = stack == minimumStack ? minimumOrder : 0; order < permutations.size(); order++) {
+                    if ((stack != minimumStack || order != minimumOrder)
+                        && (!isAllowedStack(stack, order) || compareStacks(stack, order, minimumStack, minimumOrder, slot) != 0)) {
+                        continue;
+                    }
+                    int result = knownVersion == version ? compare : comparePrefix(offset);
+                    if (result > 0) {
+                        return;
+                    }
+                    final int[] columnOrder = permutations.get(order);
+                    final int[] next = stackLabels[slot + 1];
+                    System.arraycopy(stackLabels[slot], 0, next, 0, next.length);
+                    for (int i = 0; i < subGridLength; i++) {
+                        columns[offset + i] = stack * subGridLength + columnOrder[i];
+                        current[offset + i] = (byte) label(next, oriented[rows[0] * length + columns[offset + i]]);
+                    }
+                    if (result == 0) {
+                        result = compareRange(offset, offset + subGridLength);
+                        if (result > 0) {
+                            return;
+                        }
+                    }
+                    usedStacks[stack] = true;
+                    searchColumns(slot + 1, result, version);
+                    usedStacks[stack] = false;
+                }
+            }
+        }
+
+        private boolean isAllowedStack(final int stack, final int order) {
+            if (usedStacks[stack] || redundantOrders[stack][order]) {
+                return false;
+            }
+            for (int earlier = 0; earlier < stack; earlier++) {
+                if (!usedStacks[earlier] && stackClass[earlier] == stackClass[stack]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Compare two stacks of the first row, with their columns in the given orders, as they would be labeled if
+         * placed in the given slot.
+         */
+        private int compareStacks(final int left, final int leftOrder, final int right, final int rightOrder, final int slot) {
+            System.arraycopy(stackLabels[slot], 0, leftLabels, 0, leftLabels.length);
+            System.arraycopy(stackLabels[slot], 0, rightLabels, 0, rightLabels.length);
+            final int[] leftColumns = permutations.get(leftOrder);
+            final int[] rightColumns = permutations.get(rightOrder);
+            final int row = rows[0] * length;
+            for (int i = 0; i < subGridLength; i++) {
+                final int a = label(leftLabels, oriented[row + left * subGridLength + leftColumns[i]]);
+                final int b = label(rightLabels, oriented[row + right * subGridLength + rightColumns[i]]);
+                if (a != b) {
+                    return a < b ? -1 : 1;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Choose the row for the given slot of the result.
+         *
+         * @param slot         the row of the result being chosen
+         * @param compare      how the rows chosen so far compare to the best grid: <code>-1</code> if smaller
+         *                     (or there is no best grid yet) and <code>0</code> if equal
+         * @param knownVersion the version of the best grid <code>compare</code> was worked out against
+         */
+        private void searchRows(final int slot, final int compare, final int knownVersion) {
+            if (slot == length) {
+                if ((knownVersion == version ? compare : comparePrefix(current.length)) < 0) {
+                    record();
+                }
+                return;
+            }
+            final int band = slot % subGridLength == 0 ? -1 : rows[slot - slot % subGridLength] / subGridLength;
+            final int offset = slot * length;
+            // Find the smallest row which can go in this slot, then follow every candidate which gives it
+            int minimum = -1;
+            for (int candidate = 0; candidate < length; candidate++) {
+                if (isAllowed(candidate, band) && (minimum < 0 || compareRows(candidate, minimum, slot) < 0)) {
+                    minimum = candidate;
+                }
+            }
+            for (int candidate = minimum; candidate < length; candidate++) {
+                if (candidate != minimum && (!isAllowed(candidate, band) || compareRows(candidate, minimum, slot) != 0)) {
+                    continue;
+                }
+                int order = knownVersion == version ? compare : comparePrefix(offset);
+                if (order > 0) {
+                    return;
+                }
+                final int[] next = labels[slot + 1];
+                System.arraycopy(labels[slot], 0, next, 0, next.length);
+                relabel(candidate, next, offset);
+                if (order == 0) {
+                    order = compareRange(offset, offset + length);
+                    if (order > 0) {
+                        return;
+                    }
+                }
+                rows[slot] = candidate;
+                usedRows[candidate] = true;
+                if (slot % subGridLength == 0) {
+                    usedBands[candidate / subGridLength] = true;
+                }
+                searchRows(slot + 1, order, version);
+                usedRows[candidate] = false;
+                if (slot % subGridLength == 0) {
+                    usedBands[candidate / subGridLength] = false;
+                }
+            }
+        }
+
+        /**
+         * Check if a row can go in the next slot: it must be unused, in the current band (or, for the first row of a
+         * band, in an unused band), and not identical to an earlier row (or band) which could go there instead.
+         */
+        private boolean isAllowed(final int candidate, final int band) {
+            if (usedRows[candidate]) {
+                return false;
+            }
+            final int candidateBand = candidate / subGridLength;
+            if (band >= 0 ? candidateBand != band : usedBands[candidateBand]) {
+                return false;
+            }
+            for (int earlier = candidateBand * subGridLength; earlier < candidate; earlier++) {
+                if (!usedRows[earlier] && rowClass[earlier] == rowClass[candidate]) {
+                    return false;
+                }
+            }
+            if (band < 0) {
+                for (int earlier = 0; earlier < candidateBand; earlier++) {
+                    if (!usedBands[earlier] && bandClass[earlier] == bandClass[candidateBand]) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Compare two rows of the oriented grid, as they would be labeled if placed in the given slot.
+         */
+        private int compareRows(final int left, final int right, final int slot) {
+            System.arraycopy(labels[slot], 0, leftLabels, 0, leftLabels.length);
+            System.arraycopy(labels[slot], 0, rightLabels, 0, rightLabels.length);
+            for (int column = 0; column < length; column++) {
+                final int a = label(leftLabels, oriented[left * length + columns[column]]);
+                final int b = label(rightLabels, oriented[right * length + columns[column]]);
+                if (a != b) {
+                    return a < b ? -1 : 1;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Label the digits of a row of the oriented grid, and write it to the given offset of the current grid.
+         */
+        private void relabel(final int row, final int[] rowLabels, final int offset) {
+            for (int column = 0; column < length; column++) {
+                current[offset + column] = (byte) label(rowLabels, oriented[row * length + columns[column]]);
+            }
+        }
+
+        /**
+         * Get the label for a digit, giving it the next free label if it does not have one.
+         * The next free label is kept in the last slot of the labels.
+         */
+        private int label(final int[] rowLabels, final int digit) {
+            if (digit == 0) {
+                return 0;
+            }
+            if (rowLabels[digit] == 0) {
+                rowLabels[digit] = ++rowLabels[length + 1];
+            }
+            return rowLabels[digit];
+        }
+
+        private int comparePrefix(final int end) {
+            return compareRange(0, end);
+        }
+
+        private int compareRange(final int start, final int end) {
+            if (best == null) {
+                return -1;
+            }
+            for (int i = start; i < end; i++) {
+                if (current[i] != best[i]) {
+                    return current[i] < best[i] ? -1 : 1;
+                }
+            }
+            return 0;
+        }
+
+        private void record() {
+            best = current.clone();
+            version++;
+            bestTranspose = transpose;
+            bestRows = rows.clone();
+            bestColumns = columns.clone();
+            bestLabels = labels[length].clone();
+        }
+
+        /**
+         * Build the transform to the best grid, giving any digits which are not in the grid the remaining labels in order.
+         */
+        private SudokuTransform transform() {
+            final int[] digits = new int[length + 1];
+            int next = bestLabels[length + 1];
+            for (int digit = 1; digit <= length; digit++) {
+                digits[digit] = bestLabels[digit] != 0 ? bestLabels[digit] : ++next;
+            }
+            return new SudokuTransform(bestTranspose, bestRows, bestColumns, digits);
+        }
+
+        private static List<int[]> permutations(final int n) {
+            final List<int[]> permutations = new ArrayList<>();
+            permute(new int[n], new boolean[n], 0, permutations);
+            return permutations;
+        }
+
+        private static void permute(final int[] permutation, final boolean[] used, final int index, final List<int[]> permutations) {
+            if (index == permutation.length) {
+                permutations.add(permutation.clone());
+                return;
+            }
+            for (int i = 0; i < permutation.length; i++) {
+                if (!used[i]) {
+                    used[i] = true;
+                    permutation[index] = i;
+                    permute(permutation, used, index + 1, permutations);
+                    used[i] = false;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.rf5860.sudoku;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <h1>Column Selector</h1>
+ * <p>The strategy used by the search to choose which constraint to branch on next.</p>
+ * <p>Every strategy picks a column with the fewest remaining rows (Knuth's "S heuristic"), which keeps the search tree
+ * narrow. They differ in how ties are broken, and in how the smallest column is found.</p>
+ */
+public enum ColumnSelector {
+    /**
+     * Scan the headers for the smallest column, preferring the left-most on ties. The scan stops as soon as a column
+     * with a single row is found, which makes this the fastest choice for 9x9 grids.
+     */
+    MINIMUM_SIZE {
+        @Override
+        int choose(final DancingLinks links) {
+            return links.chooseColumn();
+        }
+    },
+    /**
+     * Scan every header for the smallest column, breaking ties at random. This gives a different search order on each
+     * run, which is useful for generating grids, or for spreading work over several searches.
+     */
+    RANDOM_TIES {
+        @Override
+        int choose(final DancingLinks links) {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            int best = links.right[DancingLinks.ROOT];
+            int bestSize = links.size[best];
+            int ties = 1;
+            for (int header = links.right[best]; header != DancingLinks.ROOT && bestSize > 0; header = links.right[header]) {
+                final int size = links.size[header];
+                if (size < bestSize) {
+                    best = header;
+                    bestSize = size;
+                    ties = 1;
+                } else if (size == bestSize && random.nextInt(++ties) == 0) {
+                    best = header;
+                }
+            }
+            return best;
+        }
+    },
+    /**
+     * Keep the columns in buckets by size as they are covered and uncovered, so the smallest column is found without
+     * scanning the headers. This pays off on large grids, which have thousands of headers.
+     */
+    BUCKETED {
+        @Override
+        void prepare(final DancingLinks links) {
+            links.trackSizes();
+        }
+
+        @Override
+        int choose(final DancingLinks links) {
+            return links.minimumColumn();
+        }
+    };
+
+    /**
+     * Get the selector for a grid of the given length, I.e. {@link #BUCKETED} for 16x16 grids and larger,
+     * and {@link #MINIMUM_SIZE} otherwise.
+     *
+     * @param length the length of the Sudoku grid
+     * @return the default selector for the grid
+     */
+    public static ColumnSelector forLength(final int length) {
+        return length >= 16 ? BUCKETED : MINIMUM_SIZE;
+    }
+
+    /**
+     * Prepare the matrix for this selector, before a search starts.
+     *
+     * @param links the matrix to search
+     */
+    void prepare(final DancingLinks links) {
+        links.untrackSizes();
+    }
+
+    /**
+     * Choose the next column to branch on.
+     *
+     * @param links the matrix being searched, with at least one uncovered column
+     * @return the header node of the chosen column
+     */
+    abstract int choose(DancingLinks links);
+}
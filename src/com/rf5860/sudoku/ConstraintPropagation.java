@@ -0,0 +1,384 @@
+package com.rf5860.sudoku;
+
+import static java.lang.Long.bitCount;
+import static java.lang.Long.numberOfTrailingZeros;
+import static java.util.Arrays.fill;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * <h1>Constraint Propagation</h1>
+ * <p>Logical deductions which fill cells and remove candidates before any searching is done. The following rules are
+ * applied until none of them make any more progress:</p>
+ * <ul>
+ * <li><strong>Naked singles</strong> - a cell with only one candidate must hold that digit</li>
+ * <li><strong>Hidden singles</strong> - a digit with only one possible cell in a row, column or sub-grid must go there</li>
+ * <li><strong>Locked candidates</strong> - if a digit's candidates in a sub-grid all lie in one row (or column), the
+ * digit can be removed from the rest of that row (or column). Likewise, if a digit's candidates in a row (or column)
+ * all lie in one sub-grid, the digit can be removed from the rest of that sub-grid</li>
+ * </ul>
+ * <p>Every deduction holds in every solution, so propagating never changes the set of solutions. Most easy and medium
+ * puzzles are solved outright, leaving nothing to search.</p>
+ * <p>Candidates are held as a bitmask per cell, with bit <code>d</code> set if digit <code>d</code> is a candidate,
+ * so this only supports grids of up to {@value MAX_LENGTH}x{@value MAX_LENGTH}.</p>
+ */
+final class ConstraintPropagation {
+    static final int MAX_LENGTH = Long.SIZE - 1;
+
+    private final int length;
+    private final int subGridLength;
+    private final long[] candidates;
+    private final long[] rowDigits;
+    private final long[] columnDigits;
+    private final long[] subGridDigits;
+    private final long allDigits;
+    private byte[] cells;
+
+    /**
+     * Constructs a reusable propagation for grids of the given length.
+     *
+     * @param length the length of the Sudoku grid, which must be at most {@value MAX_LENGTH}
+     */
+    ConstraintPropagation(final int length) {
+        this.length = length;
+        subGridLength = (int) Math.sqrt(length);
+        candidates = new long[length * length];
+        rowDigits = new long[length];
+        columnDigits = new long[length];
+        subGridDigits = new long[length];
+        allDigits = -1L >>> (Long.SIZE - 1 - length) & ~1L;
+    }
+
+    /**
+     * Apply the rules to the grid until no more progress can be made.
+     *
+     * @param length the length of the Sudoku grid, which must be at most {@value MAX_LENGTH}
+     * @param cells  the digits of the grid in row-major order, with <code>0</code> for blank cells.
+     *               Any cells which are deduced are filled in place
+     * @return the candidates of each cell (<code>0</code> for filled cells), or <code>null</code> if the grid has
+     * no solutions
+     */
+    @Nullable
+    static long[] propagate(final int length, final byte[] cells) {
+        final ConstraintPropagation propagation = new ConstraintPropagation(length);
+        return propagation.apply(cells) ? propagation.candidates.clone() : null;
+    }
+
+    /**
+     * Apply the rules to the grid until no more progress can be made.
+     *
+     * @param cells the digits of the grid in row-major order, with <code>0</code> for blank cells.
+     *              Any cells which are deduced are filled in place
+     * @return <code>false</code> if the grid has no solutions, <code>true</code> otherwise
+     */
+    boolean apply(final byte[] cells) {
+        this.cells = cells;
+        fill(candidates, 0);
+        fill(rowDigits, 0);
+        fill(columnDigits, 0);
+        fill(subGridDigits, 0);
+        return initialise() && propagate();
+    }
+
+    /**
+     * Get the remaining candidates of a cell, after {@link #apply(byte[])}.
+     *
+     * @param cell the index of the cell, in row-major order
+     * @return the candidates of the cell, or <code>0</code> if it is filled
+     */
+    long candidates(final int cell) {
+        return candidates[cell];
+    }
+
+    /**
+     * Get the digits which were removed from a blank cell by the rules, rather than by a filled cell it can see.
+     *
+     * @param cell the index of the cell, in row-major order
+     * @return the eliminated digits of the cell, or <code>0</code> if it is filled
+     */
+    long eliminated(final int cell) {
+        if (cells[cell] != 0) {
+            return 0;
+        }
+        final long seen = rowDigits[cell / length] | columnDigits[cell % length] | subGridDigits[subGridOf(cell)];
+        return allDigits & ~seen & ~candidates[cell];
+    }
+
+    private int subGridOf(final int cell) {
+        return (cell / length / subGridLength) * subGridLength + (cell % length) / subGridLength;
+    }
+
+    private int subGridCell(final int subGrid, final int index) {
+        final int row = (subGrid / subGridLength) * subGridLength + index / subGridLength;
+        final int column = (subGrid % subGridLength) * subGridLength + index % subGridLength;
+        return row * length + column;
+    }
+
+    /**
+     * Record the given digits, and find the candidates of every blank cell.
+     *
+     * @return <code>false</code> if the given digits conflict, <code>true</code> otherwise
+     */
+    private boolean initialise() {
+        for (int cell = 0; cell < cells.length; cell++) {
+            final int digit = cells[cell];
+            if (digit != 0) {
+                final long bit = 1L << digit;
+                final int row = cell / length;
+                final int column = cell % length;
+                final int subGrid = subGridOf(cell);
+                if (((rowDigits[row] | columnDigits[column] | subGridDigits[subGrid]) & bit) != 0) {
+                    return false;
+                }
+                rowDigits[row] |= bit;
+                columnDigits[column] |= bit;
+                subGridDigits[subGrid] |= bit;
+            }
+        }
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] == 0) {
+                candidates[cell] = allDigits & ~(rowDigits[cell / length] | columnDigits[cell % length] | subGridDigits[subGridOf(cell)]);
+                if (candidates[cell] == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return <code>false</code> if a contradiction was found, <code>true</code> otherwise
+     */
+    private boolean propagate() {
+        int progress;
+        do {
+            progress = nakedSingles();
+            if (progress == 0) {
+                progress = hiddenSingles();
+            }
+            if (progress == 0) {
+                progress = lockedCandidates();
+            }
+            if (progress < 0) {
+                return false;
+            }
+        } while (progress > 0);
+        return true;
+    }
+
+    /**
+     * Fill the given cell, and remove the digit from the candidates of every cell it can see.
+     *
+     * @return <code>false</code> if another cell is left without candidates, <code>true</code> otherwise
+     */
+    private boolean place(final int cell, final int digit) {
+        final long bit = 1L << digit;
+        final int row = cell / length;
+        final int column = cell % length;
+        final int subGrid = subGridOf(cell);
+        cells[cell] = (byte) digit;
+        candidates[cell] = 0;
+        rowDigits[row] |= bit;
+        columnDigits[column] |= bit;
+        subGridDigits[subGrid] |= bit;
+        boolean consistent = true;
+        for (int i = 0; i < length; i++) {
+            consistent &= eliminate(row * length + i, bit);
+            consistent &= eliminate(i * length + column, bit);
+            consistent &= eliminate(subGridCell(subGrid, i), bit);
+        }
+        return consistent;
+    }
+
+    /**
+     * Remove candidates from a cell.
+     *
+     * @return <code>false</code> if a blank cell is left without candidates, <code>true</code> otherwise
+     */
+    private boolean eliminate(final int cell, final long digits) {
+        if (cells[cell] != 0) {
+            return true;
+        }
+        candidates[cell] &= ~digits;
+        return candidates[cell] != 0;
+    }
+
+    /**
+     * @return the number of cells filled, or <code>-1</code> if a contradiction was found
+     */
+    private int nakedSingles() {
+        int filled = 0;
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] == 0 && bitCount(candidates[cell]) == 1) {
+                if (!place(cell, numberOfTrailingZeros(candidates[cell]))) {
+                    return -1;
+                }
+                filled++;
+            }
+        }
+        return filled;
+    }
+
+    /**
+     * @return the number of cells filled, or <code>-1</code> if a contradiction was found
+     */
+    private int hiddenSingles() {
+        int filled = 0;
+        for (int unit = 0; unit < 3 * length; unit++) {
+            long once = 0;
+            long twice = 0;
+            for (int i = 0; i < length; i++) {
+                final long cellCandidates = candidates[unitCell(unit, i)];
+                twice |= once & cellCandidates;
+                once |= cellCandidates;
+            }
+            final long placed = unitDigits(unit);
+            if ((once | placed) != allDigits) {
+                return -1;
+            }
+            long singles = once & ~twice & ~placed;
+            while (singles != 0) {
+                final long bit = Long.lowestOneBit(singles);
+                singles &= ~bit;
+                for (int i = 0; i < length; i++) {
+                    final int cell = unitCell(unit, i);
+                    if ((candidates[cell] & bit) != 0) {
+                        if (!place(cell, numberOfTrailingZeros(bit))) {
+                            return -1;
+                        }
+                        filled++;
+                        break;
+                    }
+                }
+            }
+        }
+        return filled;
+    }
+
+    /**
+     * Get the cell at the given index of a unit. Units <code>0</code> to <code>length - 1</code> are rows, followed by
+     * the columns, then the sub-grids.
+     */
+    private int unitCell(final int unit, final int index) {
+        if (unit < length) {
+            return unit * length + index;
+        }
+        if (unit < 2 * length) {
+            return index * length + unit - length;
+        }
+        return subGridCell(unit - 2 * length, index);
+    }
+
+    private long unitDigits(final int unit) {
+        if (unit < length) {
+            return rowDigits[unit];
+        }
+        if (unit < 2 * length) {
+            return columnDigits[unit - length];
+        }
+        return subGridDigits[unit - 2 * length];
+    }
+
+    /**
+     * @return the number of cells with candidates removed, or <code>-1</code> if a contradiction was found
+     */
+    private int lockedCandidates() {
+        int removed = 0;
+        for (int subGrid = 0; subGrid < length; subGrid++) {
+            final int top = (subGrid / subGridLength) * subGridLength;
+            final int left = (subGrid % subGridLength) * subGridLength;
+            for (int offset = 0; offset < subGridLength; offset++) {
+                // Pointing: the digits of this row (or column) of the sub-grid, which appear nowhere else in the sub-grid
+                final long rowOnly = segment(top + offset, left, true) & ~subGridExcept(subGrid, top + offset, true);
+                final long columnOnly = segment(left + offset, top, false) & ~subGridExcept(subGrid, left + offset, false);
+                // Claiming: the digits of this row (or column) which only appear in this sub-grid
+                final long rowClaimed = segment(top + offset, left, true) & ~lineExcept(top + offset, left, true);
+                final long columnClaimed = segment(left + offset, top, false) & ~lineExcept(left + offset, top, false);
+                for (int i = 0; i < length; i++) {
+                    final int rowCell = (top + offset) * length + i;
+                    final int columnCell = i * length + left + offset;
+                    final int subGridCell = subGridCell(subGrid, i);
+                    if (i < left || i >= left + subGridLength) {
+                        final int result = remove(rowCell, rowOnly);
+                        if (result < 0) {
+                            return -1;
+                        }
+                        removed += result;
+                    }
+                    if (i < top || i >= top + subGridLength) {
+                        final int result = remove(columnCell, columnOnly);
+                        if (result < 0) {
+                            return -1;
+                        }
+                        removed += result;
+                    }
+                    if (subGridCell / length != top + offset) {
+                        final int result = remove(subGridCell, rowClaimed);
+                        if (result < 0) {
+                            return -1;
+                        }
+                        removed += result;
+                    }
+                    if (subGridCell % length != left + offset) {
+                        final int result = remove(subGridCell, columnClaimed);
+                        if (result < 0) {
+                            return -1;
+                        }
+                        removed += result;
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Remove candidates from a cell.
+     *
+     * @return <code>1</code> if any were removed, <code>0</code> if not, or <code>-1</code> if none are left
+     */
+    private int remove(final int cell, final long digits) {
+        if (cells[cell] != 0 || (candidates[cell] & digits) == 0) {
+            return 0;
+        }
+        return eliminate(cell, digits) ? 1 : -1;
+    }
+
+    /**
+     * Get the candidates of the cells of a row (or column), within the sub-grid starting at the given offset.
+     */
+    private long segment(final int line, final int start, final boolean isRow) {
+        long digits = 0;
+        for (int i = start; i < start + subGridLength; i++) {
+            digits |= candidates[isRow ? line * length + i : i * length + line];
+        }
+        return digits;
+    }
+
+    /**
+     * Get the candidates of the cells of a sub-grid, outside of the given row (or column).
+     */
+    private long subGridExcept(final int subGrid, final int line, final boolean isRow) {
+        long digits = 0;
+        for (int i = 0; i < length; i++) {
+            final int cell = subGridCell(subGrid, i);
+            if ((isRow ? cell / length : cell % length) != line) {
+                digits |= candidates[cell];
+            }
+        }
+        return digits;
+    }
+
+    /**
+     * Get the candidates of the cells of a row (or column), outside of the sub-grid starting at the given offset.
+     */
+    private long lineExcept(final int line, final int start, final boolean isRow) {
+        long digits = 0;
+        for (int i = 0; i < length; i++) {
+            if (i < start || i >= start + subGridLength) {
+                digits |= candidates[isRow ? line * length + i : i * length + line];
+            }
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,437 @@
+package com.rf5860.sudoku;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <h1>Dancing Links</h1>
+ * <p>An array backed implementation of Knuth's <a href="https://en.wikipedia.org/wiki/Dancing_Links">Dancing Links</a>.</p>
+ * <p>Rather than allocating an object per node, every node is an index into a set of parallel arrays
+ * (<code>left</code>, <code>right</code>, <code>up</code>, <code>down</code> and <code>column</code>).
+ * The layout of the node indexes is:</p>
+ * <ul>
+ * <li><code>0</code> - the root node</li>
+ * <li><code>1</code> to <code>columns</code> - the column headers</li>
+ * <li><code>columns + 1</code> onwards - the nodes of each row, in the order they were added</li>
+ * </ul>
+ * <p>Covering and uncovering a column is pure index arithmetic, and never allocates.</p>
+ * <p>Optionally, the uncovered columns can also be kept in buckets by size (see {@link #trackSizes()}), so the smallest
+ * column can be found without scanning every header. Each bucket is a bitset of its headers, with a summary bit for
+ * each non-zero word, so a change in size moves a column between two buckets in constant time, and the left-most
+ * column of the smallest bucket is found with a few word scans.</p>
+ */
+final class DancingLinks {
+    static final int ROOT = 0;
+
+    final int columns;
+    final int[] left;
+    final int[] right;
+    final int[] up;
+    final int[] down;
+    final int[] column;
+    final int[] row;
+    final int[] size;
+    private int nodes;
+    private int maxSize;
+    private int bucketWords;
+    private int summaryWords;
+    private long[] sizeBits;
+    private long[] sizeSummary;
+    private int minimumSize;
+    private boolean tracking;
+
+    /**
+     * Constructs an empty matrix with the given number of columns.
+     *
+     * @param columns  the number of columns (constraints) in the matrix
+     * @param capacity the total number of nodes (set cells) the rows of the matrix will contain
+     */
+    DancingLinks(final int columns, final int capacity) {
+        this.columns = columns;
+        final int length = columns + 1 + capacity;
+        left = new int[length];
+        right = new int[length];
+        up = new int[length];
+        down = new int[length];
+        column = new int[length];
+        row = new int[length];
+        size = new int[columns + 1];
+        for (int header = 0; header <= columns; header++) {
+            left[header] = header == 0 ? columns : header - 1;
+            right[header] = header == columns ? 0 : header + 1;
+            up[header] = header;
+            down[header] = header;
+            column[header] = header;
+            row[header] = -1;
+        }
+        nodes = columns + 1;
+    }
+
+    /**
+     * Constructs a copy of the given matrix, in its current state.
+     *
+     * @param links the matrix to copy
+     */
+    DancingLinks(final DancingLinks links) {
+        columns = links.columns;
+        left = links.left.clone();
+        right = links.right.clone();
+        up = links.up.clone();
+        down = links.down.clone();
+        column = links.column.clone();
+        row = links.row.clone();
+        size = links.size.clone();
+        nodes = links.nodes;
+        maxSize = links.maxSize;
+        if (links.tracking) {
+            bucketWords = links.bucketWords;
+            summaryWords = links.summaryWords;
+            sizeBits = links.sizeBits.clone();
+            sizeSummary = links.sizeSummary.clone();
+            minimumSize = links.minimumSize;
+            tracking = true;
+        }
+    }
+
+    /**
+     * Get the header node of the given column.
+     *
+     * @param columnIndex the (0-based) index of the column
+     * @return the node index of the header for the given column
+     */
+    static int header(final int columnIndex) {
+        return columnIndex + 1;
+    }
+
+    /**
+     * Append a row to the bottom of the matrix.
+     *
+     * @param rowId         the identifier of the row, returned by {@link #row} for each of its nodes
+     * @param columnIndexes the (0-based) indexes of the columns satisfied by the row
+     * @return the node index of the first node in the row
+     * @throws ArrayIndexOutOfBoundsException if the matrix does not have the capacity for the row
+     */
+    int addRow(final int rowId, final int... columnIndexes) throws ArrayIndexOutOfBoundsException {
+        final int first = nodes;
+        for (int i = 0; i < columnIndexes.length; i++) {
+            final int node = nodes++;
+            final int header = header(columnIndexes[i]);
+            column[node] = header;
+            row[node] = rowId;
+            up[node] = up[header];
+            down[node] = header;
+            down[up[header]] = node;
+            up[header] = node;
+            maxSize = Math.max(maxSize, ++size[header]);
+            left[node] = i == 0 ? node + columnIndexes.length - 1 : node - 1;
+            right[node] = i == columnIndexes.length - 1 ? first : node + 1;
+        }
+        return first;
+    }
+
+    /**
+     * Remove a column from the header list, along with every row which satisfies it.
+     *
+     * @param header the header node of the column to cover
+     */
+    void cover(final int header) {
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+        if (tracking) {
+            coverTracked(header);
+            return;
+        }
+        for (int i = down[header]; i != header; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    /**
+     * Restore a column covered by {@link #cover(int)}. Columns must be uncovered in the reverse order they were covered.
+     *
+     * @param header the header node of the column to uncover
+     */
+    void uncover(final int header) {
+        if (tracking) {
+            uncoverTracked(header);
+            return;
+        }
+        for (int i = up[header]; i != header; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[header]] = header;
+        left[right[header]] = header;
+    }
+
+    /**
+     * Cover every other column satisfied by the row of the given node.
+     * The column of the node itself is expected to be covered already.
+     *
+     * @param node the node of the row being included in the solution
+     */
+    void select(final int node) {
+        for (int j = right[node]; j != node; j = right[j]) {
+            cover(column[j]);
+        }
+    }
+
+    /**
+     * Undo {@link #select(int)}, uncovering the other columns of the row in reverse order.
+     *
+     * @param node the node of the row being removed from the solution
+     */
+    void deselect(final int node) {
+        for (int j = left[node]; j != node; j = left[j]) {
+            uncover(column[j]);
+        }
+    }
+
+    /**
+     * Remove a row from every column it satisfies, without covering any columns.
+     *
+     * @param node any node in the row to remove
+     */
+    void hide(final int node) {
+        int j = node;
+        do {
+            down[up[j]] = down[j];
+            up[down[j]] = up[j];
+            resize(column[j], -1);
+            j = right[j];
+        } while (j != node);
+    }
+
+    /**
+     * Restore a row removed by {@link #hide(int)}. Rows must be restored in the reverse order they were hidden.
+     *
+     * @param node the node the row was hidden by
+     */
+    void unhide(final int node) {
+        int j = node;
+        do {
+            j = left[j];
+            resize(column[j], 1);
+            down[up[j]] = j;
+            up[down[j]] = j;
+        } while (j != node);
+    }
+
+    /**
+     * Put the rows of every column in a random order, so a search which tries them in order explores the tree in a
+     * random order. The rows are sorted before they are shuffled, so the new order only depends on the random numbers,
+     * and not on any earlier shuffle. This must only be called while no columns are covered and no rows are hidden.
+     *
+     * @param random the source of randomness
+     */
+    void shuffleRows(final Random random) {
+        int maxSize = 0;
+        for (int header = 1; header <= columns; header++) {
+            maxSize = Math.max(maxSize, size[header]);
+        }
+        final int[] order = new int[maxSize];
+        for (int header = 1; header <= columns; header++) {
+            int count = 0;
+            for (int node = down[header]; node != header; node = down[node]) {
+                order[count++] = node;
+            }
+            Arrays.sort(order, 0, count);
+            for (int i = count - 1; i > 0; i--) {
+                final int j = random.nextInt(i + 1);
+                final int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+            int previous = header;
+            for (int i = 0; i < count; i++) {
+                down[previous] = order[i];
+                up[order[i]] = previous;
+                previous = order[i];
+            }
+            down[previous] = header;
+            up[header] = previous;
+        }
+    }
+
+    /**
+     * Check if every node in the row of the given node is still linked into its column.
+     * A row is no longer available once any column it satisfies has been covered.
+     *
+     * @param node any node in the row to check
+     * @return <code>true</code> if the row can still be selected, <code>false</code> otherwise
+     */
+    boolean isRowAvailable(final int node) {
+        int j = node;
+        do {
+            if (down[up[j]] != j || right[left[column[j]]] != column[j]) {
+                return false;
+            }
+            j = right[j];
+        } while (j != node);
+        return true;
+    }
+
+    /**
+     * Check if every column has been covered, I.e. the selected rows form an exact cover.
+     *
+     * @return <code>true</code> if there are no uncovered columns, <code>false</code> otherwise
+     */
+    boolean isEmpty() {
+        return right[ROOT] == ROOT;
+    }
+
+    /**
+     * Choose the uncovered column with the fewest rows (Knuth's "S heuristic"), preferring the left-most on ties.
+     *
+     * @return the header node of the chosen column
+     */
+    int chooseColumn() {
+        int best = right[ROOT];
+        int bestSize = size[best];
+        for (int header = right[best]; header != ROOT && bestSize > 1; header = right[header]) {
+            if (size[header] < bestSize) {
+                best = header;
+                bestSize = size[header];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * <p>Start keeping the uncovered columns in buckets by size, from the current state of the matrix.</p>
+     * <p>Once tracking, {@link #minimumColumn()} finds the smallest column without a scan of the headers, at the cost
+     * of a little more work for each node unlinked or relinked by {@link #cover(int)} and {@link #uncover(int)}.</p>
+     */
+    void trackSizes() {
+        if (sizeBits == null) {
+            bucketWords = (columns + Long.SIZE) / Long.SIZE;
+            summaryWords = (bucketWords + Long.SIZE - 1) / Long.SIZE;
+            sizeBits = new long[(maxSize + 1) * bucketWords];
+            sizeSummary = new long[(maxSize + 1) * summaryWords];
+        } else {
+            Arrays.fill(sizeBits, 0);
+            Arrays.fill(sizeSummary, 0);
+        }
+        tracking = true;
+        minimumSize = maxSize;
+        for (int header = right[ROOT]; header != ROOT; header = right[header]) {
+            bucket(header);
+        }
+    }
+
+    /**
+     * Stop keeping the columns in buckets by size.
+     */
+    void untrackSizes() {
+        tracking = false;
+    }
+
+    /**
+     * Check if the columns are being kept in buckets by size.
+     *
+     * @return <code>true</code> if {@link #trackSizes()} is in effect, <code>false</code> otherwise
+     */
+    boolean isTrackingSizes() {
+        return tracking;
+    }
+
+    /**
+     * Find an uncovered column with the fewest rows, from the size buckets. Requires {@link #trackSizes()}.
+     *
+     * @return the header node of the chosen column, or {@link #ROOT} if every column is covered
+     */
+    int minimumColumn() {
+        if (isEmpty()) {
+            return ROOT;
+        }
+        // The minimum only ever drops by tracking each decrement, so it may need to climb back up to a non-empty bucket
+        while (true) {
+            final int header = firstInBucket(minimumSize);
+            if (header != ROOT) {
+                return header;
+            }
+            minimumSize++;
+        }
+    }
+
+    /**
+     * Find the left-most column in a size bucket. As with the scan, the left-most columns (the cells) make for the
+     * narrowest search.
+     *
+     * @return the header node of the column, or {@link #ROOT} if the bucket is empty
+     */
+    private int firstInBucket(final int bucketSize) {
+        final int summary = bucketSize * summaryWords;
+        for (int i = 0; i < summaryWords; i++) {
+            final long nonZero = sizeSummary[summary + i];
+            if (nonZero != 0) {
+                final int word = i * Long.SIZE + Long.numberOfTrailingZeros(nonZero);
+                return word * Long.SIZE + Long.numberOfTrailingZeros(sizeBits[bucketSize * bucketWords + word]);
+            }
+        }
+        return ROOT;
+    }
+
+    private void coverTracked(final int header) {
+        unbucket(header);
+        for (int i = down[header]; i != header; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                resize(column[j], -1);
+            }
+        }
+    }
+
+    private void uncoverTracked(final int header) {
+        for (int i = up[header]; i != header; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                resize(column[j], 1);
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[header]] = header;
+        left[right[header]] = header;
+        bucket(header);
+    }
+
+    /**
+     * Change the size of a column, moving it to its new bucket if sizes are being tracked.
+     */
+    private void resize(final int header, final int delta) {
+        if (tracking) {
+            unbucket(header);
+            size[header] += delta;
+            bucket(header);
+        } else {
+            size[header] += delta;
+        }
+    }
+
+    private void bucket(final int header) {
+        final int word = header >>> 6;
+        final int index = size[header] * bucketWords + word;
+        if (sizeBits[index] == 0) {
+            sizeSummary[size[header] * summaryWords + (word >>> 6)] |= 1L << word;
+        }
+        sizeBits[index] |= 1L << header;
+        minimumSize = Math.min(minimumSize, size[header]);
+    }
+
+    private void unbucket(final int header) {
+        final int word = header >>> 6;
+        final int index = size[header] * bucketWords + word;
+        sizeBits[index] &= ~(1L << header);
+        if (sizeBits[index] == 0) {
+            sizeSummary[size[header] * summaryWords + (word >>> 6)] &= ~(1L << word);
+        }
+    }
+}
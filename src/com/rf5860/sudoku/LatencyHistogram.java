@@ -0,0 +1,117 @@
+package com.rf5860.sudoku;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <h1>Latency Histogram</h1>
+ * <p>A fixed size, lock-free histogram of latencies, from which percentiles can be read while it is being recorded
+ * to.</p>
+ * <p>Values below {@value LINEAR_LIMIT} nanoseconds have a bucket each. Above that, each power of two is split into
+ * {@value SUB_BUCKETS} buckets, so a percentile is never more than about 3% above the true value. Recording a value
+ * is a couple of atomic increments, and never allocates.</p>
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a latency.
+     *
+     * @param nanos the latency, in nanoseconds. Negative values are recorded as <code>0</code>
+     */
+    void record(final long nanos) {
+        final long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Get the number of latencies recorded.
+     *
+     * @return the number of latencies
+     */
+    long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Get the highest latency recorded.
+     *
+     * @return the highest latency, in nanoseconds, or <code>0</code> if none have been recorded
+     */
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get the mean of the latencies recorded.
+     *
+     * @return the mean latency, in nanoseconds, or <code>0</code> if none have been recorded
+     */
+    double getMean() {
+        final long recorded = count.get();
+        return recorded == 0 ? 0 : (double) sum.get() / recorded;
+    }
+
+    /**
+     * Get the latency which the given percentage of latencies are at or below.
+     *
+     * @param percentile the percentage, from <code>0</code> to <code>100</code>
+     * @return the highest latency in the bucket holding the percentile, in nanoseconds, or <code>0</code> if none
+     * have been recorded
+     * @throws IllegalArgumentException if the percentage is out of range
+     */
+    long getPercentile(final double percentile) throws IllegalArgumentException {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100, but was " + percentile);
+        }
+        final long recorded = count.get();
+        if (recorded == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(bucket), max.get());
+            }
+        }
+        // Only reached if a value was recorded between reading the count and the buckets
+        return max.get();
+    }
+
+    /**
+     * Find the bucket of a value, which is the value itself below {@value LINEAR_LIMIT}, then the (exponent, top
+     * {@value SUB_BUCKET_BITS} bits below the leading bit) pair.
+     */
+    static int bucketOf(final long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Get the highest value which falls into the given bucket.
+     */
+    static long highestValueOf(final int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,548 @@
+package com.rf5860.sudoku;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * <h1>Node Arena</h1>
+ * <p>The exact cover matrix for Sudoku grids of a given length, with its dancing links held off-heap in a single
+ * direct {@link ByteBuffer}, for grids so large that an on-heap matrix would drive the size of the heap.</p>
+ * <p>The layout of the nodes and the order of the search are the same as {@link SudokuMatrix} with
+ * {@link ColumnSelector#BUCKETED}, but nothing about the matrix lives on the heap: the links are built straight into
+ * the buffer rather than copied from a template, and the size buckets and the stack of hidden rows live there too.
+ * The row of a node is not stored at all, since every row has one node per constraint, so it follows from the index of
+ * the node. A 49x49 grid takes 10MB off-heap, and tens of kilobytes on it.</p>
+ * <p>Building the matrix is the expensive part, so an arena is meant to be allocated once per worker thread and reused
+ * for every puzzle of its length. {@link #acquire(int)} lends out an instance pooled for the current thread, and
+ * {@link #free()} gives the pooled arenas' memory back to the system straight away, rather than whenever the garbage
+ * collector gets around to it.</p>
+ * <p>Instances are not thread-safe.</p>
+ */
+final class NodeArena {
+    private static final int CONSTRAINTS = 4;
+    private static final int ROOT = DancingLinks.ROOT;
+    private static final ThreadLocal<NodeArena[]> POOL = ThreadLocal.withInitial(() -> new NodeArena[0]);
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            final Class<?> type = Class.forName("sun.misc.Unsafe");
+            final Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Before Java 9, direct buffers are cleaned through their own cleaner instead
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    final int length;
+    private final int columns;
+    private final int firstRowNode;
+    private final ByteBuffer buffer;
+    private final IntBuffer left;
+    private final IntBuffer right;
+    private final IntBuffer up;
+    private final IntBuffer down;
+    private final IntBuffer column;
+    private final IntBuffer size;
+    private final int bucketWords;
+    private final int summaryWords;
+    private final LongBuffer sizeBits;
+    private final LongBuffer sizeSummary;
+    private final IntBuffer hidden;
+    private final ConstraintPropagation propagation;
+    private final int[] selected;
+    private final int[] headers;
+    private final int[] nodes;
+    private int selectedCount;
+    private int hiddenCount;
+    private int minimumSize;
+    private boolean pooled;
+    private boolean inUse;
+    private boolean freed;
+
+    private NodeArena(final int length) {
+        this.length = length;
+        final int cells = length * length;
+        columns = CONSTRAINTS * cells;
+        firstRowNode = columns + 1;
+        final int nodeCount = firstRowNode + CONSTRAINTS * cells * length;
+        // The buckets of sizes 0 to length come first, so their longs are aligned
+        bucketWords = (columns + Long.SIZE) / Long.SIZE;
+        summaryWords = (bucketWords + Long.SIZE - 1) / Long.SIZE;
+        final int bucketLongs = (length + 1) * (bucketWords + summaryWords);
+        buffer = ByteBuffer.allocateDirect(Long.BYTES * bucketLongs
+                                           + Integer.BYTES * (5 * nodeCount + (columns + 1) + cells * length))
+                           .order(ByteOrder.nativeOrder());
+        sizeBits = sliceLongs((length + 1) * bucketWords);
+        sizeSummary = sliceLongs((length + 1) * summaryWords);
+        left = slice(nodeCount);
+        right = slice(nodeCount);
+        up = slice(nodeCount);
+        down = slice(nodeCount);
+        column = slice(nodeCount);
+        size = slice(columns + 1);
+        hidden = slice(cells * length);
+        propagation = length <= ConstraintPropagation.MAX_LENGTH ? new ConstraintPropagation(length) : null;
+        selected = new int[cells];
+        headers = new int[cells + 1];
+        nodes = new int[cells + 1];
+        build();
+    }
+
+    /**
+     * Take the next <code>count</code> ints of the buffer as a region of their own.
+     */
+    private IntBuffer slice(final int count) {
+        final IntBuffer region = buffer.asIntBuffer();
+        ((Buffer) region).limit(count);
+        final IntBuffer slice = region.slice();
+        ((Buffer) buffer).position(buffer.position() + Integer.BYTES * count);
+        return slice;
+    }
+
+    /**
+     * Take the next <code>count</code> longs of the buffer as a region of their own.
+     */
+    private LongBuffer sliceLongs(final int count) {
+        final LongBuffer region = buffer.asLongBuffer();
+        ((Buffer) region).limit(count);
+        final LongBuffer slice = region.slice();
+        ((Buffer) buffer).position(buffer.position() + Long.BYTES * count);
+        return slice;
+    }
+
+    /**
+     * Borrow the arena pooled for the current thread, allocating it on first use. It must be given back with
+     * {@link #release()} once the solve is finished. If the pooled arena is already in use, a new one is created
+     * instead, and freed as soon as it is released.
+     *
+     * @param length the length of the Sudoku grid
+     * @return an empty arena
+     */
+    static NodeArena acquire(final int length) {
+        NodeArena[] pool = POOL.get();
+        if (length >= pool.length) {
+            pool = Arrays.copyOf(pool, length + 1);
+            POOL.set(pool);
+        }
+        NodeArena arena = pool[length];
+        if (arena == null) {
+            arena = new NodeArena(length);
+            arena.pooled = true;
+            pool[length] = arena;
+        }
+        if (arena.inUse) {
+            return new NodeArena(length);
+        }
+        arena.inUse = true;
+        return arena;
+    }
+
+    /**
+     * Restore the arena, and return it to the pool of the current thread.
+     */
+    void release() {
+        restore();
+        if (pooled) {
+            inUse = false;
+        } else {
+            clean();
+        }
+    }
+
+    /**
+     * Free the off-heap memory of every arena pooled for the current thread. An arena which is in use is freed when it
+     * is released. The next solve on this thread allocates a new arena.
+     */
+    static void free() {
+        final NodeArena[] pool = POOL.get();
+        for (int length = 0; length < pool.length; length++) {
+            final NodeArena arena = pool[length];
+            if (arena != null) {
+                pool[length] = null;
+                arena.pooled = false;
+                if (!arena.inUse) {
+                    arena.clean();
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if the off-heap memory of this arena has been freed.
+     *
+     * @return <code>true</code> if the arena has been freed, <code>false</code> otherwise
+     */
+    boolean isFreed() {
+        return freed;
+    }
+
+    /**
+     * Give the memory of the buffer back to the system. The arena must never be touched again.
+     */
+    private void clean() {
+        freed = true;
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } else {
+                final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                final Object cleaner = cleanerMethod.invoke(buffer);
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // The buffer is freed once it is garbage collected instead
+        }
+    }
+
+    /**
+     * <p>Search for up to <code>limit</code> solutions of a puzzle, filling the first one into its cells.</p>
+     * <p>Like {@link SudokuMatrix#load(byte[], ColumnSelector)}, the grid is first reduced by
+     * {@link ConstraintPropagation}, and the candidates it eliminates are hidden before the search starts. The matrix
+     * is restored before this returns.</p>
+     *
+     * @param cells  the digits of the grid in row-major order, with <code>0</code> for blank cells
+     * @param stats  the stats to record the search in, or <code>null</code>
+     * @param budget the budget to spend a node of before each row is selected, or <code>null</code> for no limits
+     * @param limit  the maximum number of solutions to find
+     * @return the number of solutions found. If this is less than <code>limit</code> and the budget has a reason, the
+     * search was stopped by the budget
+     * @throws IllegalArgumentException if any digit is outside the range of the grid
+     */
+    int search(final byte[] cells, final SolverStats stats, final SearchBudget budget, final int limit)
+        throws IllegalArgumentException {
+        final long start = stats == null ? 0 : System.nanoTime();
+        final boolean loaded = load(cells);
+        if (stats != null) {
+            stats.matrixLoaded(System.nanoTime() - start);
+        }
+        if (!loaded || budget != null && !budget.check()) {
+            return 0;
+        }
+        int count = 0;
+        int depth = 0;
+        boolean entering = true;
+        boolean pending = false;
+        while (true) {
+            if (entering) {
+                if (right.get(ROOT) == ROOT) {
+                    if (stats != null) {
+                        stats.solution();
+                    }
+                    if (count++ == 0) {
+                        for (int level = 0; level < depth; level++) {
+                            SudokuMatrix.fill(cells, length, rowOf(nodes[level]));
+                        }
+                    }
+                    if (count >= limit) {
+                        break;
+                    }
+                    entering = false;
+                    continue;
+                }
+                final int header = minimumColumn();
+                if (stats != null) {
+                    stats.branch(size.get(header));
+                }
+                cover(header);
+                headers[depth] = header;
+                nodes[depth] = header;
+            } else {
+                if (depth == 0) {
+                    break;
+                }
+                deselect(nodes[--depth]);
+                if (stats != null) {
+                    stats.deselect(CONSTRAINTS - 1);
+                }
+            }
+            final int node = down.get(nodes[depth]);
+            if (node == headers[depth]) {
+                uncover(headers[depth]);
+                if (stats != null) {
+                    stats.uncover();
+                }
+                entering = false;
+            } else if (budget != null && !budget.spend()) {
+                pending = true;
+                break;
+            } else {
+                nodes[depth++] = node;
+                select(node);
+                if (stats != null) {
+                    stats.select(depth, CONSTRAINTS - 1);
+                }
+                entering = true;
+            }
+        }
+        // Undo the search, so the matrix is back to the loaded puzzle
+        if (pending) {
+            uncover(headers[depth]);
+        }
+        while (depth > 0) {
+            deselect(nodes[--depth]);
+            uncover(headers[depth]);
+        }
+        return count;
+    }
+
+    /**
+     * Load a puzzle into the matrix, selecting the rows of its filled cells and hiding the rows of any candidates
+     * removed by propagation.
+     *
+     * @return <code>false</code> if the grid has no solutions, <code>true</code> otherwise
+     */
+    private boolean load(final byte[] cells) throws IllegalArgumentException {
+        restore();
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] < 0 || cells[cell] > length) {
+                throw new IllegalArgumentException(String.format("Invalid digit %d at [%d][%d]", cells[cell], cell / length, cell % length));
+            }
+        }
+        if (propagation != null && !propagation.apply(cells)) {
+            return false;
+        }
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] != 0) {
+                final int node = nodeOf(cell, cells[cell]);
+                if (!isRowAvailable(node)) {
+                    restore();
+                    return false;
+                }
+                cover(column.get(node));
+                select(node);
+                selected[selectedCount++] = node;
+            }
+        }
+        if (propagation != null) {
+            for (int cell = 0; cell < cells.length; cell++) {
+                long eliminated = propagation.eliminated(cell);
+                while (eliminated != 0) {
+                    final int digit = Long.numberOfTrailingZeros(eliminated);
+                    eliminated &= eliminated - 1;
+                    final int node = nodeOf(cell, digit);
+                    hide(node);
+                    hidden.put(hiddenCount++, node);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Undo the loaded puzzle, in the reverse order it was applied.
+     */
+    private void restore() {
+        while (hiddenCount > 0) {
+            unhide(hidden.get(--hiddenCount));
+        }
+        while (selectedCount > 0) {
+            final int node = selected[--selectedCount];
+            deselect(node);
+            uncover(column.get(node));
+        }
+    }
+
+    /**
+     * Build the links of every (row, column, digit) triple into the buffer, with every column in its size bucket.
+     */
+    private void build() {
+        final int cells = length * length;
+        final int subGridLength = (int) Math.sqrt(length);
+        for (int header = 0; header <= columns; header++) {
+            left.put(header, header == 0 ? columns : header - 1);
+            right.put(header, header == columns ? 0 : header + 1);
+            up.put(header, header);
+            down.put(header, header);
+            column.put(header, header);
+        }
+        int node = firstRowNode;
+        for (int row = 0; row < length; row++) {
+            for (int col = 0; col < length; col++) {
+                final int subGrid = (row / subGridLength) * subGridLength + col / subGridLength;
+                for (int digit = 0; digit < length; digit++) {
+                    final int first = node;
+                    link(node++, first, row * length + col);
+                    link(node++, first, cells + row * length + digit);
+                    link(node++, first, 2 * cells + col * length + digit);
+                    link(node++, first, 3 * cells + subGrid * length + digit);
+                }
+            }
+        }
+        minimumSize = length;
+        for (int header = 1; header <= columns; header++) {
+            bucket(header);
+        }
+    }
+
+    /**
+     * Append a node to the bottom of a column, and to the right of the row starting at <code>first</code>.
+     */
+    private void link(final int node, final int first, final int columnIndex) {
+        final int header = DancingLinks.header(columnIndex);
+        column.put(node, header);
+        up.put(node, up.get(header));
+        down.put(node, header);
+        down.put(up.get(header), node);
+        up.put(header, node);
+        size.put(header, size.get(header) + 1);
+        left.put(node, node == first ? node + CONSTRAINTS - 1 : node - 1);
+        right.put(node, node == first + CONSTRAINTS - 1 ? first : node + 1);
+    }
+
+    /**
+     * Get the identifier of the matrix row of a node, as {@link SudokuMatrix} numbers them.
+     */
+    private int rowOf(final int node) {
+        return (node - firstRowNode) / CONSTRAINTS;
+    }
+
+    /**
+     * Get the first node of the matrix row for the given cell and (1-based) digit.
+     */
+    private int nodeOf(final int cell, final int digit) {
+        return firstRowNode + CONSTRAINTS * (cell * length + digit - 1);
+    }
+
+    private boolean isRowAvailable(final int node) {
+        int j = node;
+        do {
+            final int header = column.get(j);
+            if (down.get(up.get(j)) != j || right.get(left.get(header)) != header) {
+                return false;
+            }
+            j = right.get(j);
+        } while (j != node);
+        return true;
+    }
+
+    private void cover(final int header) {
+        right.put(left.get(header), right.get(header));
+        left.put(right.get(header), left.get(header));
+        unbucket(header);
+        for (int i = down.get(header); i != header; i = down.get(i)) {
+            for (int j = right.get(i); j != i; j = right.get(j)) {
+                down.put(up.get(j), down.get(j));
+                up.put(down.get(j), up.get(j));
+                resize(column.get(j), -1);
+            }
+        }
+    }
+
+    private void uncover(final int header) {
+        for (int i = up.get(header); i != header; i = up.get(i)) {
+            for (int j = left.get(i); j != i; j = left.get(j)) {
+                resize(column.get(j), 1);
+                down.put(up.get(j), j);
+                up.put(down.get(j), j);
+            }
+        }
+        right.put(left.get(header), header);
+        left.put(right.get(header), header);
+        bucket(header);
+    }
+
+    private void select(final int node) {
+        for (int j = right.get(node); j != node; j = right.get(j)) {
+            cover(column.get(j));
+        }
+    }
+
+    private void deselect(final int node) {
+        for (int j = left.get(node); j != node; j = left.get(j)) {
+            uncover(column.get(j));
+        }
+    }
+
+    private void hide(final int node) {
+        int j = node;
+        do {
+            down.put(up.get(j), down.get(j));
+            up.put(down.get(j), up.get(j));
+            resize(column.get(j), -1);
+            j = right.get(j);
+        } while (j != node);
+    }
+
+    private void unhide(final int node) {
+        int j = node;
+        do {
+            j = left.get(j);
+            resize(column.get(j), 1);
+            down.put(up.get(j), j);
+            up.put(down.get(j), j);
+        } while (j != node);
+    }
+
+    /**
+     * Find an uncovered column with the fewest rows, from the size buckets, as {@link DancingLinks#minimumColumn()}.
+     */
+    private int minimumColumn() {
+        while (true) {
+            final int header = firstInBucket(minimumSize);
+            if (header != ROOT) {
+                return header;
+            }
+            minimumSize++;
+        }
+    }
+
+    /**
+     * Find the left-most column in a size bucket, or {@link #ROOT} if it is empty.
+     */
+    private int firstInBucket(final int bucketSize) {
+        final int summary = bucketSize * summaryWords;
+        for (int i = 0; i < summaryWords; i++) {
+            final long nonZero = sizeSummary.get(summary + i);
+            if (nonZero != 0) {
+                final int word = i * Long.SIZE + Long.numberOfTrailingZeros(nonZero);
+                return word * Long.SIZE + Long.numberOfTrailingZeros(sizeBits.get(bucketSize * bucketWords + word));
+            }
+        }
+        return ROOT;
+    }
+
+    private void resize(final int header, final int delta) {
+        unbucket(header);
+        size.put(header, size.get(header) + delta);
+        bucket(header);
+    }
+
+    private void bucket(final int header) {
+        final int headerSize = size.get(header);
+        final int word = header >>> 6;
+        final int index = headerSize * bucketWords + word;
+        final long bits = sizeBits.get(index);
+        if (bits == 0) {
+            final int summary = headerSize * summaryWords + (word >>> 6);
+            sizeSummary.put(summary, sizeSummary.get(summary) | 1L << word);
+        }
+        sizeBits.put(index, bits | 1L << header);
+        minimumSize = Math.min(minimumSize, headerSize);
+    }
+
+    private void unbucket(final int header) {
+        final int word = header >>> 6;
+        final int index = size.get(header) * bucketWords + word;
+        final long bits = sizeBits.get(index) & ~(1L << header);
+        sizeBits.put(index, bits);
+        if (bits == 0) {
+            final int summary = size.get(header) * summaryWords + (word >>> 6);
+            sizeSummary.put(summary, sizeSummary.get(summary) & ~(1L << word));
+        }
+    }
+}
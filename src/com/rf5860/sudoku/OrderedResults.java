@@ -0,0 +1,188 @@
+package com.rf5860.sudoku;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * <h1>Ordered Results</h1>
+ * <p>Hands the results of a {@link ParallelSearch} to one consuming thread in the order of the search tree, as soon as
+ * every earlier sub-tree is done, rather than once the whole search is.</p>
+ * <p>Each sub-tree writes into a segment, a queue with a bounded capacity. When a task splits, its segment ends with
+ * the segments of its sub-trees, in order, and the consumer drains the segments depth first. A sub-tree which gets
+ * ahead of the consumer waits once its segment is full, through {@link ForkJoinPool#managedBlock}, so the pool can
+ * make up for the blocked worker. The results buffered at any time are bounded by the capacity times the number of
+ * sub-trees being searched.</p>
+ *
+ * @param <E> the type of the results
+ */
+final class OrderedResults<E> {
+    static final int CAPACITY = 64;
+    private static final long WAIT_MILLIS = 10;
+    private static final Object END = new Object();
+
+    private final Segment<E> root = new Segment<>(this);
+    private volatile boolean cancelled;
+
+    /**
+     * @return the segment for the whole search tree
+     */
+    Segment<E> root() {
+        return root;
+    }
+
+    /**
+     * Stop the search; blocked sub-trees are released and no more results are kept.
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Pass each result to the action in order, waiting for the sub-tree it is in. Returns once the last sub-tree is
+     * done. If a sub-tree failed, its exception is rethrown when the consumer reaches it.
+     *
+     * @param action the action to perform for each result
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    void drain(final Consumer<? super E> action) throws InterruptedException {
+        drain(root, action);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drain(final Segment<E> segment, final Consumer<? super E> action) throws InterruptedException {
+        while (true) {
+            final Object item = segment.queue.take();
+            if (item == END) {
+                return;
+            }
+            if (item instanceof Segment[]) {
+                for (final Segment<E> child : (Segment<E>[]) item) {
+                    drain(child, action);
+                }
+                return;
+            }
+            if (item instanceof Failure) {
+                final Throwable exception = ((Failure) item).exception;
+                if (exception instanceof Error) {
+                    throw (Error) exception;
+                }
+                throw (RuntimeException) exception;
+            }
+            action.accept((E) item);
+        }
+    }
+
+    /**
+     * The results of one sub-tree, written by the task searching it.
+     *
+     * @param <E> the type of the results
+     */
+    static final class Segment<E> {
+        private final OrderedResults<E> results;
+        private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>(CAPACITY);
+
+        private Segment(final OrderedResults<E> results) {
+            this.results = results;
+        }
+
+        /**
+         * @return whether the search has been cancelled, so the sub-tree should not be searched
+         */
+        boolean isCancelled() {
+            return results.cancelled;
+        }
+
+        /**
+         * Add a result, waiting while the segment is full.
+         *
+         * @param result the next result of the sub-tree
+         * @return <code>false</code> if the search has been cancelled, so the sub-tree should stop
+         */
+        boolean add(final E result) {
+            return put(result);
+        }
+
+        /**
+         * End the segment with the segments of the given number of sub-trees, which follow it in order.
+         *
+         * @param count the number of sub-trees
+         * @return the segments of the sub-trees
+         */
+        @SuppressWarnings("unchecked")
+        Segment<E>[] split(final int count) {
+            final Segment<E>[] children = new Segment[count];
+            for (int i = 0; i < count; i++) {
+                children[i] = new Segment<>(results);
+            }
+            put(children);
+            return children;
+        }
+
+        /**
+         * End the segment once the sub-tree is done.
+         */
+        void close() {
+            put(END);
+        }
+
+        /**
+         * End the segment with the exception that stopped the sub-tree.
+         *
+         * @param exception the unchecked exception or error thrown by the search
+         */
+        void fail(final Throwable exception) {
+            put(new Failure(exception));
+        }
+
+        private boolean put(final Object item) {
+            if (results.cancelled) {
+                return false;
+            }
+            if (queue.offer(item)) {
+                return true;
+            }
+            final Put blocker = new Put(item);
+            try {
+                ForkJoinPool.managedBlock(blocker);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return blocker.done;
+        }
+
+        /**
+         * Waits for room in the segment, or for the search to be cancelled.
+         */
+        private final class Put implements ForkJoinPool.ManagedBlocker {
+            private final Object item;
+            private boolean done;
+
+            private Put(final Object item) {
+                this.item = item;
+            }
+
+            @Override
+            public boolean block() throws InterruptedException {
+                done = queue.offer(item, WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                return isReleasable();
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return done || results.cancelled || (done = queue.offer(item));
+            }
+        }
+    }
+
+    private static final class Failure {
+        private final Throwable exception;
+
+        private Failure(final Throwable exception) {
+            this.exception = exception;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.rf5860.sudoku;
+
+import java.nio.ByteBuffer;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h1>Packed Format</h1>
+ * <p>A compact binary encoding of Sudoku grids, for corpora too large to parse as text.</p>
+ * <p>Each cell takes the fewest bits which can hold every digit of the grid (including <code>0</code> for a blank
+ * cell), packed most significant bit first in row-major order, with the last byte padded with zeros:</p>
+ * <table summary="Record sizes">
+ * <tr><th>Grid</th><th>Bits per cell</th><th>Bytes per grid</th></tr>
+ * <tr><td>4x4</td><td>3</td><td>6</td></tr>
+ * <tr><td>9x9</td><td>4</td><td>41</td></tr>
+ * <tr><td>16x16</td><td>5</td><td>160</td></tr>
+ * <tr><td>25x25</td><td>5</td><td>391</td></tr>
+ * </table>
+ * <p>A packed file (see {@link PackedPuzzleWriter} and {@link PackedPuzzleReader}) is a {@value HEADER_SIZE} byte
+ * header followed by fixed size records, one per grid, so any grid can be found without reading those before it. The
+ * header is the magic bytes <code>SDKP</code>, the format version, the length of the grids, and two reserved bytes.</p>
+ */
+public final class PackedFormat {
+    public static final int HEADER_SIZE = 8;
+    static final byte[] MAGIC = {'S', 'D', 'K', 'P'};
+    static final byte VERSION = 1;
+
+    private PackedFormat() {
+    }
+
+    /**
+     * Get the number of bits each cell of a grid takes.
+     *
+     * @param length the length of the grid
+     * @return the number of bits per cell
+     */
+    public static int bitsPerCell(final int length) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(length);
+    }
+
+    /**
+     * Get the number of bytes each grid takes.
+     *
+     * @param length the length of the grid
+     * @return the size of a record
+     */
+    public static int recordSize(final int length) {
+        return (length * length * bitsPerCell(length) + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    /**
+     * Encode a grid as a record.
+     *
+     * @param sudoku the grid to encode
+     * @return the packed grid
+     * @throws IllegalArgumentException if the grid has digits outside of its range
+     */
+    @NotNull
+    public static byte[] encode(@NotNull final Sudoku sudoku) throws IllegalArgumentException {
+        final ByteBuffer record = ByteBuffer.allocate(recordSize(sudoku.getLength()));
+        encode(sudoku.getCells(), sudoku.getLength(), record);
+        return record.array();
+    }
+
+    /**
+     * Decode a grid from a record.
+     *
+     * @param length the length of the grid
+     * @param record the packed grid
+     * @return the grid
+     * @throws IllegalArgumentException if the record is the wrong size, or holds digits outside of the grid
+     */
+    @NotNull
+    public static Sudoku decode(final int length, @NotNull final byte[] record) throws IllegalArgumentException {
+        if (record.length != recordSize(length)) {
+            throw new IllegalArgumentException(String.format("A %dx%d grid takes %d bytes, but was %d",
+                                                             length, length, recordSize(length), record.length));
+        }
+        final byte[] cells = new byte[length * length];
+        if (!decode(ByteBuffer.wrap(record), length, cells)) {
+            throw new IllegalArgumentException(String.format("Record holds digits outside of a %dx%d grid", length, length));
+        }
+        return new Sudoku(length, cells);
+    }
+
+    /**
+     * Write the record of a grid to the buffer, at its position, and advance the position past it.
+     *
+     * @param cells  the digits of the grid in row-major order
+     * @param length the length of the grid
+     * @param out    the buffer to write to, with at least {@link #recordSize(int)} bytes remaining
+     * @throws IllegalArgumentException if any digit is outside of the grid
+     */
+    static void encode(final byte[] cells, final int length, final ByteBuffer out) throws IllegalArgumentException {
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] < 0 || cells[cell] > length) {
+                throw new IllegalArgumentException(String.format("Invalid digit %d at [%d][%d]", cells[cell], cell / length, cell % length));
+            }
+        }
+        final int bits = bitsPerCell(length);
+        if (bits == 4) {
+            // Two cells to a byte, which covers 9x9 grids
+            int cell = 0;
+            for (; cell + 1 < cells.length; cell += 2) {
+                out.put((byte) (cells[cell] << 4 | cells[cell + 1]));
+            }
+            if (cell < cells.length) {
+                out.put((byte) (cells[cell] << 4));
+            }
+            return;
+        }
+        int buffer = 0;
+        int buffered = 0;
+        for (final byte digit : cells) {
+            buffer = buffer << bits | digit;
+            buffered += bits;
+            if (buffered >= Byte.SIZE) {
+                buffered -= Byte.SIZE;
+                out.put((byte) (buffer >>> buffered));
+            }
+        }
+        if (buffered > 0) {
+            out.put((byte) (buffer << Byte.SIZE - buffered));
+        }
+    }
+
+    /**
+     * Read the record of a grid from the buffer, at its position, and advance the position past it.
+     *
+     * @param in     the buffer to read from, with at least {@link #recordSize(int)} bytes remaining
+     * @param length the length of the grid
+     * @param cells  the array to decode the digits into, in row-major order
+     * @return <code>false</code> if the record holds digits outside of the grid, <code>true</code> otherwise
+     */
+    static boolean decode(final ByteBuffer in, final int length, final byte[] cells) {
+        final int bits = bitsPerCell(length);
+        int invalid = 0;
+        if (bits == 4) {
+            int cell = 0;
+            for (; cell + 1 < cells.length; cell += 2) {
+                final int pair = in.get() & 0xFF;
+                cells[cell] = (byte) (pair >>> 4);
+                cells[cell + 1] = (byte) (pair & 0xF);
+                invalid |= length - (pair >>> 4) | length - (pair & 0xF);
+            }
+            if (cell < cells.length) {
+                cells[cell] = (byte) ((in.get() & 0xFF) >>> 4);
+                invalid |= length - cells[cell];
+            }
+            return invalid >= 0;
+        }
+        final int mask = (1 << bits) - 1;
+        int buffer = 0;
+        int buffered = 0;
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (buffered < bits) {
+                buffer = buffer << Byte.SIZE | in.get() & 0xFF;
+                buffered += Byte.SIZE;
+            }
+            buffered -= bits;
+            final int digit = buffer >>> buffered & mask;
+            cells[cell] = (byte) digit;
+            invalid |= length - digit;
+        }
+        return invalid >= 0;
+    }
+}
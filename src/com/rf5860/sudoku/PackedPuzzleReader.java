@@ -0,0 +1,164 @@
+package com.rf5860.sudoku;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * <h1>Packed Puzzle Reader</h1>
+ * <p>Reads a file written by {@link PackedPuzzleWriter}.</p>
+ * <p>The file is memory-mapped a window at a time, and each record is decoded straight from the mapped bytes into the
+ * digits of a grid, without any text or intermediate objects. {@link #next(byte[])} decodes into an array the caller
+ * reuses, so a whole file can be read without allocating. Records are a fixed size, so any grid can also be read by
+ * its index.</p>
+ * <p>Readers are not thread-safe, but any number of readers can share a file.</p>
+ */
+public final class PackedPuzzleReader implements Closeable {
+    private static final int WINDOW_SIZE = 1 << 26;
+
+    private final FileChannel channel;
+    private final int length;
+    private final int recordSize;
+    private final long size;
+    private final long windowRecords;
+    private MappedByteBuffer window;
+    private long windowStart = -1;
+    private long index;
+
+    /**
+     * Opens a packed file.
+     *
+     * @param file the file to read
+     * @throws IOException if the file can not be read, is not a packed file, or is truncated
+     */
+    public PackedPuzzleReader(@NotNull final Path file) throws IOException {
+        channel = FileChannel.open(file, READ);
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(PackedFormat.HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException(file + " is not a packed puzzle file");
+                }
+            }
+            header.flip();
+            final byte[] magic = new byte[PackedFormat.MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, PackedFormat.MAGIC)) {
+                throw new IOException(file + " is not a packed puzzle file");
+            }
+            if (header.get() != PackedFormat.VERSION) {
+                throw new IOException(file + " has an unsupported version");
+            }
+            length = header.get() & 0xFF;
+            final int subGridLength = (int) Math.sqrt(length);
+            if (length < 1 || length > Sudoku.MAX_DIGIT || subGridLength * subGridLength != length) {
+                throw new IOException(file + " has an invalid grid length " + length);
+            }
+            recordSize = PackedFormat.recordSize(length);
+            final long data = channel.size() - PackedFormat.HEADER_SIZE;
+            if (data % recordSize != 0) {
+                throw new IOException(file + " is truncated");
+            }
+            size = data / recordSize;
+            windowRecords = Math.max(WINDOW_SIZE / recordSize, 1);
+        } catch (final IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the length of the grids in the file.
+     *
+     * @return the length of the grids
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Get the number of grids in the file.
+     *
+     * @return the number of grids
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Decode the next grid into the given array.
+     *
+     * @param cells the array to decode the digits into, in row-major order, which must hold
+     *              <code>length * length</code> cells
+     * @return <code>true</code> if a grid was read, <code>false</code> at the end of the file
+     * @throws IOException if the grid holds digits outside of its range
+     */
+    public boolean next(@NotNull final byte[] cells) throws IOException {
+        if (index >= size) {
+            return false;
+        }
+        read(index++, cells);
+        return true;
+    }
+
+    /**
+     * Read the next grid.
+     *
+     * @return the next grid, or <code>null</code> at the end of the file
+     * @throws IOException if the grid holds digits outside of its range
+     */
+    @Nullable
+    public Sudoku next() throws IOException {
+        final byte[] cells = new byte[length * length];
+        return next(cells) ? new Sudoku(length, cells) : null;
+    }
+
+    /**
+     * Decode the grid with the given index into the given array. This does not move the position of {@link #next()}.
+     *
+     * @param index the index of the grid, from <code>0</code> to {@link #size()} (exclusive)
+     * @param cells the array to decode the digits into, in row-major order, which must hold
+     *              <code>length * length</code> cells
+     * @throws IOException               if the grid holds digits outside of its range
+     * @throws IndexOutOfBoundsException if there is no grid with the index
+     */
+    public void read(final long index, @NotNull final byte[] cells) throws IOException, IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No grid " + index + " in a file of " + size);
+        }
+        if (cells.length != length * length) {
+            throw new IllegalArgumentException(String.format("Expected %d cells, but was %d", length * length, cells.length));
+        }
+        final long start = index - index % windowRecords;
+        if (start != windowStart) {
+            final long records = Math.min(windowRecords, size - start);
+            window = channel.map(READ_ONLY, PackedFormat.HEADER_SIZE + start * recordSize, records * recordSize);
+            windowStart = start;
+        }
+        window.position((int) ((index - start) * recordSize));
+        if (!PackedFormat.decode(window, length, cells)) {
+            throw new IOException("Grid " + index + " holds digits outside of a " + length + "x" + length + " grid");
+        }
+    }
+
+    /**
+     * Close the file.
+     *
+     * @throws IOException if the file can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,166 @@
+package com.rf5860.sudoku;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h1>Packed Puzzle Writer</h1>
+ * <p>Writes grids of one length to a file in the {@link PackedFormat}.</p>
+ * <p>Records are encoded straight from the digits into a direct buffer, which is written to the file's channel each
+ * time it fills, so writing never allocates per grid.</p>
+ */
+public final class PackedPuzzleWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final int length;
+    private final int recordSize;
+    private final ByteBuffer buffer;
+    private long written;
+
+    /**
+     * Creates a packed file for grids of the given length, replacing it if it already exists.
+     *
+     * @param file   the file to write
+     * @param length the length of every grid in the file
+     * @throws IOException              if the file can not be created
+     * @throws IllegalArgumentException if the length is not a valid grid length
+     */
+    public PackedPuzzleWriter(@NotNull final Path file, final int length) throws IOException, IllegalArgumentException {
+        final int subGridLength = (int) Math.sqrt(length);
+        if (length < 1 || length > Sudoku.MAX_DIGIT || subGridLength * subGridLength != length) {
+            throw new IllegalArgumentException("Invalid grid length " + length);
+        }
+        this.length = length;
+        recordSize = PackedFormat.recordSize(length);
+        buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE / recordSize, 1) * recordSize);
+        channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE);
+        buffer.put(PackedFormat.MAGIC).put(PackedFormat.VERSION).put((byte) length).putShort((short) 0);
+    }
+
+    /**
+     * Write a grid.
+     *
+     * @param sudoku the grid to write
+     * @throws IOException              if the file can not be written
+     * @throws IllegalArgumentException if the grid is the wrong length, or has digits outside of its range
+     */
+    public void write(@NotNull final Sudoku sudoku) throws IOException, IllegalArgumentException {
+        if (sudoku.getLength() != length) {
+            throw new IllegalArgumentException(String.format("Expected a %dx%d grid, but was %dx%d",
+                                                             length, length, sudoku.getLength(), sudoku.getLength()));
+        }
+        write(sudoku.getCells());
+    }
+
+    /**
+     * Write the digits of a grid.
+     *
+     * @param cells the digits of the grid in row-major order
+     * @throws IOException              if the file can not be written
+     * @throws IllegalArgumentException if there are the wrong number of digits, or any are outside of the grid
+     */
+    void write(final byte[] cells) throws IOException, IllegalArgumentException {
+        if (cells.length != length * length) {
+            throw new IllegalArgumentException(String.format("Expected %d cells, but was %d", length * length, cells.length));
+        }
+        if (buffer.remaining() < recordSize) {
+            flush();
+        }
+        PackedFormat.encode(cells, length, buffer);
+        written++;
+    }
+
+    /**
+     * Get the number of grids written.
+     *
+     * @return the number of grids written
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Write any buffered grids, and close the file.
+     *
+     * @throws IOException if the file can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (channel.isOpen()) {
+                flush();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Convert a text file of puzzles, one per line (as read by {@link BatchSolver}), to a packed file. Every puzzle must
+     * be the same length. Digits above 9 are written as letters, from <code>A</code> for 10.
+     *
+     * @param args the input text file, and the output packed file
+     * @throws IOException if either file can not be read or written, or a line is not a valid puzzle
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: PackedPuzzleWriter <input> <output>");
+            System.exit(1);
+        }
+        PackedPuzzleWriter writer = null;
+        try (final BufferedReader reader = Files.newBufferedReader(Paths.get(args[0]), US_ASCII)) {
+            byte[] cells = null;
+            int lineNumber = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (writer == null) {
+                    writer = new PackedPuzzleWriter(Paths.get(args[1]), (int) Math.sqrt(line.length()));
+                    cells = new byte[line.length()];
+                }
+                if (line.length() != cells.length) {
+                    throw new IOException("Line " + lineNumber + " is not the same length as the first puzzle");
+                }
+                for (int i = 0; i < cells.length; i++) {
+                    final char c = line.charAt(i);
+                    cells[i] = (byte) (c == '.' ? 0 : Character.digit(c, Character.MAX_RADIX));
+                }
+                try {
+                    writer.write(cells);
+                } catch (final IllegalArgumentException e) {
+                    throw new IOException("Line " + lineNumber + " is not a valid puzzle: " + e.getMessage(), e);
+                }
+            }
+            System.out.println("Wrote " + (writer == null ? 0 : writer.getWritten()) + " puzzles");
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
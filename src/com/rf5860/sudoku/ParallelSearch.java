@@ -0,0 +1,217 @@
+package com.rf5860.sudoku;
+
+import static java.util.Arrays.copyOf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * <h1>Parallel Search</h1>
+ * <p>Splits the Algorithm X search tree into sub-trees which can be solved by a {@link java.util.concurrent.ForkJoinPool}.</p>
+ * <p>At each of the first few levels of the tree, a column is chosen and each row in it becomes a sub-task.
+ * A task only holds the rows selected on the way down (its prefix), and builds its own copy of the matrix when it runs,
+ * so queued tasks are cheap and workers never share link arrays. Once deep enough, or once the pool has enough
+ * queued work to steal, the remaining sub-tree is searched sequentially.</p>
+ * <p>The results of the sub-trees are either combined in order once they are all done, or, for an ordered search,
+ * written to {@link OrderedResults} as they are found, so they can be consumed in order while the search goes on.</p>
+ *
+ * @param <T> the result of searching a sub-tree
+ */
+final class ParallelSearch<T> extends RecursiveTask<T> {
+    static final int SPLIT_DEPTH = 4;
+    private static final int SURPLUS_TASKS = 3;
+    private static final long serialVersionUID = 1L;
+
+    private final DancingLinks template;
+    private final int maxDepth;
+    private final ColumnSelector selector;
+    private final SolverStats stats;
+    private final int[] prefix;
+    private final int level;
+    private final Leaf<T> leaf;
+    private final BinaryOperator<T> combiner;
+    private final OrderedResults.Segment<Object> segment;
+    private final Emitter<Object> emitter;
+
+    /**
+     * Constructs a task to search the whole matrix.
+     *
+     * @param template the matrix to search, with any fixed rows already selected. This is never modified
+     * @param maxDepth the maximum number of rows in a solution
+     * @param selector the strategy for choosing the column to branch on
+     * @param stats    the stats to add the search of each sub-tree to, or <code>null</code> to not record them
+     * @param leaf     the sequential search of a sub-tree
+     * @param combiner combines the results of two adjacent sub-trees, in order
+     */
+    ParallelSearch(final DancingLinks template, final int maxDepth, final ColumnSelector selector, final SolverStats stats,
+                   final Leaf<T> leaf, final BinaryOperator<T> combiner) {
+        this(template, maxDepth, selector, stats, new int[0], 0, leaf, combiner, null, null);
+    }
+
+    /**
+     * Constructs a task to search the whole matrix, writing the results of each sub-tree to the given ordered
+     * results as they are found.
+     *
+     * @param template the matrix to search, with any fixed rows already selected. This is never modified
+     * @param maxDepth the maximum number of rows in a solution
+     * @param selector the strategy for choosing the column to branch on
+     * @param stats    the stats to add the search of each sub-tree to, or <code>null</code> to not record them
+     * @param results  the results, in the order of the search tree
+     * @param emitter  the sequential search of a sub-tree
+     * @param <E>      the type of the results
+     * @return the task
+     */
+    @SuppressWarnings("unchecked")
+    static <E> ParallelSearch<Void> ordered(final DancingLinks template, final int maxDepth,
+                                            final ColumnSelector selector, final SolverStats stats,
+                                            final OrderedResults<E> results, final Emitter<E> emitter) {
+        return new ParallelSearch<>(template, maxDepth, selector, stats, new int[0], 0, null, null,
+                                    (OrderedResults.Segment<Object>) (OrderedResults.Segment<?>) results.root(),
+                                    (Emitter<Object>) (Emitter<?>) emitter);
+    }
+
+    private ParallelSearch(final DancingLinks template, final int maxDepth, final ColumnSelector selector,
+                           final SolverStats stats, final int[] prefix, final int level, final Leaf<T> leaf,
+                           final BinaryOperator<T> combiner, final OrderedResults.Segment<Object> segment,
+                           final Emitter<Object> emitter) {
+        this.template = template;
+        this.maxDepth = maxDepth;
+        this.selector = selector;
+        this.stats = stats;
+        this.prefix = prefix;
+        this.level = level;
+        this.leaf = leaf;
+        this.combiner = combiner;
+        this.segment = segment;
+        this.emitter = emitter;
+    }
+
+    @Override
+    protected T compute() {
+        if (segment == null) {
+            return search();
+        }
+        if (segment.isCancelled()) {
+            return null;
+        }
+        try {
+            return search();
+        } catch (final RuntimeException | Error e) {
+            segment.fail(e);
+            return null;
+        }
+    }
+
+    private T search() {
+        final DancingLinks links = new DancingLinks(template);
+        selector.prepare(links);
+        for (final int node : prefix) {
+            links.cover(links.column[node]);
+            links.select(node);
+        }
+        if (level >= SPLIT_DEPTH || getSurplusQueuedTaskCount() > SURPLUS_TASKS) {
+            return searchLeaf(prefix, links);
+        }
+        // Forced moves don't branch, so follow them before splitting
+        int[] path = prefix;
+        int header = DancingLinks.ROOT;
+        while (!links.isEmpty()) {
+            header = selector.choose(links);
+            if (links.size[header] != 1) {
+                break;
+            }
+            final int node = links.down[header];
+            links.cover(header);
+            links.select(node);
+            path = append(path, node);
+            header = DancingLinks.ROOT;
+        }
+        if (header == DancingLinks.ROOT || links.size[header] == 0) {
+            return searchLeaf(path, links);
+        }
+        final int count = links.size[header];
+        final OrderedResults.Segment<Object>[] segments = segment == null ? null : segment.split(count);
+        final List<ParallelSearch<T>> subTrees = new ArrayList<>(count);
+        for (int node = links.down[header]; node != header; node = links.down[node]) {
+            subTrees.add(new ParallelSearch<>(template, maxDepth, selector, stats, append(path, node), level + 1, leaf,
+                                              combiner, segments == null ? null : segments[subTrees.size()], emitter));
+        }
+        invokeAll(subTrees);
+        if (segment != null) {
+            return null;
+        }
+        T result = subTrees.get(0).join();
+        for (int i = 1; i < subTrees.size(); i++) {
+            result = combiner.apply(result, subTrees.get(i).join());
+        }
+        return result;
+    }
+
+    /**
+     * Search the rest of the sub-tree below the given path sequentially.
+     */
+    private T searchLeaf(final int[] path, final DancingLinks links) {
+        final AlgorithmX search = new AlgorithmX(links, maxDepth, selector);
+        if (stats == null) {
+            return searchLeaf(path, search);
+        }
+        final SolverStats local = new SolverStats(stats.getLength());
+        search.setStats(local);
+        try {
+            return searchLeaf(path, search);
+        } finally {
+            stats.merge(local, path.length);
+        }
+    }
+
+    private T searchLeaf(final int[] path, final AlgorithmX search) {
+        if (segment == null) {
+            return leaf.search(path, search);
+        }
+        emitter.search(path, search, segment);
+        segment.close();
+        return null;
+    }
+
+    private static int[] append(final int[] nodes, final int node) {
+        final int[] appended = copyOf(nodes, nodes.length + 1);
+        appended[nodes.length] = node;
+        return appended;
+    }
+
+    /**
+     * Searches a sub-tree sequentially.
+     *
+     * @param <T> the result of searching the sub-tree
+     */
+    @FunctionalInterface
+    interface Leaf<T> {
+        /**
+         * Search the sub-tree.
+         *
+         * @param prefix the rows selected above the sub-tree
+         * @param search the search of the sub-tree
+         * @return the result of the search
+         */
+        T search(int[] prefix, AlgorithmX search);
+    }
+
+    /**
+     * Searches a sub-tree sequentially, writing its results in order.
+     *
+     * @param <E> the type of the results
+     */
+    @FunctionalInterface
+    interface Emitter<E> {
+        /**
+         * Search the sub-tree, stopping early if adding a result returns <code>false</code>.
+         *
+         * @param prefix  the rows selected above the sub-tree
+         * @param search  the search of the sub-tree
+         * @param results the results of the sub-tree
+         */
+        void search(int[] prefix, AlgorithmX search, OrderedResults.Segment<E> results);
+    }
+}
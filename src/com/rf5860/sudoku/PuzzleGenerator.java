@@ -0,0 +1,247 @@
+package com.rf5860.sudoku;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h1>Puzzle Generator</h1>
+ * <p>Generates minimal puzzles with a unique solution. Each puzzle is made by:</p>
+ * <ol>
+ * <li>Filling a grid with a randomized search: the rows of each column of the exact cover matrix are shuffled, so the
+ * first solution found is a random full grid</li>
+ * <li>Removing its clues one at a time, in a random order, keeping each clue whose removal would leave the puzzle with
+ * more than one solution</li>
+ * </ol>
+ * <p>Removing a clue only ever adds solutions, so a clue which had to be kept can never be removed later, and a single
+ * pass leaves a minimal puzzle: removing any of its clues gives a second solution. Puzzles with more clues than the
+ * target are thrown away, and another is generated in their place.</p>
+ * <p>Every removal needs its own uniqueness check, which is a search for up to two solutions, bounded by a node limit.
+ * Each worker thread keeps one matrix and its scratch arrays for all of its checks, so checking never allocates.
+ * Puzzle <code>i</code> only depends on the seed and <code>i</code>, so a seed always generates the same puzzles,
+ * whatever the number of threads.</p>
+ */
+public final class PuzzleGenerator {
+    static final long DEFAULT_MAX_NODES = 100_000;
+    private static final int MAX_ATTEMPTS = 10_000;
+    private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+
+    private final int length;
+    private long seed = ThreadLocalRandom.current().nextLong();
+    private int targetClues;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long maxNodes = DEFAULT_MAX_NODES;
+
+    /**
+     * Constructs a generator of puzzles with the given length.
+     *
+     * @param length the length of the puzzles, which must be a perfect square of at most
+     *               {@value ConstraintPropagation#MAX_LENGTH}
+     * @throws IllegalArgumentException if the length is not supported
+     */
+    public PuzzleGenerator(final int length) throws IllegalArgumentException {
+        final int subGridLength = (int) Math.sqrt(length);
+        if (length < 1 || length > ConstraintPropagation.MAX_LENGTH || subGridLength * subGridLength != length) {
+            throw new IllegalArgumentException("Invalid grid length " + length);
+        }
+        this.length = length;
+        targetClues = length * length;
+    }
+
+    /**
+     * Set the seed the puzzles are generated from. Defaults to a random seed.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(final long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Set the most clues a puzzle may have. Minimal puzzles with more clues are thrown away, so a low target takes
+     * longer to reach (for 9x9 puzzles, most minimal puzzles have 22 to 26 clues). Defaults to no limit.
+     *
+     * @param targetClues the maximum number of clues
+     * @throws IllegalArgumentException if the target is negative
+     */
+    public void setTargetClues(final int targetClues) throws IllegalArgumentException {
+        if (targetClues < 0) {
+            throw new IllegalArgumentException("Target clues must not be negative");
+        }
+        this.targetClues = targetClues;
+    }
+
+    /**
+     * Set the number of worker threads. Defaults to one per available processor.
+     *
+     * @param threads the number of worker threads
+     * @throws IllegalArgumentException if the number of threads is less than <code>1</code>
+     */
+    public void setThreads(final int threads) throws IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("There must be at least one thread");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Set the most nodes each uniqueness check may search. A clue is kept if the check runs out of nodes, so a puzzle
+     * is never left with more than one solution. Defaults to {@value DEFAULT_MAX_NODES}.
+     *
+     * @param maxNodes the maximum number of nodes per check
+     * @throws IllegalArgumentException if the limit is less than <code>1</code>
+     */
+    public void setMaxNodes(final long maxNodes) throws IllegalArgumentException {
+        if (maxNodes < 1) {
+            throw new IllegalArgumentException("Maximum nodes must be at least 1");
+        }
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Generate puzzles across the worker threads.
+     *
+     * @param count the number of puzzles to generate
+     * @return the puzzles, in the order of their index
+     * @throws IllegalArgumentException if the count is negative
+     * @throws IllegalStateException    if a puzzle with at most the target number of clues could not be found
+     */
+    @NotNull
+    public List<Sudoku> generate(final int count) throws IllegalArgumentException, IllegalStateException {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative");
+        }
+        final Sudoku[] puzzles = new Sudoku[count];
+        final AtomicInteger next = new AtomicInteger();
+        final int workers = Math.min(threads, Math.max(count, 1));
+        final ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            final List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> {
+                    final Worker worker = new Worker();
+                    for (int index = next.getAndIncrement(); index < count; index = next.getAndIncrement()) {
+                        puzzles[index] = worker.generate(index);
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating puzzles", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return Arrays.asList(puzzles);
+    }
+
+    /**
+     * Generate one puzzle on the current thread.
+     *
+     * @param index the index of the puzzle, which with the seed decides the puzzle
+     * @return the puzzle
+     * @throws IllegalStateException if a puzzle with at most the target number of clues could not be found
+     */
+    @NotNull
+    public Sudoku generateAt(final long index) throws IllegalStateException {
+        return new Worker().generate(index);
+    }
+
+    /**
+     * The scratch state of one worker thread, reused for every puzzle it generates.
+     */
+    private final class Worker {
+        private final SudokuMatrix matrix = SudokuMatrix.create(length);
+        private final SearchBudget budget = new SearchBudget(SolveOptions.NONE.withMaxNodes(maxNodes));
+        private final Random random = new Random();
+        private final byte[] empty = new byte[length * length];
+        private final byte[] puzzle = new byte[length * length];
+        private final byte[] scratch = new byte[length * length];
+        private final int[] order = new int[length * length];
+
+        private Sudoku generate(final long index) {
+            random.setSeed(seed + index * SEED_STEP);
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                fill();
+                if (reduce() <= targetClues) {
+                    return new Sudoku(length, puzzle.clone());
+                }
+            }
+            throw new IllegalStateException(String.format("No puzzle with at most %d clues was found in %d attempts",
+                                                          targetClues, MAX_ATTEMPTS));
+        }
+
+        /**
+         * Fill the puzzle with a random full grid.
+         */
+        private void fill() {
+            matrix.restore();
+            matrix.links.shuffleRows(random);
+            Arrays.fill(empty, (byte) 0);
+            if (!matrix.load(empty, ColumnSelector.MINIMUM_SIZE) || !matrix.search().next()) {
+                throw new IllegalStateException("An empty grid has no solutions");
+            }
+            System.arraycopy(empty, 0, puzzle, 0, puzzle.length);
+            SudokuMatrix.fill(puzzle, length, matrix.search());
+            matrix.restore();
+        }
+
+        /**
+         * Remove every clue which can be removed, in a random order.
+         *
+         * @return the number of clues left
+         */
+        private int reduce() {
+            for (int cell = 0; cell < order.length; cell++) {
+                final int swap = random.nextInt(cell + 1);
+                order[cell] = order[swap];
+                order[swap] = cell;
+            }
+            int clues = puzzle.length;
+            for (final int cell : order) {
+                final byte digit = puzzle[cell];
+                puzzle[cell] = 0;
+                if (isUnique()) {
+                    clues--;
+                } else {
+                    puzzle[cell] = digit;
+                }
+            }
+            return clues;
+        }
+
+        /**
+         * Check if the puzzle has exactly one solution, within the node limit.
+         */
+        private boolean isUnique() {
+            System.arraycopy(puzzle, 0, scratch, 0, scratch.length);
+            try {
+                if (!matrix.load(scratch, ColumnSelector.MINIMUM_SIZE)) {
+                    return false;
+                }
+                final AlgorithmX search = matrix.search();
+                budget.restart();
+                search.setBudget(budget);
+                return search.next() && !search.next() && !search.isStopped();
+            } finally {
+                matrix.restore();
+            }
+        }
+    }
+}
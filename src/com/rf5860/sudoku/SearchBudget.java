@@ -0,0 +1,90 @@
+package com.rf5860.sudoku;
+
+/**
+ * <h1>Search Budget</h1>
+ * <p>The limits of one solve from its {@link SolveOptions}, spent as the search selects rows.</p>
+ * <p>The node limit is checked on every node, as it only costs a decrement. The deadline and the cancellation token
+ * are only checked every {@value CHECK_INTERVAL} nodes, so the clock and the token's volatile field stay out of the
+ * search's inner loop.</p>
+ */
+final class SearchBudget {
+    static final int CHECK_INTERVAL = 256;
+
+    private final long timeoutNanos;
+    private final long maxNodes;
+    private final boolean hasDeadline;
+    private final CancellationToken cancellation;
+    private long deadline;
+    private long nodesLeft;
+    private int countdown;
+    private SolveResult.Status reason;
+
+    /**
+     * Constructs the budget of a solve which starts now.
+     *
+     * @param options the limits of the solve
+     */
+    SearchBudget(final SolveOptions options) {
+        timeoutNanos = options.getTimeoutNanos();
+        maxNodes = options.getMaxNodes();
+        hasDeadline = timeoutNanos != Long.MAX_VALUE;
+        cancellation = options.getCancellation();
+        restart();
+    }
+
+    /**
+     * Refill the budget for another solve which starts now, so one budget can be reused for many solves.
+     */
+    void restart() {
+        deadline = hasDeadline ? System.nanoTime() + timeoutNanos : 0;
+        nodesLeft = maxNodes;
+        countdown = CHECK_INTERVAL;
+        reason = null;
+    }
+
+    /**
+     * Spend a node of the budget, before the search selects a row.
+     *
+     * @return <code>true</code> if the search may select the row, <code>false</code> if it must stop
+     */
+    boolean spend() {
+        if (nodesLeft-- <= 0) {
+            return stop(SolveResult.Status.NODE_LIMIT_REACHED);
+        }
+        if (--countdown > 0) {
+            return true;
+        }
+        countdown = CHECK_INTERVAL;
+        return check();
+    }
+
+    /**
+     * Check the deadline and the cancellation token, regardless of how many nodes have been spent since the last
+     * check.
+     *
+     * @return <code>true</code> if the search may continue, <code>false</code> if it must stop
+     */
+    boolean check() {
+        if (cancellation != null && cancellation.isCancelled()) {
+            return stop(SolveResult.Status.CANCELLED);
+        }
+        if (hasDeadline && System.nanoTime() - deadline >= 0) {
+            return stop(SolveResult.Status.TIMED_OUT);
+        }
+        return true;
+    }
+
+    private boolean stop(final SolveResult.Status reason) {
+        this.reason = reason;
+        return false;
+    }
+
+    /**
+     * Get the reason the search was stopped.
+     *
+     * @return the reason, or <code>null</code> if the budget has not run out
+     */
+    SolveResult.Status getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,178 @@
+package com.rf5860.sudoku;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h1>Shared Solver</h1>
+ * <p>A solver which holds no state about any one puzzle, so a single instance can be shared by every thread of a
+ * service, and each puzzle is passed to the call which solves it.</p>
+ * <p>Unlike {@link SudokuSolver}, nothing is built or copied per puzzle beyond the solution itself. The digits of the
+ * puzzle are copied into a scratch array kept for the calling thread, which the search fills in place, and the
+ * matrices the search runs on are pooled for the calling thread by the {@link SolverEngine}. Both are reused by every
+ * later call on the same thread, whatever instance it is made through.</p>
+ * <p>Instances are immutable: {@link #withEngine(SolverEngine)} and {@link #withColumnSelector(ColumnSelector)} return
+ * new instances. The puzzles passed in are only read, so they must not be changed while they are being solved.</p>
+ */
+public final class SharedSolver {
+    private static final ThreadLocal<byte[][]> SCRATCH = ThreadLocal.withInitial(() -> new byte[0][]);
+
+    private final SolverEngine engine;
+    private final ColumnSelector columnSelector;
+
+    /**
+     * Constructs a solver which picks the engine and column selector for the length of each grid, with
+     * {@link SolverEngine#forLength(int)} and {@link ColumnSelector#forLength(int)}.
+     */
+    public SharedSolver() {
+        this(null, null);
+    }
+
+    private SharedSolver(final SolverEngine engine, final ColumnSelector columnSelector) {
+        this.engine = engine;
+        this.columnSelector = columnSelector;
+    }
+
+    /**
+     * Get a copy of this solver, which finds and counts solutions with the given engine for grids of every length.
+     *
+     * @param engine the solver engine
+     * @return a new solver with the given engine
+     * @throws IllegalArgumentException if this solver has a column selector which the engine does not support
+     */
+    @NotNull
+    @Contract(pure = true)
+    public SharedSolver withEngine(@NotNull final SolverEngine engine) throws IllegalArgumentException {
+        if (columnSelector != null) {
+            SudokuSolver.requireSupported(engine, columnSelector);
+        }
+        return new SharedSolver(engine, columnSelector);
+    }
+
+    /**
+     * Get a copy of this solver, whose search chooses columns with the given selector for grids of every length. If
+     * this solver has no engine, each grid is solved with {@link SolverEngine#forLength(int, ColumnSelector)}, which
+     * falls back to {@link SolverEngine#DANCING_LINKS} when the default engine does not support the selector.
+     *
+     * @param columnSelector the column selector
+     * @return a new solver with the given column selector
+     * @throws IllegalArgumentException if this solver has an engine which does not support the selector
+     */
+    @NotNull
+    @Contract(pure = true)
+    public SharedSolver withColumnSelector(@NotNull final ColumnSelector columnSelector) throws IllegalArgumentException {
+        if (engine != null) {
+            SudokuSolver.requireSupported(engine, columnSelector);
+        }
+        return new SharedSolver(engine, columnSelector);
+    }
+
+    /**
+     * Find the first solution for a puzzle.
+     *
+     * @param puzzle the puzzle to solve, which is not changed
+     * @return the solution, or nothing if the puzzle has no solutions
+     * @throws IllegalArgumentException if any digit is outside the range of the grid
+     */
+    @NotNull
+    public Optional<Sudoku> solve(@NotNull final Sudoku puzzle) throws IllegalArgumentException {
+        final byte[] cells = scratch(puzzle);
+        if (search(puzzle, cells, null, null, 1) != 1) {
+            return Optional.empty();
+        }
+        return Optional.of(toSudoku(puzzle, cells));
+    }
+
+    /**
+     * <p>Find the first solution for a puzzle within the given limits.</p>
+     * <p>If a limit is reached first, the search is stopped and the result says which. Its stats cover the search up to
+     * that point.</p>
+     *
+     * @param puzzle  the puzzle to solve, which is not changed
+     * @param options the limits of the solve
+     * @return the status of the solve, with the solution if one was found
+     * @throws IllegalArgumentException if any digit is outside the range of the grid
+     */
+    @NotNull
+    public SolveResult solve(@NotNull final Sudoku puzzle, @NotNull final SolveOptions options)
+        throws IllegalArgumentException {
+        final byte[] cells = scratch(puzzle);
+        final SolverStats stats = new SolverStats(puzzle.getLength());
+        final SearchBudget budget = options.isLimited() ? new SearchBudget(options) : null;
+        final int count;
+        try {
+            count = search(puzzle, cells, stats, budget, 1);
+        } finally {
+            stats.searchFinished();
+        }
+        if (count == 1) {
+            return new SolveResult(SolveResult.Status.SOLVED, toSudoku(puzzle, cells), stats);
+        }
+        final SolveResult.Status reason = budget == null ? null : budget.getReason();
+        return new SolveResult(reason != null ? reason : SolveResult.Status.NO_SOLUTION, null, stats);
+    }
+
+    /**
+     * Count the solutions for a puzzle, stopping once the limit is reached.
+     *
+     * @param puzzle the puzzle to count the solutions of, which is not changed
+     * @param limit  the maximum number of solutions to count
+     * @return the number of solutions, or <code>limit</code> if there are at least that many
+     * @throws IllegalArgumentException if the limit is negative, or any digit is outside the range of the grid
+     */
+    public int countSolutions(@NotNull final Sudoku puzzle, final int limit) throws IllegalArgumentException {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        if (limit == 0) {
+            return 0;
+        }
+        return search(puzzle, scratch(puzzle), null, null, limit);
+    }
+
+    /**
+     * Check if a puzzle has exactly one solution. The search stops as soon as a second solution is found.
+     *
+     * @param puzzle the puzzle to check, which is not changed
+     * @return <code>true</code> if the puzzle has a unique solution, <code>false</code> otherwise
+     * @throws IllegalArgumentException if any digit is outside the range of the grid
+     */
+    public boolean hasUniqueSolution(@NotNull final Sudoku puzzle) throws IllegalArgumentException {
+        return countSolutions(puzzle, 2) == 1;
+    }
+
+    private int search(final Sudoku puzzle, final byte[] cells, final SolverStats stats, final SearchBudget budget,
+                       final int limit) {
+        final int length = puzzle.getLength();
+        final ColumnSelector selector = columnSelector != null ? columnSelector : ColumnSelector.forLength(length);
+        final SolverEngine searchEngine = engine != null ? engine : SolverEngine.forLength(length, selector);
+        return searchEngine.search(cells, length, selector, stats, budget, limit);
+    }
+
+    /**
+     * Copy the digits of a puzzle into the scratch array of the current thread for its length.
+     */
+    private static byte[] scratch(final Sudoku puzzle) {
+        final int length = puzzle.getLength();
+        byte[][] scratch = SCRATCH.get();
+        if (length >= scratch.length) {
+            scratch = Arrays.copyOf(scratch, length + 1);
+            SCRATCH.set(scratch);
+        }
+        if (scratch[length] == null) {
+            scratch[length] = new byte[length * length];
+        }
+        puzzle.copyCells(scratch[length]);
+        return scratch[length];
+    }
+
+    /**
+     * Build the solution from the filled scratch array, which stays with the thread.
+     */
+    private static Sudoku toSudoku(final Sudoku puzzle, final byte[] cells) {
+        return new Sudoku(puzzle.getLength(), cells.clone());
+    }
+}
@@ -0,0 +1,150 @@
+package com.rf5860.sudoku;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h1>Solution Cache</h1>
+ * <p>A bounded, least-recently-used cache of solved puzzles, keyed by their {@link CanonicalForm}.</p>
+ * <p>Puzzles which are the same up to a symmetry of Sudoku share one entry: the cache holds the solution of the
+ * canonical puzzle, and a hit maps it back through the puzzle's transform without searching. Puzzles with no solution
+ * are cached too. Each entry only holds the digits of the canonical puzzle and its solution (two bytes per cell).</p>
+ * <p>Grids too large to canonicalize (see {@link CanonicalForm#supports(int)}) are solved directly, and not cached.</p>
+ * <p>The cache is thread-safe. Puzzles are solved outside of its lock, so a puzzle requested by two threads at once
+ * may be solved twice.</p>
+ */
+public final class SolutionCache {
+    private static final byte[] NO_SOLUTION = new byte[0];
+
+    private final Map<Key, byte[]> solutions;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param maxEntries the maximum number of puzzles to cache
+     * @throws IllegalArgumentException if the maximum is less than <code>1</code>
+     */
+    public SolutionCache(final int maxEntries) throws IllegalArgumentException {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache must hold at least one entry");
+        }
+        solutions = new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, byte[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Find a solution for the puzzle, from the cache if an equivalent puzzle has already been solved.
+     *
+     * @param puzzle the puzzle to solve
+     * @return a solution for the puzzle, or nothing if it has no solutions
+     * @throws IllegalArgumentException if the puzzle has digits outside of its range
+     */
+    @NotNull
+    public Optional<Sudoku> solve(@NotNull final Sudoku puzzle) throws IllegalArgumentException {
+        final int length = puzzle.getLength();
+        if (!CanonicalForm.supports(length)) {
+            return solveDirectly(puzzle);
+        }
+        final CanonicalForm canonical = CanonicalForm.of(puzzle);
+        final Key key = new Key(canonical.getSudoku().getCells());
+        byte[] solution;
+        synchronized (solutions) {
+            solution = solutions.get(key);
+            if (solution != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if (solution == null) {
+            solution = solveDirectly(new Sudoku(length, key.cells.clone())).map(Sudoku::getCells).orElse(NO_SOLUTION);
+            synchronized (solutions) {
+                solutions.put(key, solution);
+            }
+        }
+        if (solution == NO_SOLUTION) {
+            return Optional.empty();
+        }
+        return Optional.of(canonical.getTransform().revert(new Sudoku(length, solution.clone())));
+    }
+
+    private static Optional<Sudoku> solveDirectly(final Sudoku puzzle) {
+        final SudokuSolver solver = new SudokuSolver(puzzle);
+        return solver.solve() ? Optional.of(solver.getPossibleSolution()) : Optional.empty();
+    }
+
+    /**
+     * Get the number of puzzles in the cache.
+     *
+     * @return the number of cached puzzles
+     */
+    public int size() {
+        synchronized (solutions) {
+            return solutions.size();
+        }
+    }
+
+    /**
+     * Get the number of requests which were answered from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        synchronized (solutions) {
+            return hits;
+        }
+    }
+
+    /**
+     * Get the number of requests which had to be solved, excluding grids too large to cache.
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        synchronized (solutions) {
+            return misses;
+        }
+    }
+
+    /**
+     * Remove every puzzle from the cache.
+     */
+    public void clear() {
+        synchronized (solutions) {
+            solutions.clear();
+        }
+    }
+
+    /**
+     * The digits of a canonical puzzle.
+     */
+    private static final class Key {
+        private final byte[] cells;
+        private final int hash;
+
+        private Key(final byte[] cells) {
+            this.cells = cells;
+            hash = Arrays.hashCode(cells);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Key && Arrays.equals(cells, ((Key) o).cells);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.rf5860.sudoku;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h1>Solution Enumerator</h1>
+ * <p>A long-running enumeration of the solutions of a puzzle, which can be suspended, saved to disk and resumed later,
+ * even by another process.</p>
+ * <p>Each call to {@link #next(SolveOptions)} searches until the next solution, or until one of its limits is reached.
+ * Either way, the enumeration can carry on from the same place with another call, or a {@link Checkpoint} of it can
+ * be taken. A checkpoint only holds the puzzle and the stack of rows chosen by the search (one entry per level, so at
+ * most one per cell), so it stays small however long the enumeration has run. Resuming reloads the puzzle and replays
+ * the stack, which takes about as long as a single solve.</p>
+ * <p>Enumerators are not thread-safe.</p>
+ */
+public final class SolutionEnumerator {
+    private final int length;
+    private final byte[] puzzle;
+    private final ColumnSelector selector;
+    private final byte[] cells;
+    private final AlgorithmX search;
+    private final boolean loaded;
+    private long solutions;
+
+    /**
+     * Constructs an enumeration of the solutions of a puzzle, starting from the first.
+     *
+     * @param puzzle the puzzle to enumerate the solutions of
+     * @throws IllegalArgumentException if the puzzle has digits outside of its range
+     */
+    public SolutionEnumerator(@NotNull final Sudoku puzzle) throws IllegalArgumentException {
+        this(puzzle, ColumnSelector.forLength(puzzle.getLength()));
+    }
+
+    /**
+     * Constructs an enumeration of the solutions of a puzzle, starting from the first.
+     *
+     * @param puzzle   the puzzle to enumerate the solutions of
+     * @param selector the strategy for choosing the column to branch on
+     * @throws IllegalArgumentException if the puzzle has digits outside of its range
+     */
+    public SolutionEnumerator(@NotNull final Sudoku puzzle, @NotNull final ColumnSelector selector)
+        throws IllegalArgumentException {
+        this(puzzle.getLength(), puzzle.getCells(), selector, null, 0);
+    }
+
+    private SolutionEnumerator(final int length, final byte[] puzzle, final ColumnSelector selector,
+                               final AlgorithmX.Position position, final long solutions) throws IllegalArgumentException {
+        this.length = length;
+        this.puzzle = puzzle;
+        this.selector = selector;
+        this.solutions = solutions;
+        cells = puzzle.clone();
+        final SudokuMatrix matrix = SudokuMatrix.create(length);
+        loaded = matrix.load(cells, selector);
+        search = matrix.search();
+        if (loaded && position != null) {
+            search.moveTo(position);
+        }
+    }
+
+    /**
+     * Resume an enumeration from a checkpoint. The enumeration carries on from the solution after the last one found
+     * before the checkpoint was taken.
+     *
+     * @param checkpoint the checkpoint to resume from
+     * @return the resumed enumeration
+     * @throws IllegalArgumentException if the checkpoint's search does not fit its puzzle
+     */
+    @NotNull
+    public static SolutionEnumerator resume(@NotNull final Checkpoint checkpoint) throws IllegalArgumentException {
+        return new SolutionEnumerator(checkpoint.length, checkpoint.puzzle.clone(), checkpoint.selector,
+                                      checkpoint.position, checkpoint.solutions);
+    }
+
+    /**
+     * Find the next solution, searching for as long as it takes.
+     *
+     * @return the next solution, or nothing if there are no more
+     */
+    @NotNull
+    public Optional<Sudoku> next() {
+        return next(SolveOptions.NONE).getSolution();
+    }
+
+    /**
+     * Find the next solution, within the given limits. If a limit is reached first, the search is suspended, and the
+     * next call (or a checkpoint) carries on from where it stopped.
+     *
+     * @param options the limits of this part of the search
+     * @return {@link SolveResult.Status#SOLVED} with the next solution, {@link SolveResult.Status#NO_SOLUTION} once
+     * there are no more solutions, or the limit which suspended the search
+     */
+    @NotNull
+    public SolveResult next(@NotNull final SolveOptions options) {
+        final SolverStats stats = new SolverStats(length);
+        if (!loaded) {
+            return new SolveResult(SolveResult.Status.NO_SOLUTION, null, stats);
+        }
+        final SearchBudget budget = options.isLimited() ? new SearchBudget(options) : null;
+        if (budget != null && !budget.check()) {
+            return new SolveResult(budget.getReason(), null, stats);
+        }
+        stats.matrixLoaded(0);
+        search.setStats(stats);
+        search.setBudget(budget);
+        try {
+            if (!search.next()) {
+                return new SolveResult(search.isStopped() ? budget.getReason() : SolveResult.Status.NO_SOLUTION, null, stats);
+            }
+        } finally {
+            search.setStats(null);
+            search.setBudget(null);
+            stats.searchFinished();
+        }
+        solutions++;
+        final byte[] solution = cells.clone();
+        SudokuMatrix.fill(solution, length, search);
+        return new SolveResult(SolveResult.Status.SOLVED, new Sudoku(length, solution), stats);
+    }
+
+    /**
+     * Get the number of solutions found so far, including those found before the enumeration was resumed.
+     *
+     * @return the number of solutions found
+     */
+    public long getSolutionsFound() {
+        return solutions;
+    }
+
+    /**
+     * Check if every solution has been found.
+     *
+     * @return <code>true</code> if there are no more solutions, <code>false</code> otherwise
+     */
+    public boolean isExhausted() {
+        return !loaded || search.isExhausted();
+    }
+
+    /**
+     * Take a checkpoint of the enumeration, which {@link #resume(Checkpoint)} carries on from.
+     *
+     * @return a checkpoint of the enumeration as it is now
+     */
+    @NotNull
+    public Checkpoint checkpoint() {
+        return new Checkpoint(length, puzzle.clone(), selector, search.position(), solutions);
+    }
+
+    /**
+     * <h1>Checkpoint</h1>
+     * <p>The saved state of a {@link SolutionEnumerator}: the puzzle, the column selector, the stack of the search and
+     * the number of solutions found. Checkpoints are serializable, and can be written to and read from files.</p>
+     */
+    public static final class Checkpoint implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int length;
+        private final byte[] puzzle;
+        private final ColumnSelector selector;
+        private final AlgorithmX.Position position;
+        private final long solutions;
+
+        private Checkpoint(final int length, final byte[] puzzle, final ColumnSelector selector,
+                           final AlgorithmX.Position position, final long solutions) {
+            this.length = length;
+            this.puzzle = puzzle;
+            this.selector = selector;
+            this.position = position;
+            this.solutions = solutions;
+        }
+
+        /**
+         * Get the number of solutions found before the checkpoint was taken.
+         *
+         * @return the number of solutions found
+         */
+        public long getSolutionsFound() {
+            return solutions;
+        }
+
+        /**
+         * Write the checkpoint to a file. The file is replaced atomically, so an interrupted write leaves any earlier
+         * checkpoint in place.
+         *
+         * @param file the file to write to
+         * @throws IOException if the file can not be written
+         */
+        public void write(@NotNull final Path file) throws IOException {
+            final Path directory = file.toAbsolutePath().getParent();
+            final Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (final OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary));
+                     final ObjectOutputStream objects = new ObjectOutputStream(out)) {
+                    objects.writeObject(this);
+                }
+                Files.move(temporary, file, ATOMIC_MOVE, REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        /**
+         * Read a checkpoint from a file written by {@link #write(Path)}.
+         *
+         * @param file the file to read
+         * @return the checkpoint
+         * @throws IOException if the file can not be read, or does not hold a checkpoint
+         */
+        @NotNull
+        public static Checkpoint read(@NotNull final Path file) throws IOException {
+            try (final InputStream in = new BufferedInputStream(Files.newInputStream(file));
+                 final ObjectInputStream objects = new CheckpointInputStream(in)) {
+                return (Checkpoint) objects.readObject();
+            } catch (final ClassNotFoundException | ClassCastException e) {
+                throw new InvalidObjectException("Not a checkpoint: " + e.getMessage());
+            }
+        }
+
+        private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            if (length < 1 || length > Sudoku.MAX_DIGIT || puzzle == null || puzzle.length != length * length
+                || selector == null || position == null || solutions < 0) {
+                throw new InvalidObjectException("Invalid checkpoint");
+            }
+        }
+    }
+
+    /**
+     * Reads checkpoints, refusing any class a checkpoint does not contain.
+     */
+    private static final class CheckpointInputStream extends ObjectInputStream {
+        private CheckpointInputStream(final InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(final ObjectStreamClass description) throws IOException, ClassNotFoundException {
+            final Class<?> type = super.resolveClass(description);
+            if (type == Checkpoint.class || type == AlgorithmX.Position.class || type == Enum.class
+                || ColumnSelector.class.isAssignableFrom(type) || type.isArray() && type.getComponentType().isPrimitive()) {
+                return type;
+            }
+            throw new InvalidClassException(description.getName(), "Not part of a checkpoint");
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.rf5860.sudoku;
+
+import java.time.Duration;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * <h1>Solve Options</h1>
+ * <p>Limits on a single solve (see {@link SudokuSolver#solve(SolveOptions)}), which stop the search early rather than
+ * letting a pathological puzzle hold a thread indefinitely:</p>
+ * <ul>
+ * <li><strong>Timeout</strong> - the wall-clock time the solve may take, from when it starts</li>
+ * <li><strong>Maximum nodes</strong> - the number of rows the search may select</li>
+ * <li><strong>Cancellation</strong> - a {@link CancellationToken} which can stop the solve from another thread</li>
+ * </ul>
+ * <p>Options are immutable, and each <code>with</code> method returns a copy, starting from {@link #NONE}.</p>
+ */
+public final class SolveOptions {
+    /**
+     * No limits: the solve runs until it finds a solution or exhausts the search.
+     */
+    public static final SolveOptions NONE = new SolveOptions(Long.MAX_VALUE, Long.MAX_VALUE, null);
+
+    private final long timeoutNanos;
+    private final long maxNodes;
+    private final CancellationToken cancellation;
+
+    private SolveOptions(final long timeoutNanos, final long maxNodes, final CancellationToken cancellation) {
+        this.timeoutNanos = timeoutNanos;
+        this.maxNodes = maxNodes;
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Limit the wall-clock time of the solve. The deadline is checked every few hundred search nodes, so the solve may
+     * overrun it slightly.
+     *
+     * @param timeout the time the solve may take
+     * @return a copy of the options, with the timeout
+     * @throws IllegalArgumentException if the timeout is negative
+     */
+    @NotNull
+    @Contract(pure = true)
+    public SolveOptions withTimeout(@NotNull final Duration timeout) throws IllegalArgumentException {
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("Timeout must not be negative");
+        }
+        long nanos;
+        try {
+            nanos = timeout.toNanos();
+        } catch (final ArithmeticException e) {
+            nanos = Long.MAX_VALUE;
+        }
+        return new SolveOptions(nanos, maxNodes, cancellation);
+    }
+
+    /**
+     * Limit the number of search nodes, I.e. the rows selected by the search (see {@link SolverStats#getNodes()}).
+     *
+     * @param maxNodes the maximum number of nodes
+     * @return a copy of the options, with the node limit
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    @NotNull
+    @Contract(pure = true)
+    public SolveOptions withMaxNodes(final long maxNodes) throws IllegalArgumentException {
+        if (maxNodes < 0) {
+            throw new IllegalArgumentException("Maximum nodes must not be negative");
+        }
+        return new SolveOptions(timeoutNanos, maxNodes, cancellation);
+    }
+
+    /**
+     * Stop the solve when the token is cancelled.
+     *
+     * @param cancellation the token to check
+     * @return a copy of the options, with the token
+     */
+    @NotNull
+    @Contract(pure = true)
+    public SolveOptions withCancellation(@NotNull final CancellationToken cancellation) {
+        return new SolveOptions(timeoutNanos, maxNodes, cancellation);
+    }
+
+    /**
+     * Get the wall-clock time the solve may take.
+     *
+     * @return the timeout in nanoseconds, or {@link Long#MAX_VALUE} if there is none
+     */
+    public long getTimeoutNanos() {
+        return timeoutNanos;
+    }
+
+    /**
+     * Get the number of rows the search may select.
+     *
+     * @return the maximum number of nodes, or {@link Long#MAX_VALUE} if there is no limit
+     */
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Get the token which cancels the solve.
+     *
+     * @return the cancellation token, or <code>null</code> if there is none
+     */
+    @Nullable
+    public CancellationToken getCancellation() {
+        return cancellation;
+    }
+
+    /**
+     * Check if the options limit the solve at all.
+     *
+     * @return <code>false</code> if the options are equivalent to {@link #NONE}, <code>true</code> otherwise
+     */
+    public boolean isLimited() {
+        return timeoutNanos != Long.MAX_VALUE || maxNodes != Long.MAX_VALUE || cancellation != null;
+    }
+}
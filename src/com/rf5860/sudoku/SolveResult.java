@@ -0,0 +1,110 @@
+package com.rf5860.sudoku;
+
+import java.util.Optional;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h1>Solve Result</h1>
+ * <p>The outcome of a solve with {@link SolveOptions}: whether it found a solution, proved there was none, or was
+ * stopped early by one of its limits, along with the stats gathered up to that point.</p>
+ */
+public final class SolveResult {
+    private final Status status;
+    private final Sudoku solution;
+    private final SolverStats stats;
+
+    SolveResult(final Status status, final Sudoku solution, final SolverStats stats) {
+        this.status = status;
+        this.solution = solution;
+        this.stats = stats;
+    }
+
+    /**
+     * Get how the solve finished.
+     *
+     * @return the status of the solve
+     */
+    @NotNull
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Get the solution which was found.
+     *
+     * @return the solution if the status is {@link Status#SOLVED}, or nothing otherwise
+     */
+    @NotNull
+    public Optional<Sudoku> getSolution() {
+        return Optional.ofNullable(solution).map(Sudoku::clone);
+    }
+
+    /**
+     * Get the stats of the solve, up to the point it finished or was stopped.
+     *
+     * @return the stats of the solve
+     */
+    @NotNull
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Check if the solve was stopped by one of its limits, before finding a solution or exhausting the search.
+     *
+     * @return <code>true</code> if the solve was stopped early, <code>false</code> otherwise
+     */
+    public boolean isAborted() {
+        return status.isAborted();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return status + " (" + stats + ")";
+    }
+
+    /**
+     * How a solve finished.
+     */
+    public enum Status {
+        /**
+         * A solution was found.
+         */
+        SOLVED(false),
+        /**
+         * The search was exhausted, so the puzzle has no solutions.
+         */
+        NO_SOLUTION(false),
+        /**
+         * The solve ran past its timeout.
+         */
+        TIMED_OUT(true),
+        /**
+         * The search selected its maximum number of nodes.
+         */
+        NODE_LIMIT_REACHED(true),
+        /**
+         * The solve's cancellation token was cancelled.
+         */
+        CANCELLED(true);
+
+        private final boolean aborted;
+
+        Status(final boolean aborted) {
+            this.aborted = aborted;
+        }
+
+        /**
+         * Check if a solve with this status was stopped early, so its puzzle may or may not have solutions.
+         *
+         * @return <code>true</code> if the solve was stopped by one of its limits, <code>false</code> otherwise
+         */
+        public boolean isAborted() {
+            return aborted;
+        }
+    }
+}
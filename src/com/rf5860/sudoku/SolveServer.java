@@ -0,0 +1,273 @@
+package com.rf5860.sudoku;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h1>Solve Server</h1>
+ * <p>A small HTTP server which solves puzzles for other processes, built on the JDK's own
+ * <code>com.sun.net.httpserver</code>.</p>
+ * <ul>
+ * <li><code>POST /solve</code> solves the puzzles in the request body, one per line, in the line format of
+ * {@link BatchSolver}. A single puzzle is a batch of one. Each line of the response is the solution of the matching
+ * line, or the line unchanged if it can not be solved (so blank lines stay blank), and the <code>X-Puzzles</code>,
+ * <code>X-Solved</code> and <code>X-Limited</code> headers hold the counts.</li>
+ * <li><code>GET /stats</code> returns the request counts and latency percentiles as JSON.</li>
+ * </ul>
+ * <p>Requests are read by a few I/O threads, and solved by a fixed pool of worker threads with a bounded queue. When
+ * the queue is full, a request is turned away with <code>503 Service Unavailable</code> at once, rather than queued
+ * without limit. The workers solve with their own pooled matrices, so a request only allocates its body and its
+ * response.</p>
+ * <p>Each puzzle is solved within the limits of a {@link SolveOptions}, so one hard puzzle can not hold a worker for
+ * long. Puzzles which run out of budget are answered unchanged, and counted as limited.</p>
+ */
+public final class SolveServer implements Closeable {
+    static final int MAX_BODY_SIZE = 8 << 20;
+    /**
+     * The default limits of each puzzle.
+     */
+    public static final SolveOptions DEFAULT_PUZZLE_OPTIONS = SolveOptions.NONE.withTimeout(Duration.ofSeconds(1));
+    private static final int IO_THREADS = 2;
+
+    private final HttpServer server;
+    private final ExecutorService io;
+    private final ThreadPoolExecutor workers;
+    private final SolveOptions puzzleOptions;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong puzzles = new AtomicLong();
+    private final AtomicLong solved = new AtomicLong();
+    private final AtomicLong limited = new AtomicLong();
+
+    /**
+     * Constructs and starts a server, which solves each puzzle within {@link #DEFAULT_PUZZLE_OPTIONS}.
+     *
+     * @param address       the address to listen on. Port <code>0</code> picks a free port
+     * @param threads       the number of worker threads to solve with
+     * @param queueCapacity the number of requests which may wait for a worker before more are rejected
+     * @throws IOException              if the server can not listen on the address
+     * @throws IllegalArgumentException if the number of threads is less than <code>1</code>, or the queue capacity is
+     *                                  negative
+     */
+    public SolveServer(@NotNull final InetSocketAddress address, final int threads, final int queueCapacity)
+        throws IOException, IllegalArgumentException {
+        this(address, threads, queueCapacity, DEFAULT_PUZZLE_OPTIONS);
+    }
+
+    /**
+     * Constructs and starts a server.
+     *
+     * @param address       the address to listen on. Port <code>0</code> picks a free port
+     * @param threads       the number of worker threads to solve with
+     * @param queueCapacity the number of requests which may wait for a worker before more are rejected
+     * @param puzzleOptions the limits of each puzzle. The deadline starts when the worker starts on the puzzle
+     * @throws IOException              if the server can not listen on the address
+     * @throws IllegalArgumentException if the number of threads is less than <code>1</code>, or the queue capacity is
+     *                                  negative
+     */
+    public SolveServer(@NotNull final InetSocketAddress address, final int threads, final int queueCapacity,
+                       @NotNull final SolveOptions puzzleOptions) throws IOException, IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("There must be at least one thread");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Queue capacity must not be negative");
+        }
+        this.puzzleOptions = puzzleOptions;
+        // A synchronous hand-off when there is no queue, so requests are only taken by idle workers
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                                         queueCapacity == 0 ? new SynchronousQueue<>()
+                                                            : new ArrayBlockingQueue<>(queueCapacity),
+                                         threadFactory("sudoku-solve-"));
+        io = Executors.newFixedThreadPool(IO_THREADS, threadFactory("sudoku-io-"));
+        server = HttpServer.create(address, 0);
+        server.setExecutor(io);
+        server.createContext("/solve", this::solve);
+        server.createContext("/stats", this::stats);
+        server.start();
+    }
+
+    /**
+     * Get the address the server is listening on.
+     *
+     * @return the bound address
+     */
+    @NotNull
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stop the server, abandoning any requests which have not been answered.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        io.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Get the pool the puzzles are solved by.
+     */
+    ThreadPoolExecutor workers() {
+        return workers;
+    }
+
+    /**
+     * Read the puzzles, and hand them to a worker to solve and answer.
+     */
+    private void solve(final HttpExchange exchange) throws IOException {
+        final long start = System.nanoTime();
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            respond(exchange, 405, "Use POST\n");
+            return;
+        }
+        final byte[] body = readBody(exchange);
+        if (body == null) {
+            respond(exchange, 413, "Requests must be smaller than " + MAX_BODY_SIZE + " bytes\n");
+            return;
+        }
+        requests.incrementAndGet();
+        try {
+            workers.execute(() -> {
+                try {
+                    final SearchBudget budget = puzzleOptions.isLimited() ? new SearchBudget(puzzleOptions) : null;
+                    final BatchSolver.Chunk chunk = BatchSolver.solveChunk(ByteBuffer.wrap(body), budget);
+                    puzzles.addAndGet(chunk.puzzles);
+                    solved.addAndGet(chunk.solved);
+                    limited.addAndGet(chunk.limited);
+                    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=US-ASCII");
+                    exchange.getResponseHeaders().set("X-Puzzles", Long.toString(chunk.puzzles));
+                    exchange.getResponseHeaders().set("X-Solved", Long.toString(chunk.solved));
+                    exchange.getResponseHeaders().set("X-Limited", Long.toString(chunk.limited));
+                    exchange.sendResponseHeaders(200, chunk.output.size());
+                    try (final OutputStream out = exchange.getResponseBody()) {
+                        chunk.output.writeTo(out);
+                    }
+                } catch (final IOException e) {
+                    // The client went away, so there is no one to tell
+                    exchange.close();
+                } finally {
+                    latencies.record(System.nanoTime() - start);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            respond(exchange, 503, "Too many requests are waiting\n");
+        }
+    }
+
+    /**
+     * Answer with the counts and latency percentiles, in milliseconds.
+     */
+    private void stats(final HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "GET");
+            respond(exchange, 405, "Use GET\n");
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        respond(exchange, 200, String.format(Locale.ROOT,
+            "{\"requests\":%d,\"rejected\":%d,\"puzzles\":%d,\"solved\":%d,\"limited\":%d,\"queued\":%d,\"active\":%d," +
+            "\"latencyMillis\":{\"count\":%d,\"mean\":%.3f,\"p50\":%.3f,\"p90\":%.3f,\"p99\":%.3f,\"p99.9\":%.3f,\"max\":%.3f}}\n",
+            requests.get(), rejected.get(), puzzles.get(), solved.get(), limited.get(), workers.getQueue().size(), workers.getActiveCount(),
+            latencies.getCount(), latencies.getMean() / 1e6, latencies.getPercentile(50) / 1e6,
+            latencies.getPercentile(90) / 1e6, latencies.getPercentile(99) / 1e6, latencies.getPercentile(99.9) / 1e6,
+            latencies.getMax() / 1e6));
+    }
+
+    /**
+     * Read the request body, up to {@value MAX_BODY_SIZE} bytes.
+     *
+     * @return the body, or <code>null</code> if it is too large
+     */
+    private static byte[] readBody(final HttpExchange exchange) throws IOException {
+        final String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        final int expected;
+        try {
+            expected = contentLength == null ? 0 : (int) Math.min(Long.parseLong(contentLength.trim()), MAX_BODY_SIZE + 1L);
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+        if (expected > MAX_BODY_SIZE) {
+            return null;
+        }
+        final ByteArrayOutputStream body = new ByteArrayOutputStream(Math.max(expected, 128));
+        final byte[] buffer = new byte[8192];
+        try (final InputStream in = exchange.getRequestBody()) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                if (body.size() + read > MAX_BODY_SIZE) {
+                    return null;
+                }
+                body.write(buffer, 0, read);
+            }
+        }
+        return body.toByteArray();
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final String message) throws IOException {
+        final byte[] bytes = message.getBytes(StandardCharsets.US_ASCII);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (final OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static ThreadFactory threadFactory(final String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Start a server from the command line.
+     *
+     * @param args optionally the port (defaults to <code>8080</code>), the number of worker threads (defaults to one
+     *             per available processor), the queue capacity (defaults to <code>64</code> per worker) and the time
+     *             limit of each puzzle in milliseconds (defaults to <code>1000</code>)
+     * @throws IOException if the server can not listen on the port
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length > 4) {
+            System.err.println("Usage: SolveServer [port] [threads] [queue capacity] [puzzle timeout ms]");
+            System.exit(1);
+        }
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final int queueCapacity = args.length > 2 ? Integer.parseInt(args[2]) : 64 * threads;
+        final SolveOptions puzzleOptions = args.length > 3
+                                           ? SolveOptions.NONE.withTimeout(Duration.ofMillis(Long.parseLong(args[3])))
+                                           : DEFAULT_PUZZLE_OPTIONS;
+        final SolveServer server = new SolveServer(new InetSocketAddress(port), threads, queueCapacity, puzzleOptions);
+        System.out.println("Listening on " + server.getAddress());
+    }
+}
@@ -0,0 +1,154 @@
+package com.rf5860.sudoku;
+
+/**
+ * <h1>Solver Engine</h1>
+ * <p>The implementation of Algorithm X that {@link SudokuSolver} finds solutions and counts them with.</p>
+ * <p>Both engines search the same exact cover matrix, after the same {@link ConstraintPropagation}, and find solutions
+ * in the same order when choosing columns with {@link ColumnSelector#MINIMUM_SIZE}. They differ in how the matrix is
+ * stored, which decides how their cost grows with the size of the grid. Parallel searches, lazy enumerations and
+ * checkpoints always use dancing links.</p>
+ * <p>Only {@link #DANCING_LINKS} takes a {@link ColumnSelector}. The other engines always choose columns in the order
+ * of one selector, which {@link #supports(ColumnSelector)} tells apart.</p>
+ */
+public enum SolverEngine {
+    /**
+     * Dancing links over an array backed matrix (see {@link SudokuMatrix}), which only ever touches the rows and
+     * columns being covered, so its cost per node barely grows with the grid.
+     */
+    DANCING_LINKS {
+        @Override
+        int search(final byte[] cells, final int length, final ColumnSelector selector, final SolverStats stats,
+                   final SearchBudget budget, final int limit) {
+            final SudokuMatrix matrix = SudokuMatrix.acquire(length);
+            try {
+                if (!matrix.load(cells, selector, stats)) {
+                    return 0;
+                }
+                final AlgorithmX search = matrix.search();
+                if (budget != null && !budget.check()) {
+                    return 0;
+                }
+                search.setBudget(budget);
+                int count = 0;
+                while (count < limit && search.next()) {
+                    if (count++ == 0) {
+                        SudokuMatrix.fill(cells, length, search);
+                    }
+                }
+                return count;
+            } finally {
+                matrix.release();
+            }
+        }
+    },
+    /**
+     * Algorithm X over bitsets of the available rows and uncovered columns (see {@link BitsetMatrix}), which copies
+     * its state at each level rather than undoing changes, and counts the rows of every column to choose one. This
+     * has no pointers to chase, and wins while the matrix is small enough for its bitsets to stay in cache. The first
+     * of the smallest columns is always chosen, as with {@link ColumnSelector#MINIMUM_SIZE}, which is the only selector
+     * it supports.
+     */
+    BITSET {
+        @Override
+        public boolean supports(final ColumnSelector selector) {
+            return selector == ColumnSelector.MINIMUM_SIZE;
+        }
+
+        @Override
+        int search(final byte[] cells, final int length, final ColumnSelector selector, final SolverStats stats,
+                   final SearchBudget budget, final int limit) {
+            final BitsetMatrix matrix = BitsetMatrix.acquire(length);
+            try {
+                return matrix.search(cells, stats, budget, limit);
+            } finally {
+                matrix.release();
+            }
+        }
+    },
+    /**
+     * Dancing links held off-heap in a direct buffer (see {@link NodeArena}), for 36x36 grids and larger, whose
+     * matrices have millions of links. The matrix is built once per thread and length and reused for every solve,
+     * and none of it is on the heap, so large grids do not drive the size of the heap. It searches in the same order as
+     * {@link #DANCING_LINKS} with {@link ColumnSelector#BUCKETED}, which is the only selector it supports. Threads
+     * which are done solving should call {@link #releaseMemory()}.
+     */
+    OFF_HEAP {
+        @Override
+        public boolean supports(final ColumnSelector selector) {
+            return selector == ColumnSelector.BUCKETED;
+        }
+
+        @Override
+        int search(final byte[] cells, final int length, final ColumnSelector selector, final SolverStats stats,
+                   final SearchBudget budget, final int limit) {
+            final NodeArena arena = NodeArena.acquire(length);
+            try {
+                return arena.search(cells, stats, budget, limit);
+            } finally {
+                arena.release();
+            }
+        }
+
+        @Override
+        public void releaseMemory() {
+            NodeArena.free();
+        }
+    };
+
+    /**
+     * Get the fastest engine for a grid of the given length, I.e. {@link #BITSET} for grids up to 9x9, and
+     * {@link #DANCING_LINKS} for larger grids (as measured by <code>SolverEngineBenchmark</code>).
+     *
+     * @param length the length of the Sudoku grid
+     * @return the default engine for the grid
+     */
+    public static SolverEngine forLength(final int length) {
+        return length <= 9 ? BITSET : DANCING_LINKS;
+    }
+
+    /**
+     * Get the fastest engine for a grid of the given length which chooses columns with the given selector, I.e. the
+     * engine from {@link #forLength(int)} if it supports the selector, and {@link #DANCING_LINKS} otherwise.
+     *
+     * @param length   the length of the Sudoku grid
+     * @param selector the column selector the search must use
+     * @return the default engine for the grid and selector
+     */
+    public static SolverEngine forLength(final int length, final ColumnSelector selector) {
+        final SolverEngine engine = forLength(length);
+        return engine.supports(selector) ? engine : DANCING_LINKS;
+    }
+
+    /**
+     * Check if this engine chooses columns with the given selector. {@link #DANCING_LINKS} supports every selector.
+     *
+     * @param selector the column selector
+     * @return <code>true</code> if the search follows the selector, <code>false</code> if it chooses its own columns
+     */
+    public boolean supports(final ColumnSelector selector) {
+        return true;
+    }
+
+    /**
+     * Free the memory this engine keeps for the current thread between solves, rather than leaving it to the garbage
+     * collector. Only {@link #OFF_HEAP} keeps enough to be worth freeing: the other engines do nothing. The next solve
+     * on this thread allocates its memory again.
+     */
+    public void releaseMemory() {
+    }
+
+    /**
+     * Search for up to <code>limit</code> solutions of a puzzle, filling the first one into its cells.
+     *
+     * @param cells    the digits of the grid in row-major order, with <code>0</code> for blank cells
+     * @param length   the length of the grid
+     * @param selector the strategy for choosing columns, if the engine supports one
+     * @param stats    the stats to record the search in, or <code>null</code>
+     * @param budget   the limits of the search, or <code>null</code> for none
+     * @return the number of solutions found. If this is less than <code>limit</code> and the budget has a reason, the
+     * search was stopped by the budget
+     * @throws IllegalArgumentException if any digit is outside the range of the grid
+     */
+    abstract int search(byte[] cells, int length, ColumnSelector selector, SolverStats stats, SearchBudget budget,
+                        int limit) throws IllegalArgumentException;
+}
@@ -0,0 +1,25 @@
+package com.rf5860.sudoku;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h1>Solver Listener</h1>
+ * <p>Notified as a {@link SudokuSolver} starts and finishes each solve (including counting solutions).</p>
+ * <p>Both methods are called from the thread which called the solver, around the whole solve, so a listener can time
+ * or trace it. Registering a listener turns on the collection of {@link SolverStats}.</p>
+ */
+@FunctionalInterface
+public interface SolverListener {
+    /**
+     * Called before the puzzle is loaded into the matrix.
+     */
+    default void solveStarted() {
+    }
+
+    /**
+     * Called once the solve is finished, whether or not a solution was found.
+     *
+     * @param stats the stats of the solve
+     */
+    void solveFinished(@NotNull SolverStats stats);
+}
@@ -0,0 +1,287 @@
+package com.rf5860.sudoku;
+
+import java.util.Optional;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h1>Solver Session</h1>
+ * <p>Keeps the exact cover matrix of a grid alive while it is being edited, for interactive checks after every
+ * change.</p>
+ * <p>Each {@link #set(int, int, int)} selects one more matrix row, and each {@link #clear(int, int)} deselects one,
+ * so an edit costs a handful of link updates rather than loading the whole grid again. Rows are deselected in the
+ * reverse order they were selected: clearing the most recent cell is immediate, while clearing an earlier cell also
+ * deselects and reselects the cells filled after it.</p>
+ * <p>A digit which conflicts with the filled cells can not be selected at all. It is kept as a conflict, which makes the
+ * grid unsolvable until it is cleared, and is selected as soon as the cells it conflicts with are cleared.</p>
+ * <p>{@link #getHint()} only reads the sizes of the uncovered columns, and {@link #isSolvable()} searches from the
+ * current matrix and remembers its answer until the next edit. Sessions are not thread-safe.</p>
+ */
+public final class SolverSession {
+    private final int length;
+    private final byte[] cells;
+    private final boolean[] conflicts;
+    private final int[] placed;
+    private final int[] replaced;
+    private final SudokuMatrix matrix;
+    private int placedCount;
+    private int conflictCount;
+    private Boolean solvable;
+
+    /**
+     * Start a session from the given grid.
+     *
+     * @param sudoku the grid to start from, which is copied
+     * @throws IllegalArgumentException if any digit is outside the range of the grid
+     */
+    public SolverSession(@NotNull final Sudoku sudoku) throws IllegalArgumentException {
+        length = sudoku.getLength();
+        cells = new byte[length * length];
+        conflicts = new boolean[cells.length];
+        placed = new int[cells.length];
+        replaced = new int[cells.length];
+        matrix = SudokuMatrix.create(length);
+        final byte[] digits = sudoku.getCells();
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (digits[cell] != 0) {
+                fill(cell, checkDigit(digits[cell]));
+            }
+        }
+        matrix.search().setColumnSelector(ColumnSelector.forLength(length));
+    }
+
+    /**
+     * Set the digit of a cell, replacing any digit it already had.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @param digit  the digit, or <code>0</code> to clear the cell
+     * @throws ArrayIndexOutOfBoundsException if the cell is outside of the grid
+     * @throws IllegalArgumentException       if the digit is outside the range of the grid
+     */
+    public void set(final int row, final int column, final int digit)
+        throws ArrayIndexOutOfBoundsException, IllegalArgumentException {
+        final int cell = indexOf(row, column);
+        if (cells[cell] == checkDigit(digit)) {
+            return;
+        }
+        if (cells[cell] != 0) {
+            empty(cell);
+        }
+        if (digit != 0) {
+            fill(cell, digit);
+        }
+        solvable = null;
+    }
+
+    /**
+     * Clear a cell.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @throws ArrayIndexOutOfBoundsException if the cell is outside of the grid
+     */
+    public void clear(final int row, final int column) throws ArrayIndexOutOfBoundsException {
+        set(row, column, 0);
+    }
+
+    /**
+     * Get the digit of a cell.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @return the digit, or <code>0</code> if the cell is blank
+     * @throws ArrayIndexOutOfBoundsException if the cell is outside of the grid
+     */
+    public int get(final int row, final int column) throws ArrayIndexOutOfBoundsException {
+        return cells[indexOf(row, column)];
+    }
+
+    /**
+     * Check if a cell holds a digit which conflicts with another filled cell.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @return <code>true</code> if the cell conflicts, <code>false</code> otherwise
+     * @throws ArrayIndexOutOfBoundsException if the cell is outside of the grid
+     */
+    public boolean isConflict(final int row, final int column) throws ArrayIndexOutOfBoundsException {
+        return conflicts[indexOf(row, column)];
+    }
+
+    /**
+     * Get a copy of the grid as it stands.
+     *
+     * @return the grid, including any conflicting digits
+     */
+    @NotNull
+    public Sudoku getSudoku() {
+        return new Sudoku(length, cells.clone());
+    }
+
+    /**
+     * Check if the grid can still be completed. The answer is remembered until the next edit.
+     *
+     * @return <code>true</code> if the grid has at least one solution, <code>false</code> otherwise
+     */
+    public boolean isSolvable() {
+        if (solvable == null) {
+            solvable = conflictCount == 0 && search();
+        }
+        return solvable;
+    }
+
+    /**
+     * <p>Find a blank cell whose digit is forced by the filled cells: either it is the only digit left for the cell,
+     * or the only place left for the digit in a row, column or sub-grid.</p>
+     * <p>This only reads the sizes of the uncovered columns, so it does not check that the grid can be completed (see
+     * {@link #isSolvable()}).</p>
+     *
+     * @return a forced cell, or nothing if no cell is forced, the grid has conflicts, or a cell or digit has no place
+     * left
+     */
+    @NotNull
+    public Optional<Hint> getHint() {
+        if (conflictCount > 0) {
+            return Optional.empty();
+        }
+        final DancingLinks links = matrix.links;
+        int forced = -1;
+        for (int header = links.right[DancingLinks.ROOT]; header != DancingLinks.ROOT; header = links.right[header]) {
+            if (links.size[header] == 0) {
+                return Optional.empty();
+            }
+            if (forced < 0 && links.size[header] == 1) {
+                forced = links.down[header];
+            }
+        }
+        if (forced < 0) {
+            return Optional.empty();
+        }
+        final int rowId = links.row[forced];
+        final int cell = rowId / length;
+        return Optional.of(new Hint(cell / length, cell % length, rowId % length + 1));
+    }
+
+    /**
+     * Search for a solution from the current matrix, then undo the search.
+     */
+    private boolean search() {
+        final AlgorithmX search = matrix.search();
+        try {
+            return search.next();
+        } finally {
+            search.reset();
+        }
+    }
+
+    /**
+     * Fill a blank cell, selecting its row if it does not conflict.
+     */
+    private void fill(final int cell, final int digit) {
+        cells[cell] = (byte) digit;
+        if (matrix.place(cell, digit)) {
+            placed[placedCount++] = cell;
+        } else {
+            conflicts[cell] = true;
+            conflictCount++;
+        }
+    }
+
+    /**
+     * Empty a filled cell, deselecting its row (and those selected after it), then select any conflicts it resolves.
+     */
+    private void empty(final int cell) {
+        cells[cell] = 0;
+        if (conflicts[cell]) {
+            conflicts[cell] = false;
+            conflictCount--;
+            return;
+        }
+        int count = 0;
+        while (placed[placedCount - 1] != cell) {
+            replaced[count++] = placed[--placedCount];
+            matrix.unplace();
+        }
+        placedCount--;
+        matrix.unplace();
+        while (count > 0) {
+            final int other = replaced[--count];
+            matrix.place(other, cells[other]);
+            placed[placedCount++] = other;
+        }
+        if (conflictCount > 0) {
+            for (int other = 0; other < cells.length; other++) {
+                if (conflicts[other] && matrix.place(other, cells[other])) {
+                    conflicts[other] = false;
+                    conflictCount--;
+                    placed[placedCount++] = other;
+                }
+            }
+        }
+    }
+
+    private int indexOf(final int row, final int column) throws ArrayIndexOutOfBoundsException {
+        if (row < 0 || row >= length || column < 0 || column >= length) {
+            throw new ArrayIndexOutOfBoundsException(String.format("[%d][%d] is outside of a %dx%d grid", row, column, length, length));
+        }
+        return row * length + column;
+    }
+
+    private int checkDigit(final int digit) throws IllegalArgumentException {
+        if (digit < 0 || digit > length) {
+            throw new IllegalArgumentException(String.format("Digit must be between 0 and %d, but was %d", length, digit));
+        }
+        return digit;
+    }
+
+    /**
+     * A blank cell, and the digit it is forced to hold.
+     */
+    public static final class Hint {
+        private final int row;
+        private final int column;
+        private final int digit;
+
+        private Hint(final int row, final int column, final int digit) {
+            this.row = row;
+            this.column = column;
+            this.digit = digit;
+        }
+
+        /**
+         * Get the row of the cell.
+         *
+         * @return the row of the cell
+         */
+        public int getRow() {
+            return row;
+        }
+
+        /**
+         * Get the column of the cell.
+         *
+         * @return the column of the cell
+         */
+        public int getColumn() {
+            return column;
+        }
+
+        /**
+         * Get the digit the cell is forced to hold.
+         *
+         * @return the digit of the cell
+         */
+        public int getDigit() {
+            return digit;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("[%d][%d] = %d", row, column, digit);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.rf5860.sudoku;
+
+import static java.util.Arrays.copyOf;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h1>Solver Stats</h1>
+ * <p>Counters describing the work done by one solve, passed to each {@link SolverListener} once it finishes.</p>
+ * <p>The search is counted in terms of the exact cover matrix: each node is a row selected by the search (a digit
+ * placed in a cell), and each backtrack is a selected row being undone. The branching factor at a node is the number
+ * of rows in the column the search chose to branch on, so a histogram weighted towards <code>1</code> means the search
+ * was mostly following forced moves, while an entry at <code>0</code> is a dead end.</p>
+ * <p>Stats are only collected while a {@link SudokuSolver} has listeners, so solving without them costs nothing.</p>
+ */
+public final class SolverStats {
+    private final int length;
+    private long nodes;
+    private long covers;
+    private long uncovers;
+    private long backtracks;
+    private long solutions;
+    private int maxDepth;
+    private long[] branchingFactors = new long[0];
+    private long matrixNanos;
+    private long searchNanos;
+    private long searchStart;
+
+    /**
+     * Constructs empty stats.
+     *
+     * @param length the length of the grid being solved
+     */
+    SolverStats(final int length) {
+        this.length = length;
+    }
+
+    /**
+     * Record the search choosing a column to branch on, and covering it.
+     *
+     * @param size the number of rows in the column
+     */
+    void branch(final int size) {
+        if (size >= branchingFactors.length) {
+            branchingFactors = copyOf(branchingFactors, size + 1);
+        }
+        branchingFactors[size]++;
+        covers++;
+    }
+
+    /**
+     * Record the search selecting a row.
+     *
+     * @param depth  the depth of the search once the row is selected
+     * @param covers the number of other columns covered by the row
+     */
+    void select(final int depth, final int covers) {
+        nodes++;
+        this.covers += covers;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    /**
+     * Record the search undoing a selected row.
+     *
+     * @param uncovers the number of other columns uncovered by the row
+     */
+    void deselect(final int uncovers) {
+        backtracks++;
+        this.uncovers += uncovers;
+    }
+
+    /**
+     * Record the search uncovering the column it branched on, once every row in it has been tried.
+     */
+    void uncover() {
+        uncovers++;
+    }
+
+    /**
+     * Record the search finding a solution.
+     */
+    void solution() {
+        solutions++;
+    }
+
+    /**
+     * Record the time taken to load the puzzle into the matrix, and start timing the search.
+     *
+     * @param nanos the time taken to load the matrix, in nanoseconds
+     */
+    void matrixLoaded(final long nanos) {
+        matrixNanos += nanos;
+        searchStart = System.nanoTime();
+    }
+
+    /**
+     * Stop timing the search, if it was started.
+     */
+    void searchFinished() {
+        if (searchStart != 0) {
+            searchNanos += System.nanoTime() - searchStart;
+            searchStart = 0;
+        }
+    }
+
+    /**
+     * Add the counters of a sub-tree searched separately, such as by a {@link ParallelSearch}.
+     * This is safe to call from several threads at once.
+     *
+     * @param other the stats of the sub-tree
+     * @param depth the depth the sub-tree starts at
+     */
+    synchronized void merge(final SolverStats other, final int depth) {
+        nodes += other.nodes;
+        covers += other.covers;
+        uncovers += other.uncovers;
+        backtracks += other.backtracks;
+        solutions += other.solutions;
+        maxDepth = Math.max(maxDepth, depth + other.maxDepth);
+        if (other.branchingFactors.length > branchingFactors.length) {
+            branchingFactors = copyOf(branchingFactors, other.branchingFactors.length);
+        }
+        for (int size = 0; size < other.branchingFactors.length; size++) {
+            branchingFactors[size] += other.branchingFactors[size];
+        }
+    }
+
+    /**
+     * Get the length of the grid which was solved.
+     *
+     * @return the length of the grid
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Get the number of nodes visited by the search, I.e. the number of rows it selected.
+     *
+     * @return the number of search nodes
+     */
+    public synchronized long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Get the number of columns covered by the search.
+     *
+     * @return the number of cover operations
+     */
+    public synchronized long getCovers() {
+        return covers;
+    }
+
+    /**
+     * Get the number of columns uncovered by the search.
+     *
+     * @return the number of uncover operations
+     */
+    public synchronized long getUncovers() {
+        return uncovers;
+    }
+
+    /**
+     * Get the number of times the search undid a selected row to try another.
+     *
+     * @return the number of backtracks
+     */
+    public synchronized long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * Get the number of solutions found.
+     *
+     * @return the number of solutions
+     */
+    public synchronized long getSolutions() {
+        return solutions;
+    }
+
+    /**
+     * Get the greatest number of rows selected by the search at once, not counting the filled cells of the puzzle.
+     *
+     * @return the maximum search depth
+     */
+    public synchronized int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Get the histogram of branching factors: element <code>n</code> is the number of times the search branched on a
+     * column with <code>n</code> rows.
+     *
+     * @return a copy of the histogram
+     */
+    @NotNull
+    public synchronized long[] getBranchingFactors() {
+        return branchingFactors.clone();
+    }
+
+    /**
+     * Get the time taken to load the puzzle into the exact cover matrix, including constraint propagation.
+     *
+     * @return the matrix time, in nanoseconds
+     */
+    public synchronized long getMatrixNanos() {
+        return matrixNanos;
+    }
+
+    /**
+     * Get the time taken to search the matrix.
+     *
+     * @return the search time, in nanoseconds
+     */
+    public synchronized long getSearchNanos() {
+        return searchNanos;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("%d nodes, %d backtracks, %d covers, %d uncovers, max depth %d, %d solutions, "
+                             + "matrix %.3fms, search %.3fms",
+                             nodes, backtracks, covers, uncovers, maxDepth, solutions, matrixNanos / 1e6, searchNanos / 1e6);
+    }
+}
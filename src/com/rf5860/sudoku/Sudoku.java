@@ -1,15 +1,13 @@
 package com.rf5860.sudoku;
 
 import static java.lang.Math.sqrt;
-import static java.util.Arrays.copyOf;
-import static java.util.Arrays.deepEquals;
-import static java.util.Arrays.deepHashCode;
-import static java.util.Arrays.deepToString;
 import static java.util.Arrays.fill;
-import static java.util.Arrays.stream;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.IntStream.range;
 
+import java.nio.Buffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.lang3.tuple.Pair;
@@ -28,12 +26,40 @@ import org.jetbrains.annotations.NotNull;
  * <br>
  * This implementation uses 0 to represent blank values.
  * </p>
+ * <p>The digits are stored in a single <code>byte[]</code>, in row-major order, so copying or comparing a grid is a
+ * single array operation. Digits must therefore be between <code>0</code> and {@value MAX_DIGIT}.</p>
+ * <p>The digit counts and masks which answer {@link #isMoveValid(int, int, int)}, {@link #candidates(int, int)} and the
+ * <code>isIn</code> checks are only built on the first such call, and kept up to date from then on. A grid which is
+ * only stored, copied or solved, such as a cached solution or a clone, holds nothing but its digits. Building them
+ * is safe while several threads query a grid which none of them changes.</p>
  */
 public class Sudoku implements Cloneable {
     public static final int DEFAULT_SIZE = 9;
+    public static final int MAX_DIGIT = Byte.MAX_VALUE;
+
+    private static final int WORD_SIZE = Long.SIZE;
 
     private final int size;
-    private final int[][] grid;
+    /**
+     * The digits of the grid, in row-major order.
+     */
+    private final byte[] cells;
+    private final int subGridHeight;
+    private final int subGridLength;
+    private final int subGridsPerRow;
+    /**
+     * The number of digits (including <code>0</code>) which can be placed in the grid.
+     */
+    private final int digits;
+    /**
+     * The number of longs needed for the digit mask of each row, column and sub-grid.
+     */
+    private final int words;
+    /**
+     * The digit counts and masks of the grid, or <code>null</code> until they are first needed. They are only published
+     * once fully built, so threads which only query a grid never see them half built.
+     */
+    private Counts counts;
 
     /**
      * Constructs a new Sudoku grid of with the default size of {@value DEFAULT_SIZE}.
@@ -48,27 +74,74 @@ public class Sudoku implements Cloneable {
      * @param digits an NxN matrix of digits<br>
      *               There must be an equal number of rows and columns.<br>
      *               Each row must be the same length
-     * @throws IllegalArgumentException if there are unequal number of rows and columns, or if all rows are not of equal length
+     * @throws IllegalArgumentException if there are unequal number of rows and columns, if all rows are not of equal length,
+     *                                  or if any digit is outside the range <code>0</code> to {@value MAX_DIGIT}
      */
-    public Sudoku(@NotNull final int[][] digits) {
-        grid = new int[digits.length][];
-        range(0, digits.length).forEachOrdered(i -> grid[i] = copyOf(digits[i], digits[i].length));
-        size = grid.length * grid.length;
+    public Sudoku(@NotNull final int[][] digits) throws IllegalArgumentException {
+        this(digits.length, flatten(digits));
     }
 
     /**
-     * Constructs a new Sudoku grid of the given size.
+     * Constructs a new, empty Sudoku grid of the given size.
      *
-     * @param size the size (total squares) in the grid.<br>
-     *             This must be a perfect square
-     * @throws IllegalArgumentException if the given is <strong>not</strong> a perfect square
+     * @param size the size of the grid, I.e. the number of rows, columns and digits.<br>
+     *             This must be a perfect square, of at most {@value MAX_DIGIT}
+     * @throws IllegalArgumentException if the given is <strong>not</strong> a perfect square, or is too large
      */
     public Sudoku(final int size) throws IllegalArgumentException {
+        this(requirePerfectSquare(size), new byte[size * size]);
+    }
+
+    /**
+     * Constructs a Sudoku grid which takes ownership of the given digits.
+     *
+     * @param size  the size of the grid, I.e. the number of rows, columns and digits
+     * @param cells the digits of the grid in row-major order, with <code>0</code> for blank cells
+     */
+    Sudoku(final int size, final byte[] cells) {
+        this.size = size;
+        this.cells = cells;
+        subGridHeight = (int) sqrt(size);
+        subGridLength = subGridHeight;
+        subGridsPerRow = subGridLength == 0 ? 0 : (size + subGridLength - 1) / subGridLength;
+        digits = size + 1;
+        words = (digits + WORD_SIZE - 1) / WORD_SIZE;
+    }
+
+    @NotNull
+    private static byte[] flatten(@NotNull final int[][] digits) throws IllegalArgumentException {
+        final int length = requireStorableSize(digits.length);
+        final byte[] cells = new byte[length * length];
+        for (int row = 0; row < length; row++) {
+            if (digits[row].length != length) {
+                throw new IllegalArgumentException("Grid must have an equal number of rows and columns");
+            }
+            for (int column = 0; column < length; column++) {
+                cells[row * length + column] = toByte(digits[row][column]);
+            }
+        }
+        return cells;
+    }
+
+    private static byte toByte(final int digit) throws IllegalArgumentException {
+        if (digit < 0 || digit > MAX_DIGIT) {
+            throw new IllegalArgumentException(String.format("Digit must be between 0 and %d, but was %d", MAX_DIGIT, digit));
+        }
+        return (byte) digit;
+    }
+
+    private static int requirePerfectSquare(final int size) throws IllegalArgumentException {
         if (isNotAPerfectSquare(size)) {
             throw new IllegalArgumentException("Size must be a perfect square");
         }
-        this.size = size;
-        grid = new int[size][size];
+        return requireStorableSize(size);
+    }
+
+    private static int requireStorableSize(final int size) throws IllegalArgumentException {
+        if (size > MAX_DIGIT) {
+            throw new IllegalArgumentException(String.format("Size must be at most %d", MAX_DIGIT));
+        }
+        return size;
     }
 
     /**
@@ -77,13 +150,13 @@ public class Sudoku implements Cloneable {
      * @param num the number to check
      * @return <code>false</code> if the number is not a perfect square, <code>true</code> otherwise
      */
-    private boolean isNotAPerfectSquare(final int num) {
+    private static boolean isNotAPerfectSquare(final int num) {
         final double sqrt = sqrt(num);
         return Math.pow((int) sqrt, 2) != Math.pow(sqrt, 2);
     }
 
     /**
-     * Get the size of the Sudoku grid.
+     * Get the size of the Sudoku grid, I.e. the number of rows, columns and digits.
      *
      * @return the size of the Sudoku grid
      */
@@ -97,7 +170,8 @@ public class Sudoku implements Cloneable {
      * @return the current Sudoku
      */
     public Sudoku clearAll() {
-        stream(grid).forEach(row -> fill(row, 0));
+        fill(cells, (byte) 0);
+        counts = null;
         return this;
     }
 
@@ -118,9 +192,17 @@ public class Sudoku implements Cloneable {
      * @param column the column to set
      * @param digit  the digit to find in the sub-grid
      * @throws ArrayIndexOutOfBoundsException if either row or column is greater than the size of the Grid
+     * @throws IllegalArgumentException       if the digit is outside the range <code>0</code> to {@value MAX_DIGIT}
      */
-    public void set(final int row, final int column, final int digit) throws ArrayIndexOutOfBoundsException {
-        grid[row][column] = digit;
+    public void set(final int row, final int column, final int digit) throws ArrayIndexOutOfBoundsException, IllegalArgumentException {
+        final int cell = indexOf(row, column);
+        final int previous = cells[cell];
+        cells[cell] = toByte(digit);
+        final Counts built = counts;
+        if (previous != digit && built != null) {
+            built.remove(row, column, previous);
+            built.add(row, column, digit);
+        }
     }
 
     /**
@@ -132,7 +214,19 @@ public class Sudoku implements Cloneable {
      * @throws ArrayIndexOutOfBoundsException if either row or column is greater than the size of the Grid
      */
     public int get(final int row, final int column) throws ArrayIndexOutOfBoundsException {
-        return grid[row][column];
+        return cells[indexOf(row, column)];
+    }
+
+    /**
+     * Get the index of the given row and column in the flat grid.
+     *
+     * @throws ArrayIndexOutOfBoundsException if either row or column is outside of the grid
+     */
+    private int indexOf(final int row, final int column) throws ArrayIndexOutOfBoundsException {
+        if (row < 0 || row >= size || column < 0 || column >= size) {
+            throw new ArrayIndexOutOfBoundsException(String.format("[%d][%d] is outside of a %dx%d grid", row, column, size, size));
+        }
+        return row * size + column;
     }
 
     /**
@@ -141,7 +235,12 @@ public class Sudoku implements Cloneable {
      * @return <code>true</code> if the puzzle is solved (Has no <code>0</code>'s), <code>false</code> otherwise
      */
     public boolean isSolved() {
-        return stream(grid).anyMatch(row -> stream(row).anyMatch(i -> i == 0));
+        for (final byte cell : cells) {
+            if (cell == 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -153,7 +252,10 @@ public class Sudoku implements Cloneable {
      * @throws ArrayIndexOutOfBoundsException if the column is greater than the number of sub-grids
      */
     public boolean isInColumn(final int column, final int digit) throws ArrayIndexOutOfBoundsException {
-        return stream(grid).map(row -> row[column]).anyMatch(i -> i == digit);
+        if (!isTracked(digit)) {
+            return range(0, size).anyMatch(row -> get(row, column) == digit);
+        }
+        return isSet(counts().columnMasks, column, digit);
     }
 
     /**
@@ -184,8 +286,11 @@ public class Sudoku implements Cloneable {
      * @throws ArrayIndexOutOfBoundsException if the subGridIndex is greater than the number of sub-grids
      */
     public boolean isInSubGrid(final int subGridIndex, final int digit) throws ArrayIndexOutOfBoundsException {
-        final List<Pair<Integer, Integer>> subGridIndexes = getSubGridIndexes(subGridIndex);
-        return subGridIndexes.stream().anyMatch(index -> grid[index.getLeft()][index.getRight()] == digit);
+        if (!isTracked(digit)) {
+            final List<Pair<Integer, Integer>> subGridIndexes = getSubGridIndexes(subGridIndex);
+            return subGridIndexes.stream().anyMatch(index -> get(index.getLeft(), index.getRight()) == digit);
+        }
+        return isSet(counts().subGridMasks, subGridIndex - 1, digit);
     }
 
     /**
@@ -197,7 +302,10 @@ public class Sudoku implements Cloneable {
      * @throws ArrayIndexOutOfBoundsException if the row is greater than the number of rows
      */
     public boolean isInRow(final int row, final int digit) throws ArrayIndexOutOfBoundsException {
-        return stream(grid[row]).anyMatch(i -> i == digit);
+        if (!isTracked(digit)) {
+            return range(0, size).anyMatch(column -> get(row, column) == digit);
+        }
+        return isSet(counts().rowMasks, row, digit);
     }
 
     /**
@@ -209,7 +317,7 @@ public class Sudoku implements Cloneable {
      */
     @Contract(pure = true)
     private boolean isCellPopulated(final int row, final int column) {
-        return grid[row][column] != 0;
+        return cells[indexOf(row, column)] != 0;
     }
 
     /**
@@ -218,10 +326,126 @@ public class Sudoku implements Cloneable {
      * @param row    the row to check
      * @param column the column to check
      * @param digit  the value to check at the given row and column
-     * @return <code>true</code> if the move is valid, <code>false</code> otherwise
+     * @return <code>true</code> if the move is valid, <code>false</code> otherwise (including for digits outside of the grid)
      */
     public boolean isMoveValid(final int row, final int column, final int digit) {
-        return !isCellPopulated(row, column) && !isInRow(row, digit) && !isInColumn(column, digit) && !isInSubGrid(getSubGridIndex(row, column), digit);
+        if (isCellPopulated(row, column) || digit < 1 || !isTracked(digit)) {
+            return false;
+        }
+        final Counts counts = counts();
+        final int subGrid = subGridOf(row, column);
+        final int word = digit / WORD_SIZE;
+        final long bit = 1L << digit;
+        return ((counts.rowMasks[row * words + word] | counts.columnMasks[column * words + word]
+                 | counts.subGridMasks[subGrid * words + word]) & bit) == 0;
+    }
+
+    /**
+     * <p>Get the digits which can be placed in the given cell, without repeating a digit in its row, column or sub-grid.</p>
+     * <p>The candidates are returned as a bitmask, with bit <code>d</code> set if digit <code>d</code> is a candidate.
+     * For example, <code>(candidates(row, column) &amp; (1L &lt;&lt; 5)) != 0</code> if 5 can be placed in the cell.</p>
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @return a bitmask of the candidates for the cell, or <code>0</code> if the cell is already populated
+     * @throws IllegalStateException if the grid is too large for its digits to fit in a <code>long</code> (more than 63x63)
+     */
+    public long candidates(final int row, final int column) throws IllegalStateException {
+        if (words != 1) {
+            throw new IllegalStateException("Candidates can only be represented for grids of up to 63x63");
+        }
+        if (isCellPopulated(row, column)) {
+            return 0;
+        }
+        final Counts counts = counts();
+        final long allDigits = -1L >>> (WORD_SIZE - digits) & ~1L;
+        return allDigits & ~(counts.rowMasks[row] | counts.columnMasks[column] | counts.subGridMasks[subGridOf(row, column)]);
+    }
+
+    /**
+     * Get the (0-based) sub-grid containing the given row and column.
+     */
+    private int subGridOf(final int row, final int column) {
+        return (row / subGridHeight) * subGridsPerRow + column / subGridLength;
+    }
+
+    /**
+     * Check if the given digit is tracked by the row, column and sub-grid masks. Values outside of the grid are not.
+     */
+    private boolean isTracked(final int digit) {
+        return digit >= 0 && digit < digits;
+    }
+
+    private boolean isSet(final long[] masks, final int unit, final int digit) {
+        return (masks[unit * words + digit / WORD_SIZE] & (1L << digit)) != 0;
+    }
+
+    /**
+     * Get the digit counts and masks of the grid, building them if they have not been built yet. Threads which race to
+     * build them each build their own, and only a complete set is ever published.
+     */
+    private Counts counts() {
+        Counts built = counts;
+        if (built == null) {
+            built = new Counts();
+            counts = built;
+        }
+        return built;
+    }
+
+    /**
+     * The number of times each digit (including <code>0</code>) appears in each row, column and sub-grid, and a bitmask
+     * for each of them with bit <code>d</code> set if digit <code>d</code> appears in it. The arrays are final, and
+     * filled in before the constructor returns, so they are safely published with the object.
+     */
+    private final class Counts {
+        private final byte[] rowCounts;
+        private final byte[] columnCounts;
+        private final byte[] subGridCounts;
+        private final long[] rowMasks;
+        private final long[] columnMasks;
+        private final long[] subGridMasks;
+
+        private Counts() {
+            final int subGrids = subGridsPerRow * subGridsPerRow;
+            rowCounts = new byte[size * digits];
+            columnCounts = new byte[size * digits];
+            subGridCounts = new byte[subGrids * digits];
+            rowMasks = new long[size * words];
+            columnMasks = new long[size * words];
+            subGridMasks = new long[subGrids * words];
+            for (int cell = 0; cell < cells.length; cell++) {
+                add(cell / size, cell % size, cells[cell]);
+            }
+        }
+
+        private void add(final int row, final int column, final int digit) {
+            if (isTracked(digit)) {
+                increment(rowCounts, rowMasks, row, digit);
+                increment(columnCounts, columnMasks, column, digit);
+                increment(subGridCounts, subGridMasks, subGridOf(row, column), digit);
+            }
+        }
+
+        private void remove(final int row, final int column, final int digit) {
+            if (isTracked(digit)) {
+                decrement(rowCounts, rowMasks, row, digit);
+                decrement(columnCounts, columnMasks, column, digit);
+                decrement(subGridCounts, subGridMasks, subGridOf(row, column), digit);
+            }
+        }
+
+        private void increment(final byte[] counts, final long[] masks, final int unit, final int digit) {
+            if (counts[unit * digits + digit]++ == 0) {
+                masks[unit * words + digit / WORD_SIZE] |= 1L << digit;
+            }
+        }
+
+        private void decrement(final byte[] counts, final long[] masks, final int unit, final int digit) {
+            if (--counts[unit * digits + digit] == 0) {
+                masks[unit * words + digit / WORD_SIZE] &= ~(1L << digit);
+            }
+        }
     }
 
     /**
@@ -244,10 +468,11 @@ public class Sudoku implements Cloneable {
      *
      * @param row the row to determine the sub-grid of
      * @param column the column to determine the sub-grid of
-     * @return the index for the sub-grid with the given row and column (0-based, left-to-right, top-to-bottom)
+     * @return the index for the sub-grid with the given row and column (1-based, left-to-right, top-to-bottom),
+     * as used by {@link #isInSubGrid(int, int)} and {@link #getSubGridIndexes(int)}
      */
     public int getSubGridIndex(final int row, final int column) {
-        return row / getSubGridHeight() + column / getSubGridLength();
+        return subGridOf(row, column) + 1;
     }
 
     /**
@@ -257,7 +482,7 @@ public class Sudoku implements Cloneable {
      * @return an array of the values in the given sub-grid
      */
     public int[] getSubGridValues(final int subGridIndex) {
-        return getSubGridIndexes(subGridIndex).stream().mapToInt(indexes -> grid[indexes.getLeft()][indexes.getRight()]).toArray();
+        return getSubGridIndexes(subGridIndex).stream().mapToInt(indexes -> get(indexes.getLeft(), indexes.getRight())).toArray();
     }
 
     /**
@@ -277,7 +502,7 @@ public class Sudoku implements Cloneable {
      * @return the corresponding virtual row for the sub-grid
      */
     public int getSubGridRow(final int subGridIndex) {
-        return (subGridIndex - 1) / getSubGridHeight();
+        return (subGridIndex - 1) / subGridsPerRow;
     }
 
     /**
@@ -287,7 +512,7 @@ public class Sudoku implements Cloneable {
      * @return the corresponding virtual column for the sub-grid
      */
     public int getSubGridColumn(final int subGridIndex) {
-        return (subGridIndex - 1) % getSubGridLength();
+        return (subGridIndex - 1) % subGridsPerRow;
     }
 
     /**
@@ -298,7 +523,7 @@ public class Sudoku implements Cloneable {
      * @return the length row for the sub-grid
      */
     public int getSubGridLength() {
-        return (int) sqrt(getLength());
+        return subGridLength;
     }
 
     /**
@@ -309,7 +534,7 @@ public class Sudoku implements Cloneable {
      * @return the height row for the sub-grid
      */
     public int getSubGridHeight() {
-        return (int) sqrt(getHeight());
+        return subGridHeight;
     }
 
     /**
@@ -319,7 +544,7 @@ public class Sudoku implements Cloneable {
      */
     @Contract(pure = true)
     public int getHeight() {
-        return grid.length;
+        return size;
     }
 
     /**
@@ -329,7 +554,7 @@ public class Sudoku implements Cloneable {
      */
     @Contract(pure = true)
     public int getLength() {
-        return grid[0].length;
+        return size;
     }
 
     /**
@@ -341,8 +566,10 @@ public class Sudoku implements Cloneable {
      */
     @Contract(pure = true)
     public int[] getRow(final int row) throws ArrayIndexOutOfBoundsException {
-        final int[] rowCopy = new int[grid[row].length];
-        System.arraycopy(grid[row], 0, rowCopy, 0, grid[row].length);
+        final int[] rowCopy = new int[size];
+        for (int column = 0; column < size; column++) {
+            rowCopy[column] = get(row, column);
+        }
         return rowCopy;
     }
 
@@ -353,7 +580,7 @@ public class Sudoku implements Cloneable {
      */
     @Contract(pure = true)
     public int[][] getRows() {
-        return copyOf(grid, grid.length);
+        return range(0, size).mapToObj(this::getRow).toArray(int[][]::new);
     }
 
     /**
@@ -367,7 +594,7 @@ public class Sudoku implements Cloneable {
     public int[] getColumn(final int column) throws ArrayIndexOutOfBoundsException {
         final int[] columnCopy = new int[getHeight()];
         for (int row = 0; row < getHeight(); row++) {
-            columnCopy[row] = grid[row][column];
+            columnCopy[row] = get(row, column);
         }
 
         return columnCopy;
@@ -380,12 +607,30 @@ public class Sudoku implements Cloneable {
      */
     @Contract(pure = true)
     public int[][] getColumns() {
-        return range(0, grid.length).mapToObj(column -> stream(grid).mapToInt(row -> row[column]).toArray()).toArray(int[][]::new);
+        return range(0, size).mapToObj(this::getColumn).toArray(int[][]::new);
+    }
+
+    /**
+     * Get a copy of the digits of the grid, in row-major order.
+     *
+     * @return a copy of the digits of the grid
+     */
+    byte[] getCells() {
+        return cells.clone();
+    }
+
+    /**
+     * Copy the digits of the grid into the start of the given array, in row-major order.
+     *
+     * @param into the array to copy the digits into, with room for at least every cell
+     */
+    void copyCells(final byte[] into) {
+        System.arraycopy(cells, 0, into, 0, cells.length);
     }
 
     @Override
     public int hashCode() {
-        return deepHashCode(grid);
+        return Arrays.hashCode(cells);
     }
 
     @Contract(value = "null -> false", pure = true)
@@ -400,12 +645,12 @@ public class Sudoku implements Cloneable {
 
         final Sudoku sudoku = (Sudoku) o;
 
-        return deepEquals(grid, sudoku.grid);
+        return size == sudoku.size && Arrays.equals(cells, sudoku.cells);
     }
 
     @Override
     protected Sudoku clone() {
-        return new Sudoku(grid);
+        return new Sudoku(size, cells.clone());
     }
 
     /**
@@ -413,43 +658,31 @@ public class Sudoku implements Cloneable {
      */
     @Override
     public String toString() {
-        return String.format("Sudoku [%dx%d] = %s", getHeight(), getLength(), deepToString(grid));
+        final StringBuilder sb = new StringBuilder(32 + size * size * 3 + size * 4);
+        sb.append("Sudoku [").append(size).append('x').append(size).append("] = [");
+        for (int row = 0; row < size; row++) {
+            sb.append(row == 0 ? "[" : ", [");
+            for (int column = 0; column < size; column++) {
+                if (column > 0) {
+                    sb.append(", ");
+                }
+                sb.append(cells[row * size + column]);
+            }
+            sb.append(']');
+        }
+        return sb.append(']').toString();
     }
 
-
     /**
-     * Get a a textual copy of the current Sudoku grid.
+     * Get a a textual copy of the current Sudoku grid, in the {@link SudokuFormat#BOX} format.
+     * For grids larger than 9x9, each digit is right-aligned to the width of the largest digit.
      *
      * @return a textual copy of the current the Sudoku grid
      */
     public String print() {
-        final StringBuilder sb = new StringBuilder();
-        final int totalHeight = getHeight() + getSubGridHeight() + 1;
-        final int totalLength = getLength() + getSubGridLength() + 1;
-        for (int row = 0; row < totalHeight; row++) {
-            final boolean isDisplayRow = row % (getSubGridHeight() + 1) == 0;
-            for (int column = 0; column < totalLength; column++) {
-                final boolean isDisplayColumn = column % (getSubGridLength() + 1) == 0;
-                if (isDisplayRow) {
-                    if (isDisplayColumn) {
-                        if (column == 0) {
-                            sb.append(row == 0 ? "╔" : (row == totalHeight - 1 ? "╚" : "╠"));
-                        } else if (column == totalLength - 1) {
-                            sb.append(row == 0 ? "╗" : (row == totalHeight - 1 ? "╝" : "╣"));
-                        } else {
-                            sb.append(row == 0 ? "╦" : (row == totalHeight - 1 ? "╩" : "╬"));
-                        }
-                    } else {
-                        sb.append("═");
-                    }
-                } else if (isDisplayColumn) {
-                    sb.append("║");
-                } else {
-                    sb.append(grid[row - 1 - (row / (getSubGridHeight() + 1))][column - 1 - (column / (getSubGridLength() + 1))]);
-                }
-            }
-            sb.append("\n");
-        }
-        return sb.toString();
+        final CharBuffer buffer = CharBuffer.allocate(SudokuFormat.BOX.getMaxChars(size));
+        SudokuFormat.BOX.write(this, buffer);
+        ((Buffer) buffer).flip();
+        return buffer.toString();
     }
 }
@@ -0,0 +1,528 @@
+package com.rf5860.sudoku;
+
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * <h1>Sudoku Format</h1>
+ * <p>Text formats for Sudoku grids, read and written directly against caller-owned buffers, so a buffer can be reused
+ * for any number of grids without building a <code>String</code> for each one.</p>
+ * <p>A {@link CharBuffer} holds the text itself, and a {@link ByteBuffer} holds it encoded as UTF-8 (which is plain
+ * ASCII for every format except {@link #BOX}). Reading a grid advances the buffer past it, and past the end of its
+ * last line, so several grids can be read from one buffer in turn. Writing a grid which does not fit throws a
+ * {@link BufferOverflowException}; {@link #getMaxChars(int)} and {@link #getMaxBytes(int)} give the space needed.</p>
+ * <p>The single character formats write digits above 9 as the letters <code>a</code> to <code>z</code> (so a
+ * 16x16 digit is <code>1</code> to <code>9</code> or <code>a</code> to <code>g</code>), which limits them to grids of
+ * up to 25x25. Letters are read in either case.</p>
+ */
+public enum SudokuFormat {
+    /**
+     * <p>Each cell in row-major order on a single line, with <code>.</code> for blank cells (81 characters for a 9x9
+     * grid). <code>0</code> is also read as a blank cell, and spaces are ignored.</p>
+     * <pre>
+     * 53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79
+     * </pre>
+     */
+    LINE {
+        @Override
+        public int getMaxChars(final int length) {
+            return length * length + 1;
+        }
+
+        @Override
+        void write(final Sudoku sudoku, final Buffer out) {
+            final int length = requireSingleCharacter(sudoku.getLength());
+            for (int row = 0; row < length; row++) {
+                for (int column = 0; column < length; column++) {
+                    put(out, toChar(sudoku.get(row, column)));
+                }
+            }
+            put(out, '\n');
+        }
+
+        @Override
+        byte[] read(final Buffer in) {
+            while (true) {
+                final int start = in.position();
+                if (!in.hasRemaining()) {
+                    return null;
+                }
+                int count = 0;
+                for (int c = get(in); c != -1 && c != '\n'; c = get(in)) {
+                    count += isSpace(c) ? 0 : 1;
+                }
+                if (count == 0) {
+                    continue;
+                }
+                final int end = in.position();
+                in.position(start);
+                try {
+                    final int length = lengthOf(count, (int) Math.sqrt(count));
+                    final byte[] cells = new byte[count];
+                    for (int cell = 0; cell < count; ) {
+                        final int c = get(in);
+                        if (!isSpace(c)) {
+                            cells[cell] = fromChar(c, length, cell);
+                            cell++;
+                        }
+                    }
+                    return cells;
+                } finally {
+                    in.position(end);
+                }
+            }
+        }
+    },
+    /**
+     * <p>One row per line, with <code>|</code> between sub-grids and a line of <code>-</code> and <code>+</code>
+     * between bands, and <code>.</code> for blank cells. This also reads SadMan Sudoku <code>.sdk</code> files: lines
+     * starting with <code>#</code> are comments, and separators, spaces and blank lines are skipped.</p>
+     * <pre>
+     * 53.|.7.|...
+     * 6..|195|...
+     * .98|...|.6.
+     * ---+---+---
+     * </pre>
+     */
+    SDK {
+        @Override
+        public int getMaxChars(final int length) {
+            final int subGridLength = (int) Math.sqrt(length);
+            return (length + subGridLength - 1) * (length + subGridLength);
+        }
+
+        @Override
+        void write(final Sudoku sudoku, final Buffer out) {
+            final int length = requireSingleCharacter(sudoku.getLength());
+            final int subGridLength = sudoku.getSubGridLength();
+            for (int row = 0; row < length; row++) {
+                if (row > 0 && row % subGridLength == 0) {
+                    for (int column = 0; column < length; column++) {
+                        if (column > 0 && column % subGridLength == 0) {
+                            put(out, '+');
+                        }
+                        put(out, '-');
+                    }
+                    put(out, '\n');
+                }
+                for (int column = 0; column < length; column++) {
+                    if (column > 0 && column % subGridLength == 0) {
+                        put(out, '|');
+                    }
+                    put(out, toChar(sudoku.get(row, column)));
+                }
+                put(out, '\n');
+            }
+        }
+
+        @Override
+        byte[] read(final Buffer in) {
+            byte[] cells = null;
+            int length = 0;
+            int rows = 0;
+            while (true) {
+                final int start = in.position();
+                int c = get(in);
+                if (c == -1) {
+                    if (rows == 0) {
+                        return null;
+                    }
+                    throw new IllegalArgumentException(String.format("Grid ends after %d of %d rows", rows, length));
+                }
+                if (c == '#') {
+                    while (c != -1 && c != '\n') {
+                        c = get(in);
+                    }
+                    continue;
+                }
+                int count = 0;
+                for (; c != -1 && c != '\n'; c = get(in)) {
+                    count += isSeparator(c) ? 0 : 1;
+                }
+                if (count == 0) {
+                    continue;
+                }
+                final int end = in.position();
+                in.position(start);
+                try {
+                    if (cells == null) {
+                        length = lengthOf(count * count, count);
+                        cells = new byte[length * length];
+                    } else if (count != length) {
+                        throw new IllegalArgumentException(String.format("Row %d has %d cells, but should have %d", rows, count, length));
+                    }
+                    for (int cell = rows * length; cell < (rows + 1) * length; ) {
+                        c = get(in);
+                        if (!isSeparator(c)) {
+                            cells[cell] = fromChar(c, length, cell);
+                            cell++;
+                        }
+                    }
+                } finally {
+                    in.position(end);
+                }
+                if (++rows == length) {
+                    return cells;
+                }
+            }
+        }
+    },
+    /**
+     * <p>The grid drawn with box-drawing characters, as {@link Sudoku#print()} does, with <code>0</code> for blank
+     * cells. Digits are right-aligned to the width of the largest digit, so this works for grids of any size.</p>
+     * <pre>
+     * ╔═══╦═══╦═══╗
+     * ║530║070║000║
+     * ...
+     * ╚═══╩═══╩═══╝
+     * </pre>
+     */
+    BOX {
+        @Override
+        public int getMaxChars(final int length) {
+            final int subGridLength = (int) Math.sqrt(length);
+            return (length + subGridLength + 1) * (length * digitsOf(length) + subGridLength + 2);
+        }
+
+        @Override
+        public int getMaxBytes(final int length) {
+            // Every box-drawing character takes 3 bytes in UTF-8
+            return 3 * getMaxChars(length);
+        }
+
+        @Override
+        void write(final Sudoku sudoku, final Buffer out) {
+            final int length = sudoku.getLength();
+            final int subGridLength = sudoku.getSubGridLength();
+            final int width = digitsOf(length);
+            border(out, length, subGridLength, width, '╔', '╦', '╗');
+            for (int row = 0; row < length; row++) {
+                if (row > 0 && row % subGridLength == 0) {
+                    border(out, length, subGridLength, width, '╠', '╬', '╣');
+                }
+                for (int column = 0; column < length; column++) {
+                    if (column % subGridLength == 0) {
+                        put(out, '║');
+                    }
+                    final int digit = sudoku.get(row, column);
+                    for (int i = digitsOf(digit); i < width; i++) {
+                        put(out, ' ');
+                    }
+                    putDecimal(out, digit);
+                }
+                put(out, '║');
+                put(out, '\n');
+            }
+            border(out, length, subGridLength, width, '╚', '╩', '╝');
+        }
+
+        private void border(final Buffer out, final int length, final int subGridLength, final int width,
+                            final char first, final char middle, final char last) {
+            put(out, first);
+            for (int column = 0; column < length; column++) {
+                if (column > 0 && column % subGridLength == 0) {
+                    put(out, middle);
+                }
+                for (int i = 0; i < width; i++) {
+                    put(out, '═');
+                }
+            }
+            put(out, last);
+            put(out, '\n');
+        }
+
+        @Override
+        byte[] read(final Buffer in) {
+            int c = get(in);
+            while (c == '\n' || c == '\r') {
+                c = get(in);
+            }
+            if (c == -1) {
+                return null;
+            }
+            if (c != '╔') {
+                throw unexpected(in, c);
+            }
+            // The top border gives the size: sub-grids are split by ╦, and cells are as wide as the largest digit
+            int subGridLength = 1;
+            int bars = 0;
+            for (c = get(in); c == '═' || c == '╦'; c = get(in)) {
+                subGridLength += c == '╦' ? 1 : 0;
+                bars += c == '═' ? 1 : 0;
+            }
+            final int length = subGridLength * subGridLength;
+            if (c != '╗' || bars != length * digitsOf(length)) {
+                throw unexpected(in, c);
+            }
+            skipLine(in);
+            final byte[] cells = new byte[lengthOf(length * length, length) * length];
+            for (int row = 0; ; ) {
+                c = get(in);
+                if (c == '║' && row < length) {
+                    readRow(in, cells, row++, length, subGridLength);
+                } else if (c == '╠' && row > 0 && row < length) {
+                    skipLine(in);
+                } else if (c == '╚' && row == length) {
+                    skipLine(in);
+                    return cells;
+                } else {
+                    throw unexpected(in, c);
+                }
+            }
+        }
+
+        /**
+         * Read the digits of one row, after its opening ║, to the end of the line.
+         */
+        private void readRow(final Buffer in, final byte[] cells, final int row, final int length, final int subGridLength) {
+            final int width = digitsOf(length);
+            for (int column = 0; column < length; column++) {
+                int c;
+                if (column > 0 && column % subGridLength == 0 && (c = get(in)) != '║') {
+                    throw unexpected(in, c);
+                }
+                int digit = 0;
+                for (int i = 0; i < width; i++) {
+                    c = get(in);
+                    if (c >= '0' && c <= '9') {
+                        digit = digit * 10 + c - '0';
+                    } else if (c != ' ') {
+                        throw unexpected(in, c);
+                    }
+                }
+                if (digit > length) {
+                    skipLine(in);
+                    throw new IllegalArgumentException(String.format("Invalid digit %d at [%d][%d]", digit, row, column));
+                }
+                cells[row * length + column] = (byte) digit;
+            }
+            final int c = get(in);
+            if (c != '║') {
+                throw unexpected(in, c);
+            }
+            skipLine(in);
+        }
+    };
+
+    private static final int MAX_SINGLE_CHARACTER = Character.MAX_RADIX - 1;
+
+    /**
+     * Get the most characters one grid can be written as, to size a reusable buffer.
+     *
+     * @param length the length of the grid
+     * @return the most characters a grid of the given length is written as
+     */
+    public abstract int getMaxChars(int length);
+
+    /**
+     * Get the most UTF-8 bytes one grid can be written as, to size a reusable buffer.
+     *
+     * @param length the length of the grid
+     * @return the most bytes a grid of the given length is written as
+     */
+    public int getMaxBytes(final int length) {
+        return getMaxChars(length);
+    }
+
+    /**
+     * Write a grid to the buffer, at its position, and advance the position past it.
+     *
+     * @param sudoku the grid to write
+     * @param out    the buffer to write to
+     * @throws BufferOverflowException  if the grid does not fit in the buffer
+     * @throws IllegalArgumentException if the grid is too large for a single character format
+     */
+    public void write(@NotNull final Sudoku sudoku, @NotNull final CharBuffer out)
+        throws BufferOverflowException, IllegalArgumentException {
+        write(sudoku, (Buffer) out);
+    }
+
+    /**
+     * Write a grid to the buffer as UTF-8, at its position, and advance the position past it.
+     *
+     * @param sudoku the grid to write
+     * @param out    the buffer to write to
+     * @throws BufferOverflowException  if the grid does not fit in the buffer
+     * @throws IllegalArgumentException if the grid is too large for a single character format
+     */
+    public void write(@NotNull final Sudoku sudoku, @NotNull final ByteBuffer out)
+        throws BufferOverflowException, IllegalArgumentException {
+        write(sudoku, (Buffer) out);
+    }
+
+    /**
+     * Read the next grid from the buffer, and advance the position past it.
+     *
+     * @param in the buffer to read from
+     * @return the grid, or <code>null</code> if the buffer only has blank lines left
+     * @throws IllegalArgumentException if the text is not a valid grid. The buffer is left after the line which
+     *                                  could not be read
+     */
+    @Nullable
+    public Sudoku read(@NotNull final CharBuffer in) throws IllegalArgumentException {
+        return toSudoku(read((Buffer) in));
+    }
+
+    /**
+     * Read the next grid from the buffer of UTF-8 text, and advance the position past it.
+     *
+     * @param in the buffer to read from
+     * @return the grid, or <code>null</code> if the buffer only has blank lines left
+     * @throws IllegalArgumentException if the text is not a valid grid. The buffer is left after the line which
+     *                                  could not be read
+     */
+    @Nullable
+    public Sudoku read(@NotNull final ByteBuffer in) throws IllegalArgumentException {
+        return toSudoku(read((Buffer) in));
+    }
+
+    /**
+     * Write a grid to a {@link CharBuffer} or a {@link ByteBuffer}.
+     */
+    abstract void write(Sudoku sudoku, Buffer out);
+
+    /**
+     * Read the digits of the next grid from a {@link CharBuffer} or a {@link ByteBuffer}.
+     *
+     * @return the digits in row-major order, or <code>null</code> if there are no more grids
+     */
+    abstract byte[] read(Buffer in);
+
+    private static Sudoku toSudoku(final byte[] cells) {
+        return cells == null ? null : new Sudoku((int) Math.sqrt(cells.length), cells);
+    }
+
+    /**
+     * Put a character, encoding it as UTF-8 for a byte buffer.
+     */
+    static void put(final Buffer out, final char c) {
+        if (out instanceof CharBuffer) {
+            ((CharBuffer) out).put(c);
+            return;
+        }
+        final ByteBuffer bytes = (ByteBuffer) out;
+        if (c < 0x80) {
+            bytes.put((byte) c);
+        } else if (c < 0x800) {
+            bytes.put((byte) (0xC0 | c >> 6));
+            bytes.put((byte) (0x80 | c & 0x3F));
+        } else {
+            bytes.put((byte) (0xE0 | c >> 12));
+            bytes.put((byte) (0x80 | c >> 6 & 0x3F));
+            bytes.put((byte) (0x80 | c & 0x3F));
+        }
+    }
+
+    /**
+     * Get the next character, decoding it from UTF-8 for a byte buffer.
+     *
+     * @return the character, or <code>-1</code> at the end of the buffer
+     */
+    static int get(final Buffer in) {
+        if (!in.hasRemaining()) {
+            return -1;
+        }
+        if (in instanceof CharBuffer) {
+            return ((CharBuffer) in).get();
+        }
+        final ByteBuffer bytes = (ByteBuffer) in;
+        final int first = bytes.get() & 0xFF;
+        if (first < 0x80) {
+            return first;
+        }
+        final int continuations = first >= 0xE0 ? 2 : first >= 0xC0 ? 1 : -1;
+        if (continuations < 0 || first >= 0xF0 || bytes.remaining() < continuations) {
+            throw new IllegalArgumentException("Malformed UTF-8 at byte " + (bytes.position() - 1));
+        }
+        int c = first & (continuations == 1 ? 0x1F : 0x0F);
+        for (int i = 0; i < continuations; i++) {
+            c = c << 6 | bytes.get() & 0x3F;
+        }
+        return c;
+    }
+
+    private static void putDecimal(final Buffer out, final int digit) {
+        if (digit >= 10) {
+            putDecimal(out, digit / 10);
+        }
+        put(out, (char) ('0' + digit % 10));
+    }
+
+    /**
+     * Skip the rest of a line which could not be read, and describe the character it failed at.
+     */
+    private static IllegalArgumentException unexpected(final Buffer in, final int c) {
+        if (c == -1) {
+            return new IllegalArgumentException("Grid ends before its last row");
+        }
+        if (c != '\n') {
+            skipLine(in);
+        }
+        return new IllegalArgumentException(String.format("Unexpected character '%c' in a box grid", (char) c));
+    }
+
+    private static void skipLine(final Buffer in) {
+        for (int c = get(in); c != -1 && c != '\n'; c = get(in)) {
+            // Skip to the end of the line
+        }
+    }
+
+    private static boolean isSpace(final int c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    private static boolean isSeparator(final int c) {
+        return isSpace(c) || c == '|' || c == '-' || c == '+' || c == '=';
+    }
+
+    /**
+     * Get the number of decimal digits in a number.
+     */
+    static int digitsOf(final int number) {
+        int digits = 1;
+        for (int rest = number / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private static int requireSingleCharacter(final int length) throws IllegalArgumentException {
+        if (length > MAX_SINGLE_CHARACTER) {
+            throw new IllegalArgumentException(String.format("A %dx%d grid can not be written one character per cell", length, length));
+        }
+        return length;
+    }
+
+    /**
+     * Find the length of a grid from its number of cells.
+     *
+     * @throws IllegalArgumentException if the cells do not make a valid grid
+     */
+    private static int lengthOf(final int cells, final int length) throws IllegalArgumentException {
+        final int root = (int) Math.sqrt(length);
+        if (length * length != cells || root * root != length || length > Sudoku.MAX_DIGIT) {
+            throw new IllegalArgumentException(String.format("%d cells do not make a Sudoku grid", cells));
+        }
+        return length;
+    }
+
+    private static char toChar(final int digit) {
+        return digit == 0 ? '.' : Character.forDigit(digit, Character.MAX_RADIX);
+    }
+
+    private static byte fromChar(final int c, final int length, final int cell) throws IllegalArgumentException {
+        if (c == '.' || c == '0') {
+            return 0;
+        }
+        final int digit = c < 0 ? -1 : Character.digit((char) c, Character.MAX_RADIX);
+        if (digit < 1 || digit > length) {
+            throw new IllegalArgumentException(String.format("Invalid digit '%c' at [%d][%d]", (char) c, cell / length, cell % length));
+        }
+        return (byte) digit;
+    }
+}
@@ -0,0 +1,271 @@
+package com.rf5860.sudoku;
+
+import static java.util.Arrays.copyOf;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h1>Sudoku Matrix</h1>
+ * <p>The exact cover matrix for Sudoku grids of a given length, which can be loaded with one puzzle after another.</p>
+ * <p>Each (row, column, digit) triple is a row in the matrix, satisfying four constraints:
+ * the cell is filled, and the digit appears in the row, the column and the sub-grid.</p>
+ * <p>The structure of the matrix only depends on the length of the grid, so it is built once per length as a template.
+ * Each instance starts as a copy of the template. Loading a puzzle covers the rows of its filled cells, and hides the
+ * rows of any candidates removed by {@link ConstraintPropagation}. Restoring undoes exactly those changes, so the cost
+ * of each puzzle is proportional to its filled cells and eliminated candidates, rather than to the size of the matrix.</p>
+ * <p>Instances are not thread-safe. {@link #acquire(int)} lends out an instance pooled for the current thread.</p>
+ */
+final class SudokuMatrix {
+    private static final int CONSTRAINTS = 4;
+    private static final Map<Integer, DancingLinks> TEMPLATES = new ConcurrentHashMap<>();
+    private static final ThreadLocal<SudokuMatrix[]> POOL = ThreadLocal.withInitial(() -> new SudokuMatrix[0]);
+
+    static {
+        TEMPLATES.put(Sudoku.DEFAULT_SIZE, buildMatrix(Sudoku.DEFAULT_SIZE));
+    }
+
+    final int length;
+    final DancingLinks links;
+    private final ConstraintPropagation propagation;
+    private final AlgorithmX search;
+    private final int[] selected;
+    private final int[] hidden;
+    private int selectedCount;
+    private int hiddenCount;
+    private boolean pooled;
+    private boolean inUse;
+
+    private SudokuMatrix(final int length) {
+        this.length = length;
+        links = new DancingLinks(TEMPLATES.computeIfAbsent(length, SudokuMatrix::buildMatrix));
+        propagation = length <= ConstraintPropagation.MAX_LENGTH ? new ConstraintPropagation(length) : null;
+        search = new AlgorithmX(links, length * length);
+        selected = new int[length * length];
+        hidden = new int[length * length * length];
+    }
+
+    /**
+     * Create a new matrix, which is not pooled.
+     *
+     * @param length the length of the Sudoku grid
+     * @return a new, empty matrix
+     */
+    static SudokuMatrix create(final int length) {
+        return new SudokuMatrix(length);
+    }
+
+    /**
+     * Borrow the matrix pooled for the current thread. It must be given back with {@link #release()} once the solve
+     * is finished. If the pooled matrix is already in use, a new one is created instead.
+     *
+     * @param length the length of the Sudoku grid
+     * @return an empty matrix
+     */
+    static SudokuMatrix acquire(final int length) {
+        SudokuMatrix[] pool = POOL.get();
+        if (length >= pool.length) {
+            pool = copyOf(pool, length + 1);
+            POOL.set(pool);
+        }
+        SudokuMatrix matrix = pool[length];
+        if (matrix == null) {
+            matrix = new SudokuMatrix(length);
+            matrix.pooled = true;
+            pool[length] = matrix;
+        }
+        if (matrix.inUse) {
+            return new SudokuMatrix(length);
+        }
+        matrix.inUse = true;
+        return matrix;
+    }
+
+    /**
+     * Restore the matrix, and return it to the pool of the current thread.
+     */
+    void release() {
+        restore();
+        if (pooled) {
+            inUse = false;
+        }
+    }
+
+    /**
+     * <p>Load a puzzle into the matrix.</p>
+     * <p>The grid is first reduced by {@link ConstraintPropagation} (for grids small enough to support it). The rows of
+     * every filled cell are then selected, and the rows of every candidate removed by propagation are hidden.</p>
+     *
+     * @param cells    the digits of the grid in row-major order, with <code>0</code> for blank cells.
+     *                 Any cells deduced by propagation are filled in place
+     * @param selector the strategy for the search to choose columns with
+     * @return <code>false</code> if the grid has no solutions, <code>true</code> otherwise
+     * @throws IllegalArgumentException if any digit is outside the range of the grid
+     */
+    boolean load(final byte[] cells, final ColumnSelector selector) throws IllegalArgumentException {
+        restore();
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] < 0 || cells[cell] > length) {
+                throw new IllegalArgumentException(String.format("Invalid digit %d at [%d][%d]", cells[cell], cell / length, cell % length));
+            }
+        }
+        if (propagation != null && !propagation.apply(cells)) {
+            return false;
+        }
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] != 0) {
+                final int node = nodeOf(cell, cells[cell]);
+                if (!links.isRowAvailable(node)) {
+                    restore();
+                    return false;
+                }
+                links.cover(links.column[node]);
+                links.select(node);
+                selected[selectedCount++] = node;
+            }
+        }
+        if (propagation != null) {
+            for (int cell = 0; cell < cells.length; cell++) {
+                long eliminated = propagation.eliminated(cell);
+                while (eliminated != 0) {
+                    final int digit = Long.numberOfTrailingZeros(eliminated);
+                    eliminated &= eliminated - 1;
+                    final int node = nodeOf(cell, digit);
+                    links.hide(node);
+                    hidden[hiddenCount++] = node;
+                }
+            }
+        }
+        search.setColumnSelector(selector);
+        return true;
+    }
+
+    /**
+     * Load a puzzle into the matrix, timing it and recording the search in the stats if there are any.
+     *
+     * @param cells    the digits of the grid in row-major order, with <code>0</code> for blank cells.
+     *                 Any cells deduced by propagation are filled in place
+     * @param selector the strategy for the search to choose columns with
+     * @param stats    the stats to record the search in, or <code>null</code>
+     * @return <code>false</code> if the grid has no solutions, <code>true</code> otherwise
+     * @throws IllegalArgumentException if any digit is outside the range of the grid
+     */
+    boolean load(final byte[] cells, final ColumnSelector selector, final SolverStats stats) throws IllegalArgumentException {
+        if (stats == null) {
+            return load(cells, selector);
+        }
+        final long start = System.nanoTime();
+        final boolean loaded = load(cells, selector);
+        stats.matrixLoaded(System.nanoTime() - start);
+        search.setStats(stats);
+        return loaded;
+    }
+
+    /**
+     * Get the search over the loaded puzzle. The search is reset when the matrix is restored.
+     *
+     * @return the search over the blank cells
+     */
+    AlgorithmX search() {
+        return search;
+    }
+
+    /**
+     * Undo the search and the loaded puzzle, in the reverse order they were applied.
+     */
+    void restore() {
+        search.reset();
+        while (hiddenCount > 0) {
+            links.unhide(hidden[--hiddenCount]);
+        }
+        while (selectedCount > 0) {
+            final int node = selected[--selectedCount];
+            links.deselect(node);
+            links.uncover(links.column[node]);
+        }
+    }
+
+    /**
+     * Select the row of one more filled cell, on top of those already selected, without propagating it. This must
+     * only be called while nothing is hidden and the search is reset.
+     *
+     * @param cell  the index of the cell, in row-major order
+     * @param digit the (1-based) digit of the cell
+     * @return <code>false</code> if the digit conflicts with a selected row, <code>true</code> otherwise
+     */
+    boolean place(final int cell, final int digit) {
+        final int node = nodeOf(cell, digit);
+        if (!links.isRowAvailable(node)) {
+            return false;
+        }
+        links.cover(links.column[node]);
+        links.select(node);
+        selected[selectedCount++] = node;
+        return true;
+    }
+
+    /**
+     * Undo the most recent {@link #place(int, int)}.
+     */
+    void unplace() {
+        final int node = selected[--selectedCount];
+        links.deselect(node);
+        links.uncover(links.column[node]);
+    }
+
+    /**
+     * Get the first node of the matrix row for the given cell and (1-based) digit.
+     */
+    private int nodeOf(final int cell, final int digit) {
+        return CONSTRAINTS * length * length + 1 + CONSTRAINTS * (cell * length + digit - 1);
+    }
+
+    /**
+     * Set the digits of the (row, column, digit) triples selected by the search.
+     *
+     * @param cells  the digits of the grid in row-major order
+     * @param length the length of the Sudoku grid
+     * @param search the search to read the selected rows from
+     */
+    static void fill(final byte[] cells, final int length, final AlgorithmX search) {
+        for (int level = 0; level < search.depth(); level++) {
+            fill(cells, length, search.row(level));
+        }
+    }
+
+    /**
+     * Set the digit of the (row, column, digit) triple of the given matrix row.
+     *
+     * @param cells  the digits of the grid in row-major order
+     * @param length the length of the Sudoku grid
+     * @param rowId  the identifier of the matrix row
+     */
+    static void fill(final byte[] cells, final int length, final int rowId) {
+        cells[rowId / length] = (byte) (rowId % length + 1);
+    }
+
+    /**
+     * Build the template exact cover matrix for a Sudoku grid with the given length.
+     *
+     * @param length the length of the Sudoku grid
+     * @return the exact cover matrix, with every (row, column, digit) triple
+     */
+    private static DancingLinks buildMatrix(final int length) {
+        final int cells = length * length;
+        final int subGridLength = (int) Math.sqrt(length);
+        final DancingLinks links = new DancingLinks(CONSTRAINTS * cells, CONSTRAINTS * cells * length);
+        for (int row = 0; row < length; row++) {
+            for (int column = 0; column < length; column++) {
+                final int subGrid = (row / subGridLength) * subGridLength + column / subGridLength;
+                for (int digit = 0; digit < length; digit++) {
+                    links.addRow((row * length + column) * length + digit,
+                                 row * length + column,
+                                 cells + row * length + digit,
+                                 2 * cells + column * length + digit,
+                                 3 * cells + subGrid * length + digit);
+                }
+            }
+        }
+        return links;
+    }
+}
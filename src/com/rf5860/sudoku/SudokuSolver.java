@@ -1,13 +1,27 @@
 package com.rf5860.sudoku;
 
-import java.util.ArrayList;
+import static java.util.stream.Collectors.toList;
+
 import java.util.List;
+import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.jetbrains.annotations.NotNull;
 
 public class SudokuSolver {
     private final Sudoku grid;
     private Sudoku possibleSolution;
+    private ColumnSelector columnSelector;
+    private SolverEngine engine;
+    private boolean columnSelectorSet;
+    private boolean engineSet;
+    private final List<SolverListener> listeners = new CopyOnWriteArrayList<>();
 
     /**
      * Clone and return the Sudoku instance.
@@ -25,13 +39,362 @@ public class SudokuSolver {
         return possibleSolution.clone();
     }
 
+    /**
+     * Get the strategy the search uses to choose which constraint to branch on next.
+     * @return the column selector
+     */
+    public ColumnSelector getColumnSelector() {
+        return columnSelector;
+    }
+
+    /**
+     * <p>Set the strategy the search uses to choose which constraint to branch on next. This applies to every solve
+     * started after the call. Defaults to {@link ColumnSelector#forLength(int)} for the length of the grid.</p>
+     * <p>If no engine has been set, the engine becomes {@link SolverEngine#forLength(int, ColumnSelector)}, which falls
+     * back to {@link SolverEngine#DANCING_LINKS} when the default engine does not support the selector.</p>
+     * @param columnSelector the column selector
+     * @throws IllegalArgumentException if an engine has been set which does not support the selector
+     */
+    public void setColumnSelector(@NotNull final ColumnSelector columnSelector) throws IllegalArgumentException {
+        if (engineSet) {
+            requireSupported(engine, columnSelector);
+        } else {
+            engine = SolverEngine.forLength(grid.getLength(), columnSelector);
+        }
+        this.columnSelector = columnSelector;
+        columnSelectorSet = true;
+    }
+
+    /**
+     * Get the engine which finds and counts solutions.
+     * @return the solver engine
+     */
+    public SolverEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Set the engine which finds and counts solutions, for {@link #solve()}, {@link #solve(SolveOptions)} and
+     * {@link #countSolutions(int)}. Defaults to {@link SolverEngine#forLength(int, ColumnSelector)} for the length of
+     * the grid and the column selector.
+     * @param engine the solver engine
+     * @throws IllegalArgumentException if a column selector has been set which the engine does not support
+     */
+    public void setEngine(@NotNull final SolverEngine engine) throws IllegalArgumentException {
+        if (columnSelectorSet) {
+            requireSupported(engine, columnSelector);
+        }
+        this.engine = engine;
+        engineSet = true;
+    }
+
+    static void requireSupported(final SolverEngine engine, final ColumnSelector columnSelector)
+        throws IllegalArgumentException {
+        if (!engine.supports(columnSelector)) {
+            throw new IllegalArgumentException(engine + " does not support the " + columnSelector + " column selector");
+        }
+    }
+
+    /**
+     * <p>Add a listener, to be notified as each solve (or count of solutions) starts and finishes.</p>
+     * <p>{@link SolverStats} are only collected while there is at least one listener. Lazily enumerated
+     * {@link #solutions()} are not reported.</p>
+     * @param listener the listener to add
+     */
+    public void addListener(@NotNull final SolverListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener added by {@link #addListener(SolverListener)}.
+     * @param listener the listener to remove
+     */
+    public void removeListener(@NotNull final SolverListener listener) {
+        listeners.remove(listener);
+    }
+
     /**
      * Generate a list of all possible solutions for the Sudoku puzzle.
      * @return a list of all possible solutions
      */
     public List<Sudoku> generateAlSolutions() {
-        // TODO: Implement
-        return new ArrayList<>();
+        return solutions().collect(toList());
+    }
+
+    /**
+     * <p>Lazily enumerate the solutions for the Sudoku puzzle.</p>
+     * <p>Solutions are found on demand, as the stream is consumed. The search stops as soon as the stream does,
+     * so short-circuiting operations (such as <code>limit(n)</code> or <code>findFirst()</code>) only pay for the
+     * solutions they read.</p>
+     * @return a sequential, ordered stream of the solutions
+     */
+    public Stream<Sudoku> solutions() {
+        return StreamSupport.stream(new Solutions(), false);
+    }
+
+    /**
+     * Start an enumeration of the solutions of the Sudoku puzzle, which can be suspended, checkpointed to disk and
+     * resumed later (see {@link SolutionEnumerator}).
+     * @return an enumeration of the solutions, using the current column selector
+     */
+    @NotNull
+    public SolutionEnumerator enumerate() {
+        return new SolutionEnumerator(grid, columnSelector);
+    }
+
+    /**
+     * Find the first solution for the Sudoku puzzle, and store it as the possible solution.
+     * @return <code>true</code> if a solution was found, <code>false</code> if the puzzle has no solutions
+     */
+    public boolean solve() {
+        final byte[] cells = cells();
+        final SolverStats stats = startStats(false);
+        final SolveResult.Status status = solve(cells, stats, null);
+        if (status == SolveResult.Status.SOLVED) {
+            possibleSolution = toSudoku(cells);
+        }
+        return status == SolveResult.Status.SOLVED;
+    }
+
+    /**
+     * <p>Find the first solution for the Sudoku puzzle within the given limits, and store it as the possible solution.</p>
+     * <p>If a limit is reached first, the search is stopped and the result says which. Its stats cover the search up to
+     * that point, and are collected whether or not the solver has listeners.</p>
+     * @param options the limits of the solve
+     * @return the status of the solve, with the solution if one was found
+     */
+    @NotNull
+    public SolveResult solve(@NotNull final SolveOptions options) {
+        final byte[] cells = cells();
+        final SolverStats stats = startStats(true);
+        final SolveResult.Status status = solve(cells, stats, options.isLimited() ? new SearchBudget(options) : null);
+        if (status != SolveResult.Status.SOLVED) {
+            return new SolveResult(status, null, stats);
+        }
+        possibleSolution = toSudoku(cells);
+        return new SolveResult(status, possibleSolution, stats);
+    }
+
+    /**
+     * Search for the first solution, filling it into the cells.
+     */
+    private SolveResult.Status solve(final byte[] cells, final SolverStats stats, final SearchBudget budget) {
+        try {
+            if (engine.search(cells, grid.getLength(), columnSelector, stats, budget, 1) == 1) {
+                return SolveResult.Status.SOLVED;
+            }
+            return budget != null && budget.getReason() != null ? budget.getReason() : SolveResult.Status.NO_SOLUTION;
+        } finally {
+            finishStats(stats);
+        }
+    }
+
+    /**
+     * <p>Count the solutions for the Sudoku puzzle, stopping once the limit is reached.</p>
+     * <p>Solutions are counted directly from the search, without building a Sudoku for each one.</p>
+     * @param limit the maximum number of solutions to count
+     * @return the number of solutions, or <code>limit</code> if there are at least that many
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    public int countSolutions(final int limit) throws IllegalArgumentException {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        if (limit == 0) {
+            return 0;
+        }
+        final SolverStats stats = startStats(false);
+        try {
+            return engine.search(cells(), grid.getLength(), columnSelector, stats, null, limit);
+        } finally {
+            finishStats(stats);
+        }
+    }
+
+    /**
+     * Check if the Sudoku puzzle has exactly one solution. The search stops as soon as a second solution is found.
+     * @return <code>true</code> if the puzzle has a unique solution, <code>false</code> otherwise
+     */
+    public boolean hasUniqueSolution() {
+        return countSolutions(2) == 1;
+    }
+
+    /**
+     * <p>Count the solutions for the Sudoku puzzle in parallel, stopping once the limit is reached.</p>
+     * <p>The top levels of the search tree are split into sub-trees, which are searched by the given pool.</p>
+     * @param pool  the pool to search with
+     * @param limit the maximum number of solutions to count
+     * @return the number of solutions, or <code>limit</code> if there are at least that many
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    public long countSolutions(@NotNull final ForkJoinPool pool, final long limit) throws IllegalArgumentException {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        if (limit == 0) {
+            return 0;
+        }
+        final SolverStats stats = startStats(false);
+        final SudokuMatrix matrix = SudokuMatrix.acquire(grid.getLength());
+        try {
+            if (!matrix.load(cells(), columnSelector, stats)) {
+                return 0;
+            }
+            final AtomicLong found = new AtomicLong();
+            return pool.invoke(new ParallelSearch<>(matrix.links, maxDepth(), columnSelector, stats, (prefix, search) -> {
+                long count = 0;
+                while (found.get() < limit && search.next() && found.incrementAndGet() <= limit) {
+                    count++;
+                }
+                return count;
+            }, Long::sum));
+        } finally {
+            matrix.release();
+            finishStats(stats);
+        }
+    }
+
+    /**
+     * <p>Search for every solution to the Sudoku puzzle in parallel, passing each to the given action.</p>
+     * <p>When <code>ordered</code> is <code>false</code>, the action is called concurrently from the threads of the
+     * pool, as solutions are found, so it must be thread-safe.<br>
+     * When <code>ordered</code> is <code>true</code>, the action is called from the current thread, in the same order
+     * as {@link #solutions()}. The solutions of each sub-tree are passed on as soon as the sub-trees before it are
+     * done, and a sub-tree which gets ahead of the action waits once it has buffered
+     * {@value OrderedResults#CAPACITY} solutions. If the action throws, the search is stopped and the exception is
+     * rethrown.</p>
+     * @param pool    the pool to search with
+     * @param ordered whether to pass solutions to the action in a deterministic order
+     * @param action  the action to perform for each solution
+     */
+    public void forEachSolution(@NotNull final ForkJoinPool pool, final boolean ordered,
+                                @NotNull final Consumer<? super Sudoku> action) {
+        final byte[] cells = cells();
+        final SolverStats stats = startStats(false);
+        final SudokuMatrix matrix = SudokuMatrix.acquire(grid.getLength());
+        try {
+            if (!matrix.load(cells, columnSelector, stats)) {
+                return;
+            }
+            final DancingLinks links = matrix.links;
+            if (!ordered) {
+                pool.invoke(new ParallelSearch<Void>(links, maxDepth(), columnSelector, stats, (prefix, search) -> {
+                    while (search.next()) {
+                        action.accept(toSudoku(cells, links, prefix, search));
+                    }
+                    return null;
+                }, (left, right) -> null));
+                return;
+            }
+            final OrderedResults<Sudoku> results = new OrderedResults<>();
+            final ForkJoinTask<Void> task = pool.submit(ParallelSearch.ordered(links, maxDepth(), columnSelector, stats,
+                                                                               results, (prefix, search, found) -> {
+                while (search.next()) {
+                    if (!found.add(toSudoku(cells, links, prefix, search))) {
+                        return;
+                    }
+                }
+            }));
+            try {
+                results.drain(action);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // The sub-trees copy the matrix, so wait for them before it is released
+                results.cancel();
+                task.quietlyJoin();
+            }
+        } finally {
+            matrix.release();
+            finishStats(stats);
+        }
+    }
+
+    /**
+     * Notify the listeners that a solve is starting, and create the stats to record it in.
+     * @param required whether the caller needs the stats, even if there are no listeners
+     * @return the stats to record the solve in, or <code>null</code> if they are not needed
+     */
+    private SolverStats startStats(final boolean required) {
+        if (listeners.isEmpty()) {
+            return required ? new SolverStats(grid.getLength()) : null;
+        }
+        listeners.forEach(SolverListener::solveStarted);
+        return new SolverStats(grid.getLength());
+    }
+
+    /**
+     * Stop timing the search, and pass the stats to the listeners.
+     */
+    private void finishStats(final SolverStats stats) {
+        if (stats != null) {
+            stats.searchFinished();
+            for (final SolverListener listener : listeners) {
+                listener.solveFinished(stats);
+            }
+        }
+    }
+
+    /**
+     * Get a copy of the puzzle's digits, in row-major order.
+     */
+    private byte[] cells() {
+        return grid.getCells();
+    }
+
+    /**
+     * Get the maximum depth of a search, I.e. the number of cells in the grid.
+     */
+    private int maxDepth() {
+        return grid.getLength() * grid.getLength();
+    }
+
+    /**
+     * Fill the open cells of the puzzle from the rows selected above a sub-tree, and by the search of the sub-tree.
+     */
+    private Sudoku toSudoku(final byte[] cells, final DancingLinks links, final int[] prefix, final AlgorithmX search) {
+        final int length = grid.getLength();
+        final byte[] solution = cells.clone();
+        for (final int node : prefix) {
+            SudokuMatrix.fill(solution, length, links.row[node]);
+        }
+        SudokuMatrix.fill(solution, length, search);
+        return toSudoku(solution);
+    }
+
+    private Sudoku toSudoku(final byte[] cells) {
+        return new Sudoku(grid.getLength(), cells);
+    }
+
+    /**
+     * Solutions of the puzzle, found one at a time as they are requested.
+     */
+    private final class Solutions extends Spliterators.AbstractSpliterator<Sudoku> {
+        private byte[] cells;
+        private AlgorithmX search;
+        private boolean started;
+
+        private Solutions() {
+            super(Long.MAX_VALUE, ORDERED | DISTINCT | NONNULL);
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super Sudoku> action) {
+            if (!started) {
+                started = true;
+                cells = cells();
+                final SudokuMatrix matrix = SudokuMatrix.create(grid.getLength());
+                search = matrix.load(cells, columnSelector) ? matrix.search() : null;
+            }
+            if (search == null || !search.next()) {
+                search = null;
+                return false;
+            }
+            final byte[] solution = cells.clone();
+            SudokuMatrix.fill(solution, grid.getLength(), search);
+            action.accept(toSudoku(solution));
+            return true;
+        }
     }
 
     /**
@@ -40,6 +403,8 @@ public class SudokuSolver {
      */
     public SudokuSolver(@NotNull final Sudoku sudoku) {
         this.grid = sudoku.clone();
-        possibleSolution = sudoku.clone();
+        possibleSolution = grid;
+        columnSelector = ColumnSelector.forLength(sudoku.getLength());
+        engine = SolverEngine.forLength(sudoku.getLength());
     }
 }
@@ -0,0 +1,142 @@
+package com.rf5860.sudoku;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h1>Sudoku Transform</h1>
+ * <p>A symmetry of Sudoku grids, which maps any valid grid to another valid grid. A transform is made up of:</p>
+ * <ul>
+ * <li>An optional transposition</li>
+ * <li>A permutation of the rows, which keeps the rows of each band together (bands may be reordered)</li>
+ * <li>A permutation of the columns, which keeps the columns of each stack together (stacks may be reordered)</li>
+ * <li>A relabeling of the digits</li>
+ * </ul>
+ * <p>Transforms are applied in that order, so cell <code>[row][column]</code> of the result holds the relabeled digit
+ * from row <code>rows[row]</code> and column <code>columns[column]</code> of the (possibly transposed) grid.</p>
+ */
+public final class SudokuTransform {
+    private final int length;
+    private final boolean transpose;
+    private final int[] rows;
+    private final int[] columns;
+    private final int[] digits;
+    private final int[] inverseDigits;
+
+    /**
+     * Constructs a transform. The arrays are owned by the transform, and must not be modified afterwards.
+     *
+     * @param transpose whether the grid is transposed first
+     * @param rows      the row of the transposed grid for each row of the result
+     * @param columns   the column of the transposed grid for each column of the result
+     * @param digits    the digit of the result for each digit of the grid, with <code>digits[0] == 0</code>
+     */
+    SudokuTransform(final boolean transpose, final int[] rows, final int[] columns, final int[] digits) {
+        this.length = rows.length;
+        this.transpose = transpose;
+        this.rows = rows;
+        this.columns = columns;
+        this.digits = digits;
+        inverseDigits = new int[digits.length];
+        for (int digit = 0; digit < digits.length; digit++) {
+            inverseDigits[digits[digit]] = digit;
+        }
+    }
+
+    /**
+     * Check if the grid is transposed (reflected in its main diagonal) before its rows and columns are permuted.
+     *
+     * @return <code>true</code> if the grid is transposed, <code>false</code> otherwise
+     */
+    public boolean isTransposed() {
+        return transpose;
+    }
+
+    /**
+     * Get the row of the (possibly transposed) grid which becomes the given row.
+     *
+     * @param row the row of the transformed grid
+     * @return the row it is taken from
+     */
+    public int getRow(final int row) {
+        return rows[row];
+    }
+
+    /**
+     * Get the column of the (possibly transposed) grid which becomes the given column.
+     *
+     * @param column the column of the transformed grid
+     * @return the column it is taken from
+     */
+    public int getColumn(final int column) {
+        return columns[column];
+    }
+
+    /**
+     * Get the digit the given digit is relabeled to. Blank cells (<code>0</code>) are always left blank.
+     *
+     * @param digit the digit of the original grid
+     * @return the digit of the transformed grid
+     */
+    public int getDigit(final int digit) {
+        return digits[digit];
+    }
+
+    /**
+     * Apply the transform to a grid.
+     *
+     * @param sudoku the grid to transform
+     * @return a new, transformed grid
+     * @throws IllegalArgumentException if the grid is not the length of the transform, or has digits outside of it
+     */
+    @NotNull
+    public Sudoku apply(@NotNull final Sudoku sudoku) throws IllegalArgumentException {
+        final byte[] cells = cellsOf(sudoku);
+        final byte[] transformed = new byte[cells.length];
+        for (int row = 0; row < length; row++) {
+            for (int column = 0; column < length; column++) {
+                transformed[row * length + column] = (byte) digits[cells[indexOf(rows[row], columns[column])]];
+            }
+        }
+        return new Sudoku(length, transformed);
+    }
+
+    /**
+     * Undo the transform, I.e. map a transformed grid back to the original.
+     *
+     * @param sudoku the transformed grid
+     * @return a new grid, such that <code>apply(revert(sudoku)).equals(sudoku)</code>
+     * @throws IllegalArgumentException if the grid is not the length of the transform, or has digits outside of it
+     */
+    @NotNull
+    public Sudoku revert(@NotNull final Sudoku sudoku) throws IllegalArgumentException {
+        final byte[] cells = cellsOf(sudoku);
+        final byte[] original = new byte[cells.length];
+        for (int row = 0; row < length; row++) {
+            for (int column = 0; column < length; column++) {
+                original[indexOf(rows[row], columns[column])] = (byte) inverseDigits[cells[row * length + column]];
+            }
+        }
+        return new Sudoku(length, original);
+    }
+
+    /**
+     * Get the index in the original grid of a cell in the (possibly transposed) grid.
+     */
+    private int indexOf(final int row, final int column) {
+        return transpose ? column * length + row : row * length + column;
+    }
+
+    private byte[] cellsOf(final Sudoku sudoku) throws IllegalArgumentException {
+        if (sudoku.getLength() != length) {
+            throw new IllegalArgumentException(String.format("Expected a %dx%d grid, but was %dx%d",
+                                                             length, length, sudoku.getLength(), sudoku.getLength()));
+        }
+        final byte[] cells = sudoku.getCells();
+        for (final byte digit : cells) {
+            if (digit > length) {
+                throw new IllegalArgumentException(String.format("Digit %d is outside of a %dx%d grid", digit, length, length));
+            }
+        }
+        return cells;
+    }
+}
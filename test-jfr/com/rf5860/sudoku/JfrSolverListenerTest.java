@@ -0,0 +1,42 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.HARD;
+import static com.rf5860.sudoku.Puzzles.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.Test;
+
+public class JfrSolverListenerTest {
+    @Test
+    void flightRecorderEvents() throws IOException {
+        final SudokuSolver solver = new SudokuSolver(parse(HARD));
+        solver.addListener(new JfrSolverListener());
+        final Path file = Files.createTempFile("solve", ".jfr");
+        try (final Recording recording = new Recording()) {
+            recording.enable("com.rf5860.sudoku.Solve");
+            recording.start();
+            assertThat(solver.solve()).isTrue();
+            recording.stop();
+            recording.dump(file);
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                                                            .filter(event -> event.getEventType().getName().equals("com.rf5860.sudoku.Solve"))
+                                                            .collect(Collectors.toList());
+            assertThat(events).hasSize(1);
+            assertThat(events.get(0).getInt("length")).isEqualTo(9);
+            assertThat(events.get(0).getLong("nodes")).isPositive();
+            assertThat(events.get(0).getLong("solutions")).isEqualTo(1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
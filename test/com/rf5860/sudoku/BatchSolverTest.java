@@ -0,0 +1,54 @@
+package com.rf5860.sudoku;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+public class BatchSolverTest {
+    private static final String puzzle = "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+    private static final String solution = "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+    @Test
+    void solve() throws IOException {
+        final Path input = Files.createTempFile("puzzles", ".txt");
+        final Path output = Files.createTempFile("solutions", ".txt");
+        try {
+            Files.write(input, asList(
+                puzzle,
+                puzzle.replace('.', '0'),
+                "55" + puzzle.substring(2),
+                "not a puzzle",
+                "",
+                "1...............",
+                solution), US_ASCII);
+
+            final BatchSolver.Result result = new BatchSolver(2).solve(input, output);
+
+            assertThat(result.getPuzzles()).isEqualTo(6);
+            assertThat(result.getSolved()).isEqualTo(4);
+            assertThat(Files.readAllLines(output, US_ASCII)).containsExactly(
+                solution,
+                solution,
+                "55" + puzzle.substring(2),
+                "not a puzzle",
+                "",
+                "1234341221434321",
+                solution);
+        } finally {
+            Files.delete(input);
+            Files.delete(output);
+        }
+    }
+
+    @Test
+    void solveRequiresThreads() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchSolver(0));
+    }
+}
@@ -0,0 +1,110 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.HARD;
+import static com.rf5860.sudoku.Puzzles.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class CanonicalFormTest {
+    private static final String solution = "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+    /**
+     * Build a random symmetry of a grid with the given length.
+     */
+    static SudokuTransform randomTransform(final int length, final Random random) {
+        final int subGridLength = (int) Math.sqrt(length);
+        final int[] digits = shuffle(length + 1, 1, random);
+        return new SudokuTransform(random.nextBoolean(), shuffleBands(subGridLength, random),
+                                   shuffleBands(subGridLength, random), digits);
+    }
+
+    private static int[] shuffleBands(final int subGridLength, final Random random) {
+        final int[] bands = shuffle(subGridLength, 0, random);
+        final int[] lines = new int[subGridLength * subGridLength];
+        for (int band = 0; band < subGridLength; band++) {
+            final int[] within = shuffle(subGridLength, 0, random);
+            for (int i = 0; i < subGridLength; i++) {
+                lines[band * subGridLength + i] = bands[band] * subGridLength + within[i];
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Shuffle <code>0</code> to <code>n - 1</code>, leaving the first <code>fixed</code> values in place.
+     */
+    private static int[] shuffle(final int n, final int fixed, final Random random) {
+        final int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        for (int i = n - 1; i > fixed; i--) {
+            final int j = fixed + random.nextInt(i - fixed + 1);
+            final int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+        return values;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79",
+        HARD,
+        solution,
+        "1.3......2...4..",
+        "....1..........................2.......1..............................3....2.....",
+        "................................................................................."
+    })
+    void equivalentGridsHaveTheSameCanonicalForm(final String line) {
+        final Sudoku sudoku = parse(line);
+        final Sudoku canonical = CanonicalForm.of(sudoku).getSudoku();
+        final Random random = new Random(line.hashCode());
+        for (int i = 0; i < 20; i++) {
+            final Sudoku transformed = randomTransform(sudoku.getLength(), random).apply(sudoku);
+            assertThat(CanonicalForm.of(transformed).getSudoku()).isEqualTo(canonical);
+        }
+    }
+
+    @Test
+    void transformMapsToCanonicalForm() {
+        final Sudoku sudoku = parse("53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79");
+        final CanonicalForm canonical = CanonicalForm.of(sudoku);
+        assertThat(canonical.getTransform().apply(sudoku)).isEqualTo(canonical.getSudoku());
+        assertThat(canonical.getTransform().revert(canonical.getSudoku())).isEqualTo(sudoku);
+        assertThat(CanonicalForm.of(canonical.getSudoku()).getSudoku()).isEqualTo(canonical.getSudoku());
+    }
+
+    @Test
+    void revertSolution() {
+        final Sudoku sudoku = parse("53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79");
+        final CanonicalForm canonical = CanonicalForm.of(sudoku);
+        final SudokuSolver solver = new SudokuSolver(canonical.getSudoku());
+        assertThat(solver.solve()).isTrue();
+        assertThat(canonical.getTransform().revert(solver.getPossibleSolution())).isEqualTo(parse(solution));
+    }
+
+    @Test
+    void canonicalFormRelabelsDigitsInOrder() {
+        final Sudoku canonical = CanonicalForm.of(parse(solution)).getSudoku();
+        assertThat(canonical.getRow(0)).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+
+    @Test
+    void differentPuzzlesHaveDifferentCanonicalForms() {
+        assertThat(CanonicalForm.of(parse("53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79")).getSudoku())
+            .isNotEqualTo(CanonicalForm.of(parse("53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..7.")).getSudoku());
+    }
+
+    @Test
+    void largeGridsAreNotSupported() {
+        assertThat(CanonicalForm.supports(16)).isFalse();
+        assertThrows(IllegalArgumentException.class, () -> CanonicalForm.of(new Sudoku(16)));
+    }
+}
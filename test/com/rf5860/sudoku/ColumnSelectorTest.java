@@ -0,0 +1,85 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.HARD;
+import static com.rf5860.sudoku.Puzzles.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class ColumnSelectorTest {
+    @ParameterizedTest
+    @EnumSource(ColumnSelector.class)
+    void solve(final ColumnSelector selector) {
+        final SudokuSolver solver = new SudokuSolver(parse(HARD));
+        solver.setEngine(SolverEngine.DANCING_LINKS);
+        solver.setColumnSelector(selector);
+        assertThat(solver.hasUniqueSolution()).isTrue();
+        assertThat(solver.solve()).isTrue();
+        assertThat(solver.getPossibleSolution().isSolved()).isTrue();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ColumnSelector.class)
+    void countSolutions(final ColumnSelector selector) {
+        final SudokuSolver solver = new SudokuSolver(new Sudoku(4));
+        solver.setEngine(SolverEngine.DANCING_LINKS);
+        solver.setColumnSelector(selector);
+        assertThat(solver.countSolutions(1000)).isEqualTo(288);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ColumnSelector.class)
+    void solveLargeGrid(final ColumnSelector selector) {
+        final SudokuSolver solver = new SudokuSolver(new Sudoku(16));
+        solver.setColumnSelector(selector);
+        assertThat(solver.solve()).isTrue();
+        assertThat(solver.getPossibleSolution().isSolved()).isTrue();
+    }
+
+    @Test
+    void bucketsTrackMinimumSize() {
+        final SudokuMatrix matrix = SudokuMatrix.create(9);
+        assertThat(matrix.load(new byte[81], ColumnSelector.BUCKETED)).isTrue();
+        final DancingLinks links = matrix.links;
+        final int[] headers = new int[81];
+        final int[] nodes = new int[81];
+        int depth = 0;
+        // Follow the last row of the smallest column down, checking the buckets pick the same column as a full scan
+        while (!links.isEmpty()) {
+            final int header = links.minimumColumn();
+            assertThat(header).isEqualTo(leftMostSmallest(links));
+            if (links.size[header] == 0) {
+                break;
+            }
+            links.cover(header);
+            headers[depth] = header;
+            nodes[depth] = links.up[header];
+            links.select(nodes[depth++]);
+        }
+        assertThat(depth).isGreaterThan(9);
+        while (depth > 0) {
+            links.deselect(nodes[--depth]);
+            links.uncover(headers[depth]);
+            assertThat(links.minimumColumn()).isEqualTo(leftMostSmallest(links));
+        }
+        assertThat(links.size[links.minimumColumn()]).isEqualTo(9);
+    }
+
+    private static int leftMostSmallest(final DancingLinks links) {
+        int best = links.right[DancingLinks.ROOT];
+        for (int header = links.right[best]; header != DancingLinks.ROOT; header = links.right[header]) {
+            if (links.size[header] < links.size[best]) {
+                best = header;
+            }
+        }
+        return best;
+    }
+
+    @Test
+    void forLength() {
+        assertThat(ColumnSelector.forLength(9)).isEqualTo(ColumnSelector.MINIMUM_SIZE);
+        assertThat(ColumnSelector.forLength(25)).isEqualTo(ColumnSelector.BUCKETED);
+    }
+}
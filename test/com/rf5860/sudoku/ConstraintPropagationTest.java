@@ -0,0 +1,82 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.HARD;
+import static com.rf5860.sudoku.Puzzles.cells;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class ConstraintPropagationTest {
+    private static final String solution = "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79",
+        "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..",
+        "2...8.3...6..7..84.3.5..2.9...1.54.8.........4.27.6...3.1..7.4.72..4..6...4.1...3"
+    })
+    void propagateSolvesEasyPuzzles(final String puzzle) {
+        final byte[] cells = cells(puzzle);
+        final long[] candidates = ConstraintPropagation.propagate(9, cells);
+        assertThat(candidates).containsOnly(0L);
+        assertThat(cells).doesNotContain((byte) 0);
+        assertThat(new SudokuSolver(new Sudoku(toGrid(cells))).hasUniqueSolution()).isTrue();
+    }
+
+    @Test
+    void propagateKeepsSolution() {
+        final byte[] cells = cells(HARD);
+        final long[] candidates = ConstraintPropagation.propagate(9, cells);
+        assertThat(candidates).isNotNull();
+        final byte[] solved = cells("812753649943682175675491283154237896369845721287169534521974368438526917796318452");
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] == 0) {
+                assertThat(candidates[cell] & (1L << solved[cell])).as("Candidates of cell %d", cell).isNotZero();
+            } else {
+                assertThat(cells[cell]).as("Digit of cell %d", cell).isEqualTo(solved[cell]);
+            }
+        }
+    }
+
+    @Test
+    void propagateDetectsConflictingGivens() {
+        assertThat(ConstraintPropagation.propagate(9, cells("55" + solution.substring(2).replace('3', '.')))).isNull();
+    }
+
+    @Test
+    void propagateDetectsContradictions() {
+        // The first cell can't hold any digit, as 1-8 are in its row and 9 is in its column
+        assertThat(ConstraintPropagation.propagate(9, cells(".12345678" + "9" + repeat('.', 71)))).isNull();
+    }
+
+    @Test
+    void propagateCompletedGrid() {
+        final byte[] cells = cells(solution);
+        assertThat(ConstraintPropagation.propagate(9, cells)).containsOnly(0L);
+        assertThat(cells).isEqualTo(cells(solution));
+    }
+
+    @Test
+    void propagateEmptyGrid() {
+        final long[] candidates = ConstraintPropagation.propagate(4, new byte[16]);
+        assertThat(candidates).containsOnly(0b11110L);
+    }
+
+    private static String repeat(final char c, final int count) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static int[][] toGrid(final byte[] cells) {
+        final int[][] grid = new int[9][9];
+        for (int cell = 0; cell < cells.length; cell++) {
+            grid[cell / 9][cell % 9] = cells[cell];
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,42 @@
+package com.rf5860.sudoku;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    void percentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getPercentile(99)).isZero();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertThat(histogram.getCount()).isEqualTo(100_000);
+        assertThat(histogram.getMax()).isEqualTo(100_000_000);
+        assertThat(histogram.getMean()).isCloseTo(50_000_500, within(1.0));
+        assertThat((double) histogram.getPercentile(50)).isCloseTo(50_000_000, within(50_000_000 * 0.04));
+        assertThat((double) histogram.getPercentile(99)).isCloseTo(99_000_000, within(99_000_000 * 0.04));
+        assertThat((double) histogram.getPercentile(99.9)).isCloseTo(99_900_000, within(99_900_000 * 0.04));
+        assertThat(histogram.getPercentile(100)).isEqualTo(100_000_000);
+        assertThat(histogram.getPercentile(0)).isEqualTo(1007);
+    }
+
+    @Test
+    void bucketsCoverEveryValue() {
+        int previous = -1;
+        for (int shift = 1; shift < Long.SIZE - 1; shift++) {
+            for (final long value : new long[] {1L << shift, (1L << shift) + 1, (1L << shift + 1) - 1}) {
+                final int bucket = LatencyHistogram.bucketOf(value);
+                assertThat(bucket).isGreaterThanOrEqualTo(previous);
+                assertThat(LatencyHistogram.highestValueOf(bucket)).isGreaterThanOrEqualTo(value);
+                assertThat(LatencyHistogram.highestValueOf(bucket) - value).isLessThanOrEqualTo(value / 32);
+                previous = bucket;
+            }
+        }
+        assertThat(LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram().getPercentile(101));
+    }
+}
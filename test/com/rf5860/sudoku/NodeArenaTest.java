@@ -0,0 +1,96 @@
+package com.rf5860.sudoku;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class NodeArenaTest {
+    private static final String puzzle = "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+    private static final String solution = "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+    private static byte[] cells(final String line) {
+        final byte[] cells = new byte[line.length()];
+        for (int i = 0; i < line.length(); i++) {
+            cells[i] = (byte) (line.charAt(i) == '.' ? 0 : line.charAt(i) - '0');
+        }
+        return cells;
+    }
+
+    @AfterEach
+    void free() {
+        NodeArena.free();
+    }
+
+    @Test
+    void reusedAcrossSolves() {
+        final NodeArena arena = NodeArena.acquire(9);
+        final byte[] cells = cells(puzzle);
+        assertThat(arena.search(cells, null, null, 2)).isEqualTo(1);
+        assertThat(cells).isEqualTo(cells(solution));
+        arena.release();
+
+        assertThat(NodeArena.acquire(9)).isSameAs(arena);
+        final byte[] open = new byte[81];
+        assertThat(arena.search(open, null, null, 10)).isEqualTo(10);
+        assertThat(new Sudoku(9, open).isSolved()).isTrue();
+        // The matrix is restored after each search
+        final byte[] again = cells(puzzle);
+        assertThat(arena.search(again, null, null, 2)).isEqualTo(1);
+        assertThat(again).isEqualTo(cells(solution));
+        arena.release();
+    }
+
+    @Test
+    void nestedAcquireGetsItsOwnArena() {
+        final NodeArena pooled = NodeArena.acquire(4);
+        final NodeArena nested = NodeArena.acquire(4);
+        assertThat(nested).isNotSameAs(pooled);
+        nested.release();
+        assertThat(nested.isFreed()).isTrue();
+        pooled.release();
+        assertThat(pooled.isFreed()).isFalse();
+    }
+
+    @Test
+    void freeReleasesPooledArenas() {
+        final NodeArena arena = NodeArena.acquire(9);
+        arena.release();
+        NodeArena.free();
+        assertThat(arena.isFreed()).isTrue();
+        assertThat(NodeArena.acquire(9)).isNotSameAs(arena);
+    }
+
+    @Test
+    void freeWaitsForArenasInUse() {
+        final NodeArena arena = NodeArena.acquire(9);
+        NodeArena.free();
+        assertThat(arena.isFreed()).isFalse();
+        final byte[] cells = cells(puzzle);
+        assertThat(arena.search(cells, null, null, 1)).isEqualTo(1);
+        arena.release();
+        assertThat(arena.isFreed()).isTrue();
+    }
+
+    @Test
+    void budgetStopsTheSearch() {
+        final NodeArena arena = NodeArena.acquire(16);
+        final SearchBudget budget = new SearchBudget(SolveOptions.NONE.withMaxNodes(10));
+        assertThat(arena.search(new byte[256], null, budget, 1)).isZero();
+        assertThat(budget.getReason()).isNotNull();
+        assertThat(arena.search(new byte[256], null, null, 1)).isEqualTo(1);
+        arena.release();
+    }
+
+    @Test
+    void invalidDigits() {
+        final NodeArena arena = NodeArena.acquire(4);
+        try {
+            assertThrows(IllegalArgumentException.class, () -> arena.search(new byte[]{5, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0}, null, null, 1));
+            assertThat(arena.search(new byte[]{1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0}, null, null, 1)).isZero();
+        } finally {
+            arena.release();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.parse;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class PackedFormatTest {
+    private static final String puzzle = "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+
+    private Path file;
+
+    private static Sudoku random(final int length, final Random random) {
+        final int[][] grid = new int[length][length];
+        for (final int[] row : grid) {
+            for (int column = 0; column < length; column++) {
+                row[column] = random.nextInt(length + 1);
+            }
+        }
+        return new Sudoku(grid);
+    }
+
+    private static List<Sudoku> corpus() throws IOException {
+        final List<Sudoku> puzzles = new ArrayList<>();
+        for (final String name : Arrays.asList("easy", "hard", "hardest", "17-clue")) {
+            for (final String line : Files.readAllLines(Paths.get("test-resources/corpus/" + name + ".txt"), US_ASCII)) {
+                if (!line.trim().isEmpty()) {
+                    puzzles.add(parse(line.trim()));
+                }
+            }
+        }
+        return puzzles;
+    }
+
+    @BeforeEach
+    void createFile() throws IOException {
+        file = Files.createTempFile("puzzles", ".sdkp");
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void recordSize() {
+        assertThat(PackedFormat.recordSize(4)).isEqualTo(6);
+        assertThat(PackedFormat.recordSize(9)).isEqualTo(41);
+        assertThat(PackedFormat.recordSize(16)).isEqualTo(160);
+        assertThat(PackedFormat.recordSize(25)).isEqualTo(391);
+    }
+
+    @Test
+    void encodeTwoCellsPerByte() {
+        final byte[] record = PackedFormat.encode(parse(puzzle));
+        assertThat(record).hasSize(41);
+        assertThat(record[0]).isEqualTo((byte) 0x53);
+        assertThat(record[1]).isEqualTo((byte) 0x00);
+        assertThat(record[2]).isEqualTo((byte) 0x70);
+        assertThat(record[40]).isEqualTo((byte) 0x90);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 9, 16, 25, 36, 49})
+    void roundTrip(final int length) {
+        final Random random = new Random(length);
+        for (int i = 0; i < 10; i++) {
+            final Sudoku sudoku = random(length, random);
+            final byte[] record = PackedFormat.encode(sudoku);
+            assertThat(record).hasSize(PackedFormat.recordSize(length));
+            assertThat(PackedFormat.decode(length, record)).isEqualTo(sudoku);
+        }
+    }
+
+    @Test
+    void decodeRejectsInvalidRecords() {
+        final byte[] record = PackedFormat.encode(parse(puzzle));
+        assertThrows(IllegalArgumentException.class, () -> PackedFormat.decode(9, Arrays.copyOf(record, 40)));
+        record[3] = (byte) 0xA0;
+        assertThrows(IllegalArgumentException.class, () -> PackedFormat.decode(9, record));
+    }
+
+    @Test
+    void writeAndRead() throws IOException {
+        final List<Sudoku> puzzles = corpus();
+        try (final PackedPuzzleWriter writer = new PackedPuzzleWriter(file, 9)) {
+            for (final Sudoku sudoku : puzzles) {
+                writer.write(sudoku);
+            }
+            assertThat(writer.getWritten()).isEqualTo(puzzles.size());
+        }
+        assertThat(Files.size(file)).isEqualTo(PackedFormat.HEADER_SIZE + 41L * puzzles.size());
+
+        try (final PackedPuzzleReader reader = new PackedPuzzleReader(file)) {
+            assertThat(reader.getLength()).isEqualTo(9);
+            assertThat(reader.size()).isEqualTo(puzzles.size());
+            final byte[] cells = new byte[81];
+            for (final Sudoku sudoku : puzzles) {
+                assertThat(reader.next(cells)).isTrue();
+                assertThat(cells).isEqualTo(sudoku.getCells());
+            }
+            assertThat(reader.next(cells)).isFalse();
+            assertThat(reader.next()).isNull();
+
+            reader.read(3, cells);
+            assertThat(cells).isEqualTo(puzzles.get(3).getCells());
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.read(puzzles.size(), cells));
+        }
+    }
+
+    @Test
+    void readLargeGrids() throws IOException {
+        final Random random = new Random(16);
+        final List<Sudoku> grids = new ArrayList<>();
+        try (final PackedPuzzleWriter writer = new PackedPuzzleWriter(file, 16)) {
+            for (int i = 0; i < 1000; i++) {
+                grids.add(random(16, random));
+                writer.write(grids.get(i));
+            }
+            assertThrows(IllegalArgumentException.class, () -> writer.write(new Sudoku(9)));
+        }
+        try (final PackedPuzzleReader reader = new PackedPuzzleReader(file)) {
+            for (final Sudoku grid : grids) {
+                assertThat(reader.next()).isEqualTo(grid);
+            }
+        }
+    }
+
+    @Test
+    void rejectsInvalidFiles() throws IOException {
+        Files.write(file, "not a packed file".getBytes(US_ASCII));
+        assertThrows(IOException.class, () -> new PackedPuzzleReader(file));
+
+        try (final PackedPuzzleWriter writer = new PackedPuzzleWriter(file, 9)) {
+            writer.write(parse(puzzle));
+        }
+        final byte[] truncated = Arrays.copyOf(Files.readAllBytes(file), PackedFormat.HEADER_SIZE + 40);
+        Files.write(file, truncated);
+        assertThrows(IOException.class, () -> new PackedPuzzleReader(file));
+    }
+
+    @Test
+    void convertText() throws IOException {
+        final Path text = Files.createTempFile("puzzles", ".txt");
+        final PrintStream stdout = System.out;
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            Files.write(text, Arrays.asList(puzzle, "", puzzle.replace('.', '0')), US_ASCII);
+            System.setOut(new PrintStream(out, true, "US-ASCII"));
+            PackedPuzzleWriter.main(new String[] {text.toString(), file.toString()});
+        } finally {
+            System.setOut(stdout);
+            Files.delete(text);
+        }
+        assertThat(new String(out.toByteArray(), US_ASCII)).isEqualTo("Wrote 2 puzzles" + System.lineSeparator());
+        try (final PackedPuzzleReader reader = new PackedPuzzleReader(file)) {
+            assertThat(reader.size()).isEqualTo(2);
+            assertThat(reader.next()).isEqualTo(parse(puzzle));
+            assertThat(reader.next()).isEqualTo(parse(puzzle));
+        }
+    }
+}
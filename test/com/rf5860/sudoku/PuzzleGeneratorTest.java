@@ -0,0 +1,89 @@
+package com.rf5860.sudoku;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class PuzzleGeneratorTest {
+    private static int clues(final Sudoku sudoku) {
+        int clues = 0;
+        for (final byte digit : sudoku.getCells()) {
+            if (digit != 0) {
+                clues++;
+            }
+        }
+        return clues;
+    }
+
+    private static void assertMinimalAndUnique(final Sudoku puzzle) {
+        assertThat(new SudokuSolver(puzzle).hasUniqueSolution()).isTrue();
+        final int length = puzzle.getLength();
+        for (int cell = 0; cell < length * length; cell++) {
+            if (puzzle.getCells()[cell] != 0) {
+                final Sudoku removed = puzzle.clone();
+                removed.clear(cell / length, cell % length);
+                assertThat(new SudokuSolver(removed).countSolutions(2)).isEqualTo(2);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {4, 9})
+    void puzzlesAreMinimalAndUnique(final int length) {
+        final PuzzleGenerator generator = new PuzzleGenerator(length);
+        generator.setSeed(length);
+        final List<Sudoku> puzzles = generator.generate(8);
+        assertThat(puzzles).hasSize(8).doesNotContainNull();
+        for (final Sudoku puzzle : puzzles) {
+            assertMinimalAndUnique(puzzle);
+        }
+        assertThat(puzzles).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void sameSeedGeneratesSamePuzzles() {
+        final PuzzleGenerator parallel = new PuzzleGenerator(9);
+        parallel.setSeed(42);
+        parallel.setThreads(4);
+        final PuzzleGenerator serial = new PuzzleGenerator(9);
+        serial.setSeed(42);
+        serial.setThreads(1);
+        final List<Sudoku> puzzles = parallel.generate(6);
+        assertThat(serial.generate(6)).isEqualTo(puzzles);
+        assertThat(serial.generateAt(3)).isEqualTo(puzzles.get(3));
+    }
+
+    @Test
+    void targetClues() {
+        final PuzzleGenerator generator = new PuzzleGenerator(9);
+        generator.setSeed(7);
+        generator.setTargetClues(24);
+        for (final Sudoku puzzle : generator.generate(4)) {
+            assertThat(clues(puzzle)).isLessThanOrEqualTo(24);
+            assertThat(new SudokuSolver(puzzle).hasUniqueSolution()).isTrue();
+        }
+    }
+
+    @Test
+    void unreachableTarget() {
+        final PuzzleGenerator generator = new PuzzleGenerator(4);
+        generator.setTargetClues(0);
+        assertThrows(IllegalStateException.class, () -> generator.generateAt(0));
+    }
+
+    @Test
+    void optionsAreValidated() {
+        assertThrows(IllegalArgumentException.class, () -> new PuzzleGenerator(8));
+        final PuzzleGenerator generator = new PuzzleGenerator(9);
+        assertThrows(IllegalArgumentException.class, () -> generator.setTargetClues(-1));
+        assertThrows(IllegalArgumentException.class, () -> generator.setThreads(0));
+        assertThrows(IllegalArgumentException.class, () -> generator.setMaxNodes(0));
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(-1));
+        assertThat(generator.generate(0)).isEmpty();
+    }
+}
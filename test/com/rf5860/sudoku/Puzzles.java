@@ -0,0 +1,30 @@
+package com.rf5860.sudoku;
+
+import java.nio.CharBuffer;
+
+/**
+ * Puzzles and parsing shared by the tests, in the format of {@link SudokuFormat#LINE}.
+ */
+final class Puzzles {
+    /**
+     * A 9x9 puzzle with a unique solution, which takes many guesses to find.
+     */
+    static final String HARD = "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..";
+
+    private Puzzles() {
+    }
+
+    /**
+     * Parse a puzzle on a single line.
+     */
+    static Sudoku parse(final String line) {
+        return SudokuFormat.LINE.read(CharBuffer.wrap(line));
+    }
+
+    /**
+     * Parse a puzzle on a single line into its digits, in row-major order.
+     */
+    static byte[] cells(final String line) {
+        return parse(line).getCells();
+    }
+}
@@ -0,0 +1,127 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.HARD;
+import static com.rf5860.sudoku.Puzzles.parse;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+public class SharedSolverTest {
+    private static List<Sudoku> corpus() throws IOException {
+        final List<Sudoku> puzzles = new ArrayList<>();
+        for (final String name : Arrays.asList("easy", "medium", "hard", "hardest", "17-clue")) {
+            for (final String line : Files.readAllLines(Paths.get("test-resources/corpus/" + name + ".txt"), US_ASCII)) {
+                if (!line.trim().isEmpty()) {
+                    puzzles.add(parse(line.trim()));
+                }
+            }
+        }
+        return puzzles;
+    }
+
+    @Test
+    void agreesWithSudokuSolver() throws IOException {
+        final SharedSolver shared = new SharedSolver();
+        for (final Sudoku puzzle : corpus()) {
+            final Sudoku copy = puzzle.clone();
+            final SudokuSolver solver = new SudokuSolver(puzzle);
+            assertThat(solver.solve()).isTrue();
+            assertThat(shared.solve(puzzle)).contains(solver.getPossibleSolution());
+            assertThat(shared.hasUniqueSolution(puzzle)).isTrue();
+            assertThat(puzzle).isEqualTo(copy);
+        }
+    }
+
+    @Test
+    void solvesConcurrently() throws Exception {
+        final SharedSolver shared = new SharedSolver();
+        final List<Sudoku> puzzles = corpus();
+        puzzles.add(new Sudoku(16));
+        puzzles.add(new Sudoku(4));
+        final List<Sudoku> expected = new ArrayList<>();
+        for (final Sudoku puzzle : puzzles) {
+            expected.add(shared.solve(puzzle).orElseThrow(AssertionError::new));
+        }
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int task = 0; task < 8; task++) {
+                final int offset = task;
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < puzzles.size() * 5; i++) {
+                        final int index = (i + offset) % puzzles.size();
+                        if (!shared.solve(puzzles.get(index)).equals(Optional.of(expected.get(index)))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (final Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void noSolution() {
+        final Sudoku puzzle = parse(HARD);
+        puzzle.set(0, 1, 8);
+        final SharedSolver shared = new SharedSolver();
+        assertThat(shared.solve(puzzle)).isEmpty();
+        assertThat(shared.countSolutions(puzzle, 5)).isZero();
+        assertThat(shared.solve(puzzle, SolveOptions.NONE).getStatus()).isEqualTo(SolveResult.Status.NO_SOLUTION);
+        // The scratch array is refilled from the next puzzle
+        assertThat(shared.solve(parse(HARD))).isPresent();
+    }
+
+    @Test
+    void countSolutions() {
+        final SharedSolver shared = new SharedSolver();
+        assertThat(shared.countSolutions(new Sudoku(4), 1000)).isEqualTo(288);
+        assertThat(shared.countSolutions(new Sudoku(9), 0)).isZero();
+        assertThrows(IllegalArgumentException.class, () -> shared.countSolutions(new Sudoku(9), -1));
+        assertThat(shared.hasUniqueSolution(new Sudoku(9))).isFalse();
+    }
+
+    @Test
+    void optionsAndEngines() {
+        final Sudoku puzzle = parse(HARD);
+        for (final SolverEngine engine : SolverEngine.values()) {
+            final SharedSolver shared = new SharedSolver().withEngine(engine);
+            final SolveResult limited = shared.solve(puzzle, SolveOptions.NONE.withMaxNodes(5));
+            assertThat(limited.getStatus()).isEqualTo(SolveResult.Status.NODE_LIMIT_REACHED);
+            assertThat(limited.getSolution()).isEmpty();
+            assertThat(limited.getStats().getNodes()).isEqualTo(5);
+
+            final SolveResult result = shared.solve(puzzle, SolveOptions.NONE);
+            assertThat(result.getStatus()).isEqualTo(SolveResult.Status.SOLVED);
+            assertThat(result.getSolution().map(Sudoku::isSolved)).contains(true);
+        }
+        SolverEngine.OFF_HEAP.releaseMemory();
+    }
+
+    @Test
+    void unsupportedSelectorsAreRejected() {
+        final SharedSolver bitset = new SharedSolver().withEngine(SolverEngine.BITSET);
+        assertThrows(IllegalArgumentException.class, () -> bitset.withColumnSelector(ColumnSelector.RANDOM_TIES));
+        final SharedSolver randomTies = new SharedSolver().withColumnSelector(ColumnSelector.RANDOM_TIES);
+        assertThrows(IllegalArgumentException.class, () -> randomTies.withEngine(SolverEngine.OFF_HEAP));
+        assertThat(randomTies.solve(parse(HARD)).map(Sudoku::isSolved)).contains(true);
+    }
+}
@@ -0,0 +1,78 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.HARD;
+import static com.rf5860.sudoku.Puzzles.parse;
+import static com.rf5860.sudoku.CanonicalFormTest.randomTransform;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class SolutionCacheTest {
+    private static final Sudoku puzzle = parse("53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79");
+    private static final Sudoku hard = parse(HARD);
+
+    private static void assertSolves(final Sudoku solution, final Sudoku puzzle) {
+        assertThat(solution.isSolved()).isTrue();
+        for (int row = 0; row < 9; row++) {
+            for (int column = 0; column < 9; column++) {
+                if (puzzle.get(row, column) != 0) {
+                    assertThat(solution.get(row, column)).isEqualTo(puzzle.get(row, column));
+                }
+            }
+        }
+        assertThat(new SudokuSolver(solution).countSolutions(2)).isEqualTo(1);
+    }
+
+    @Test
+    void solveEquivalentPuzzlesFromCache() {
+        final SolutionCache cache = new SolutionCache(10);
+        assertSolves(cache.solve(puzzle).get(), puzzle);
+        assertThat(cache.getMisses()).isEqualTo(1);
+
+        final Random random = new Random(42);
+        for (int i = 0; i < 10; i++) {
+            final Sudoku transformed = randomTransform(9, random).apply(puzzle);
+            assertSolves(cache.solve(transformed).get(), transformed);
+        }
+        assertThat(cache.getHits()).isEqualTo(10);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        final SolutionCache cache = new SolutionCache(1);
+        cache.solve(puzzle);
+        cache.solve(hard);
+        cache.solve(puzzle);
+        assertThat(cache.getMisses()).isEqualTo(3);
+        assertThat(cache.size()).isEqualTo(1);
+        cache.solve(puzzle);
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void cachesPuzzlesWithoutSolutions() {
+        final SolutionCache cache = new SolutionCache(10);
+        final Sudoku conflicting = parse("55..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79");
+        assertThat(cache.solve(conflicting)).isEqualTo(Optional.empty());
+        assertThat(cache.solve(conflicting)).isEqualTo(Optional.empty());
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void solvesLargeGridsWithoutCaching() {
+        final SolutionCache cache = new SolutionCache(10);
+        assertThat(cache.solve(new Sudoku(16)).get().isSolved()).isTrue();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void requiresCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SolutionCache(0));
+    }
+}
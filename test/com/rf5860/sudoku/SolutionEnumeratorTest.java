@@ -0,0 +1,109 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.HARD;
+import static com.rf5860.sudoku.Puzzles.parse;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class SolutionEnumeratorTest {
+    private Path file;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        file = Files.createTempFile("enumeration", ".checkpoint");
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void enumerateAll() {
+        final SudokuSolver solver = new SudokuSolver(new Sudoku(4));
+        final SolutionEnumerator enumerator = solver.enumerate();
+        final List<Sudoku> solutions = new ArrayList<>();
+        for (Optional<Sudoku> solution = enumerator.next(); solution.isPresent(); solution = enumerator.next()) {
+            solutions.add(solution.get());
+        }
+        assertThat(solutions).isEqualTo(solver.solutions().collect(toList()));
+        assertThat(enumerator.getSolutionsFound()).isEqualTo(288);
+        assertThat(enumerator.isExhausted()).isTrue();
+        assertThat(enumerator.next()).isEmpty();
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ColumnSelector.class, names = {"MINIMUM_SIZE", "BUCKETED"})
+    void suspendAndResume(final ColumnSelector selector) throws IOException {
+        final SudokuSolver solver = new SudokuSolver(new Sudoku(4));
+        solver.setColumnSelector(selector);
+        final List<Sudoku> solutions = new ArrayList<>();
+        SolutionEnumerator enumerator = solver.enumerate();
+        int suspensions = 0;
+        while (!enumerator.isExhausted()) {
+            // Stop every few nodes, and carry on from a checkpoint written to disk
+            final SolveResult result = enumerator.next(SolveOptions.NONE.withMaxNodes(7));
+            if (result.getStatus() == SolveResult.Status.SOLVED) {
+                solutions.add(result.getSolution().get());
+            } else if (result.isAborted()) {
+                suspensions++;
+            }
+            enumerator.checkpoint().write(file);
+            enumerator = SolutionEnumerator.resume(SolutionEnumerator.Checkpoint.read(file));
+        }
+        assertThat(suspensions).isPositive();
+        assertThat(solutions).isEqualTo(solver.solutions().collect(toList()));
+        assertThat(enumerator.getSolutionsFound()).isEqualTo(288);
+    }
+
+    @Test
+    void resumeMidSearch() throws IOException {
+        final Sudoku puzzle = parse(HARD);
+        final SolutionEnumerator enumerator = new SolutionEnumerator(puzzle);
+        assertThat(enumerator.next(SolveOptions.NONE.withMaxNodes(20)).getStatus()).isEqualTo(SolveResult.Status.NODE_LIMIT_REACHED);
+        enumerator.checkpoint().write(file);
+
+        final SolutionEnumerator resumed = SolutionEnumerator.resume(SolutionEnumerator.Checkpoint.read(file));
+        final SolveResult result = resumed.next(SolveOptions.NONE);
+        assertThat(result.getStatus()).isEqualTo(SolveResult.Status.SOLVED);
+        assertThat(result.getSolution()).isEqualTo(enumerator.next());
+        assertThat(resumed.next()).isEmpty();
+        assertThat(resumed.getSolutionsFound()).isEqualTo(1);
+    }
+
+    @Test
+    void noSolutions() throws IOException {
+        final int[][] grid = parse(HARD).getRows();
+        grid[0][1] = 8;
+        final SolutionEnumerator enumerator = new SolutionEnumerator(new Sudoku(grid));
+        assertThat(enumerator.isExhausted()).isTrue();
+        assertThat(enumerator.next()).isEmpty();
+        enumerator.checkpoint().write(file);
+        assertThat(SolutionEnumerator.resume(SolutionEnumerator.Checkpoint.read(file)).isExhausted()).isTrue();
+    }
+
+    @Test
+    void rejectsOtherObjects() throws IOException {
+        try (final OutputStream out = Files.newOutputStream(file);
+             final ObjectOutputStream objects = new ObjectOutputStream(out)) {
+            objects.writeObject(new ArrayList<>());
+        }
+        assertThrows(IOException.class, () -> SolutionEnumerator.Checkpoint.read(file));
+    }
+}
@@ -0,0 +1,108 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.HARD;
+import static com.rf5860.sudoku.Puzzles.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class SolveOptionsTest {
+    /**
+     * A 36x36 puzzle with half of its cells blanked at random, which takes far longer to solve than any test should.
+     */
+    private static Sudoku pathological() {
+        final SudokuSolver empty = new SudokuSolver(new Sudoku(36));
+        assertThat(empty.solve()).isTrue();
+        final Sudoku puzzle = empty.getPossibleSolution();
+        final Random random = new Random(1);
+        for (int cell = 0; cell < 36 * 36; cell++) {
+            if (random.nextBoolean()) {
+                puzzle.clear(cell / 36, cell % 36);
+            }
+        }
+        return puzzle;
+    }
+
+    @Test
+    void solveWithoutLimits() {
+        final SudokuSolver solver = new SudokuSolver(parse(HARD));
+        final SolveResult result = solver.solve(SolveOptions.NONE);
+        assertThat(result.getStatus()).isEqualTo(SolveResult.Status.SOLVED);
+        assertThat(result.isAborted()).isFalse();
+        assertThat(result.getSolution()).hasValueSatisfying(solution -> assertThat(solution.isSolved()).isTrue());
+        assertThat(result.getSolution()).contains(solver.getPossibleSolution());
+        assertThat(result.getStats().getNodes()).isPositive();
+    }
+
+    @Test
+    void noSolution() {
+        final int[][] grid = parse(HARD).getRows();
+        grid[0][1] = 1;
+        grid[1][0] = 2;
+        final SolveResult result = new SudokuSolver(new Sudoku(grid)).solve(SolveOptions.NONE.withMaxNodes(1_000_000));
+        assertThat(result.getStatus()).isEqualTo(SolveResult.Status.NO_SOLUTION);
+        assertThat(result.isAborted()).isFalse();
+        assertThat(result.getSolution()).isEmpty();
+    }
+
+    @Test
+    void nodeLimit() {
+        final SudokuSolver solver = new SudokuSolver(parse(HARD));
+        final SolveResult result = solver.solve(SolveOptions.NONE.withMaxNodes(5));
+        assertThat(result.getStatus()).isEqualTo(SolveResult.Status.NODE_LIMIT_REACHED);
+        assertThat(result.isAborted()).isTrue();
+        assertThat(result.getSolution()).isEmpty();
+        assertThat(result.getStats().getNodes()).isEqualTo(5);
+        assertThat(result.getStats().getCovers()).isGreaterThan(result.getStats().getUncovers());
+
+        // The stopped search is undone, so the next solve starts from a clean matrix
+        assertThat(solver.solve()).isTrue();
+        assertThat(solver.getPossibleSolution().isSolved()).isTrue();
+        assertThat(solver.solve(SolveOptions.NONE.withMaxNodes(result.getStats().getNodes() * 1000)).getStatus())
+            .isEqualTo(SolveResult.Status.SOLVED);
+    }
+
+    @Test
+    void timeout() {
+        final SudokuSolver solver = new SudokuSolver(pathological());
+        final long start = System.nanoTime();
+        final SolveResult result = solver.solve(SolveOptions.NONE.withTimeout(Duration.ofMillis(200)));
+        assertThat(result.getStatus()).isEqualTo(SolveResult.Status.TIMED_OUT);
+        assertThat(result.getStats().getNodes()).isPositive();
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+
+        assertThat(new SudokuSolver(parse(HARD)).solve(SolveOptions.NONE.withTimeout(Duration.ZERO)).getStatus())
+            .isEqualTo(SolveResult.Status.TIMED_OUT);
+    }
+
+    @Test
+    void cancel() throws Exception {
+        final CancellationToken cancelled = new CancellationToken();
+        cancelled.cancel();
+        final SolveResult before = new SudokuSolver(parse(HARD)).solve(SolveOptions.NONE.withCancellation(cancelled));
+        assertThat(before.getStatus()).isEqualTo(SolveResult.Status.CANCELLED);
+        assertThat(before.getStats().getNodes()).isZero();
+
+        final CancellationToken token = new CancellationToken();
+        final SudokuSolver solver = new SudokuSolver(pathological());
+        final CompletableFuture<SolveResult> result = CompletableFuture.supplyAsync(() -> solver.solve(SolveOptions.NONE.withCancellation(token)));
+        Thread.sleep(100);
+        token.cancel();
+        assertThat(result.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(SolveResult.Status.CANCELLED);
+    }
+
+    @Test
+    void optionsAreValidated() {
+        assertThrows(IllegalArgumentException.class, () -> SolveOptions.NONE.withMaxNodes(-1));
+        assertThrows(IllegalArgumentException.class, () -> SolveOptions.NONE.withTimeout(Duration.ofSeconds(-1)));
+        assertThat(SolveOptions.NONE.isLimited()).isFalse();
+        assertThat(SolveOptions.NONE.withTimeout(Duration.ofSeconds(Long.MAX_VALUE)).getTimeoutNanos()).isEqualTo(Long.MAX_VALUE);
+        assertThat(SolveOptions.NONE.withMaxNodes(10).isLimited()).isTrue();
+    }
+}
@@ -0,0 +1,145 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.HARD;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class SolveServerTest {
+    private static final String puzzle = "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+    private static final String solution = "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+    private SolveServer server;
+
+    private static final class Response {
+        private final int status;
+        private final String body;
+        private final HttpURLConnection connection;
+
+        private Response(final int status, final String body, final HttpURLConnection connection) {
+            this.status = status;
+            this.body = body;
+            this.connection = connection;
+        }
+    }
+
+    private Response request(final String method, final String path, final String body) throws IOException {
+        final InetSocketAddress address = server.getAddress();
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http", "localhost", address.getPort(), path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (final OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(US_ASCII));
+            }
+        }
+        final int status = connection.getResponseCode();
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (final InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            final byte[] buffer = new byte[1024];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                content.write(buffer, 0, read);
+            }
+        }
+        return new Response(status, new String(content.toByteArray(), US_ASCII), connection);
+    }
+
+    @AfterEach
+    void stop() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void solveSinglePuzzle() throws IOException {
+        server = new SolveServer(new InetSocketAddress("localhost", 0), 2, 4);
+        final Response response = request("POST", "/solve", puzzle);
+        assertThat(response.status).isEqualTo(200);
+        assertThat(response.body).isEqualTo(solution + "\n");
+        assertThat(response.connection.getHeaderField("X-Solved")).isEqualTo("1");
+    }
+
+    @Test
+    void solveBatch() throws IOException {
+        server = new SolveServer(new InetSocketAddress("localhost", 0), 2, 4);
+        final String unsolvable = "55" + puzzle.substring(2);
+        final Response response = request("POST", "/solve", puzzle + "\r\n\nnot a puzzle\n" + unsolvable + "\n" + puzzle);
+        assertThat(response.status).isEqualTo(200);
+        assertThat(response.body).isEqualTo(solution + "\n\nnot a puzzle\n" + unsolvable + "\n" + solution + "\n");
+        assertThat(response.connection.getHeaderField("X-Puzzles")).isEqualTo("4");
+        assertThat(response.connection.getHeaderField("X-Solved")).isEqualTo("2");
+    }
+
+    @Test
+    void puzzleBudget() throws IOException {
+        server = new SolveServer(new InetSocketAddress("localhost", 0), 1, 1, SolveOptions.NONE.withMaxNodes(1));
+        final Response response = request("POST", "/solve", HARD + "\n" + HARD);
+        assertThat(response.status).isEqualTo(200);
+        assertThat(response.body).isEqualTo(HARD + "\n" + HARD + "\n");
+        assertThat(response.connection.getHeaderField("X-Solved")).isEqualTo("0");
+        assertThat(response.connection.getHeaderField("X-Limited")).isEqualTo("2");
+        assertThat(request("GET", "/stats", null).body).contains("\"limited\":2");
+    }
+
+    @Test
+    void rejectWhenQueueIsFull() throws Exception {
+        server = new SolveServer(new InetSocketAddress("localhost", 0), 1, 1);
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch drained = new CountDownLatch(1);
+        // Occupy the only worker and the only queue slot
+        server.workers().execute(() -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        running.await();
+        server.workers().execute(drained::countDown);
+
+        final Response response = request("POST", "/solve", puzzle);
+        assertThat(response.status).isEqualTo(503);
+        assertThat(response.connection.getHeaderField("Retry-After")).isEqualTo("1");
+
+        release.countDown();
+        // Once the queued task has run, the queue has room again
+        assertThat(drained.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(request("POST", "/solve", puzzle).body).isEqualTo(solution + "\n");
+        assertThat(request("GET", "/stats", null).body).contains("\"rejected\":1", "\"requests\":2", "\"solved\":1");
+    }
+
+    @Test
+    void stats() throws IOException {
+        server = new SolveServer(new InetSocketAddress("localhost", 0), 2, 4);
+        for (int i = 0; i < 10; i++) {
+            request("POST", "/solve", puzzle + "\n" + puzzle);
+        }
+        final Response response = request("GET", "/stats", null);
+        assertThat(response.status).isEqualTo(200);
+        assertThat(response.connection.getContentType()).isEqualTo("application/json");
+        assertThat(response.body).startsWith("{").contains("\"requests\":10", "\"puzzles\":20", "\"solved\":20",
+                                                          "\"count\":10", "\"p50\":", "\"p99\":", "\"p99.9\":");
+    }
+
+    @Test
+    void wrongMethod() throws IOException {
+        server = new SolveServer(new InetSocketAddress("localhost", 0), 1, 0);
+        assertThat(request("GET", "/solve", null).status).isEqualTo(405);
+        assertThat(request("POST", "/stats", "").status).isEqualTo(405);
+    }
+}
@@ -0,0 +1,175 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.HARD;
+import static com.rf5860.sudoku.Puzzles.parse;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class SolverEngineTest {
+    private static List<Sudoku> corpus() throws IOException {
+        final List<Sudoku> puzzles = new ArrayList<>();
+        for (final String name : Arrays.asList("easy", "hard", "hardest", "17-clue")) {
+            for (final String line : Files.readAllLines(Paths.get("test-resources/corpus/" + name + ".txt"), US_ASCII)) {
+                if (!line.trim().isEmpty()) {
+                    puzzles.add(parse(line.trim()));
+                }
+            }
+        }
+        return puzzles;
+    }
+
+    private static SudokuSolver solver(final Sudoku sudoku, final SolverEngine engine) {
+        final SudokuSolver solver = new SudokuSolver(sudoku);
+        solver.setEngine(engine);
+        solver.setColumnSelector(engine == SolverEngine.OFF_HEAP ? ColumnSelector.BUCKETED : ColumnSelector.MINIMUM_SIZE);
+        return solver;
+    }
+
+    @Test
+    void defaultEngines() {
+        assertThat(SolverEngine.forLength(4)).isEqualTo(SolverEngine.BITSET);
+        assertThat(SolverEngine.forLength(9)).isEqualTo(SolverEngine.BITSET);
+        assertThat(SolverEngine.forLength(16)).isEqualTo(SolverEngine.DANCING_LINKS);
+        assertThat(new SudokuSolver(new Sudoku(25)).getEngine()).isEqualTo(SolverEngine.DANCING_LINKS);
+    }
+
+    @Test
+    void selectorsFallBackToDancingLinks() {
+        assertThat(SolverEngine.forLength(9, ColumnSelector.MINIMUM_SIZE)).isEqualTo(SolverEngine.BITSET);
+        assertThat(SolverEngine.forLength(9, ColumnSelector.RANDOM_TIES)).isEqualTo(SolverEngine.DANCING_LINKS);
+        assertThat(SolverEngine.forLength(9, ColumnSelector.BUCKETED)).isEqualTo(SolverEngine.DANCING_LINKS);
+
+        final SudokuSolver solver = new SudokuSolver(parse(HARD));
+        assertThat(solver.getEngine()).isEqualTo(SolverEngine.BITSET);
+        solver.setColumnSelector(ColumnSelector.RANDOM_TIES);
+        assertThat(solver.getEngine()).isEqualTo(SolverEngine.DANCING_LINKS);
+        solver.setColumnSelector(ColumnSelector.MINIMUM_SIZE);
+        assertThat(solver.getEngine()).isEqualTo(SolverEngine.BITSET);
+    }
+
+    @Test
+    void unsupportedSelectorsAreRejected() {
+        final SudokuSolver engineFirst = new SudokuSolver(parse(HARD));
+        engineFirst.setEngine(SolverEngine.BITSET);
+        assertThrows(IllegalArgumentException.class, () -> engineFirst.setColumnSelector(ColumnSelector.RANDOM_TIES));
+        assertThat(engineFirst.getColumnSelector()).isEqualTo(ColumnSelector.MINIMUM_SIZE);
+
+        final SudokuSolver selectorFirst = new SudokuSolver(parse(HARD));
+        selectorFirst.setColumnSelector(ColumnSelector.RANDOM_TIES);
+        assertThrows(IllegalArgumentException.class, () -> selectorFirst.setEngine(SolverEngine.OFF_HEAP));
+        assertThat(selectorFirst.getEngine()).isEqualTo(SolverEngine.DANCING_LINKS);
+    }
+
+    @Test
+    void enginesAgreeOnCorpus() throws IOException {
+        for (final Sudoku puzzle : corpus()) {
+            final SudokuSolver links = solver(puzzle, SolverEngine.DANCING_LINKS);
+            final SudokuSolver bitset = solver(puzzle, SolverEngine.BITSET);
+            assertThat(bitset.solve()).isEqualTo(links.solve());
+            assertThat(bitset.getPossibleSolution()).isEqualTo(links.getPossibleSolution());
+            assertThat(bitset.countSolutions(2)).isEqualTo(links.countSolutions(2));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 9, 16})
+    void enginesAgreeOnOpenGrids(final int length) {
+        final SudokuSolver links = solver(new Sudoku(length), SolverEngine.DANCING_LINKS);
+        final SudokuSolver bitset = solver(new Sudoku(length), SolverEngine.BITSET);
+        assertThat(bitset.solve()).isTrue();
+        assertThat(links.solve()).isTrue();
+        assertThat(bitset.getPossibleSolution()).isEqualTo(links.getPossibleSolution());
+        assertThat(bitset.countSolutions(50)).isEqualTo(links.countSolutions(50));
+    }
+
+    @Test
+    void countAllSolutions() {
+        // Every 4x4 grid, found in the same order
+        assertThat(solver(new Sudoku(4), SolverEngine.BITSET).countSolutions(1000)).isEqualTo(288);
+        final int[][] grid = parse(HARD).getRows();
+        grid[0][0] = 0;
+        grid[2][1] = 0;
+        assertThat(solver(new Sudoku(grid), SolverEngine.BITSET).countSolutions(1000))
+            .isEqualTo(solver(new Sudoku(grid), SolverEngine.DANCING_LINKS).countSolutions(1000));
+    }
+
+    @Test
+    void noSolution() {
+        final int[][] grid = parse(HARD).getRows();
+        grid[0][1] = 8;
+        assertThat(solver(new Sudoku(grid), SolverEngine.BITSET).solve()).isFalse();
+        grid[0][1] = 1;
+        grid[1][0] = 2;
+        assertThat(solver(new Sudoku(grid), SolverEngine.BITSET).countSolutions(1)).isZero();
+    }
+
+    @ParameterizedTest
+    @EnumSource(SolverEngine.class)
+    void nodeLimitAndStats(final SolverEngine engine) {
+        final SudokuSolver solver = solver(parse(HARD), engine);
+        final SolveResult limited = solver.solve(SolveOptions.NONE.withMaxNodes(5));
+        assertThat(limited.getStatus()).isEqualTo(SolveResult.Status.NODE_LIMIT_REACHED);
+        assertThat(limited.getStats().getNodes()).isEqualTo(5);
+
+        final SolveResult result = solver.solve(SolveOptions.NONE);
+        assertThat(result.getStatus()).isEqualTo(SolveResult.Status.SOLVED);
+        // The off-heap engine always searches as dancing links with bucketed sizes do
+        final SudokuSolver reference = solver(parse(HARD), SolverEngine.DANCING_LINKS);
+        if (engine == SolverEngine.OFF_HEAP) {
+            reference.setColumnSelector(ColumnSelector.BUCKETED);
+        }
+        final SolveResult links = reference.solve(SolveOptions.NONE);
+        assertThat(result.getStats().getNodes()).isEqualTo(links.getStats().getNodes());
+        assertThat(result.getStats().getBacktracks()).isEqualTo(links.getStats().getBacktracks());
+        assertThat(result.getStats().getMaxDepth()).isEqualTo(links.getStats().getMaxDepth());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {4, 9, 16, 25})
+    void offHeapAgreesWithBucketedLinks(final int length) {
+        final Sudoku open = new Sudoku(length);
+        final SudokuSolver links = solver(open, SolverEngine.DANCING_LINKS);
+        links.setColumnSelector(ColumnSelector.BUCKETED);
+        final SudokuSolver offHeap = solver(open, SolverEngine.OFF_HEAP);
+        assertThat(offHeap.solve()).isTrue();
+        assertThat(links.solve()).isTrue();
+        assertThat(offHeap.getPossibleSolution()).isEqualTo(links.getPossibleSolution());
+        assertThat(offHeap.countSolutions(20)).isEqualTo(links.countSolutions(20));
+    }
+
+    @Test
+    void offHeapAgreesOnCorpus() throws IOException {
+        for (final Sudoku puzzle : corpus()) {
+            final SudokuSolver links = solver(puzzle, SolverEngine.DANCING_LINKS);
+            links.setColumnSelector(ColumnSelector.BUCKETED);
+            final SudokuSolver offHeap = solver(puzzle, SolverEngine.OFF_HEAP);
+            assertThat(offHeap.solve()).isEqualTo(links.solve());
+            assertThat(offHeap.getPossibleSolution()).isEqualTo(links.getPossibleSolution());
+            assertThat(offHeap.countSolutions(2)).isEqualTo(links.countSolutions(2));
+        }
+    }
+
+    @Test
+    void offHeapSolvesLargeGrids() {
+        final SudokuSolver solver = solver(new Sudoku(36), SolverEngine.OFF_HEAP);
+        assertThat(solver.solve()).isTrue();
+        assertThat(solver.getPossibleSolution().isSolved()).isTrue();
+        SolverEngine.OFF_HEAP.releaseMemory();
+        // The next solve allocates a new arena
+        assertThat(solver.solve()).isTrue();
+        SolverEngine.OFF_HEAP.releaseMemory();
+    }
+}
@@ -0,0 +1,91 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class SolverSessionTest {
+    private static final String puzzle = "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+
+    @Test
+    void hintsLeadToTheSolution() {
+        final Sudoku sudoku = parse(puzzle);
+        final SudokuSolver solver = new SudokuSolver(sudoku);
+        assertThat(solver.solve()).isTrue();
+        final Sudoku solution = solver.getPossibleSolution();
+
+        final SolverSession session = new SolverSession(sudoku);
+        for (Optional<SolverSession.Hint> hint = session.getHint(); hint.isPresent(); hint = session.getHint()) {
+            final SolverSession.Hint next = hint.get();
+            assertThat(session.get(next.getRow(), next.getColumn())).isZero();
+            assertThat(next.getDigit()).isEqualTo(solution.get(next.getRow(), next.getColumn()));
+            session.set(next.getRow(), next.getColumn(), next.getDigit());
+        }
+        assertThat(session.getSudoku()).isEqualTo(solution);
+        assertThat(session.isSolvable()).isTrue();
+    }
+
+    @Test
+    void conflictsAreResolvedByClearing() {
+        final SolverSession session = new SolverSession(parse(puzzle));
+        assertThat(session.isSolvable()).isTrue();
+        session.set(0, 2, 5);
+        assertThat(session.isConflict(0, 2)).isTrue();
+        assertThat(session.isSolvable()).isFalse();
+        assertThat(session.getHint()).isEmpty();
+        assertThat(session.get(0, 2)).isEqualTo(5);
+
+        // Clearing the given frees the digit, so the edited cell is selected in its place
+        session.clear(0, 0);
+        assertThat(session.isConflict(0, 2)).isFalse();
+        session.set(0, 2, 4);
+        session.set(0, 0, 5);
+        assertThat(session.isConflict(0, 0)).isFalse();
+        assertThat(session.isSolvable()).isTrue();
+        assertThat(session.getSudoku()).isEqualTo(parse("534.7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79"));
+    }
+
+    @Test
+    void matchesSolverAcrossRandomEdits() {
+        final Random random = new Random(9);
+        final Sudoku sudoku = parse(puzzle);
+        final SolverSession session = new SolverSession(sudoku);
+        for (int edit = 0; edit < 500; edit++) {
+            final int row = random.nextInt(9);
+            final int column = random.nextInt(9);
+            final int digit = random.nextInt(3) == 0 ? 0 : random.nextInt(9) + 1;
+            session.set(row, column, digit);
+            sudoku.set(row, column, digit);
+            assertThat(session.getSudoku()).isEqualTo(sudoku);
+            boolean conflict = false;
+            for (int r = 0; r < 9; r++) {
+                for (int c = 0; c < 9; c++) {
+                    conflict |= session.isConflict(r, c);
+                }
+            }
+            final boolean solvable = new SudokuSolver(sudoku).solve();
+            assertThat(session.isSolvable()).as("edit %d", edit).isEqualTo(solvable);
+            if (!conflict) {
+                // Without conflicts, the matrix must be exactly the one loaded from scratch
+                final SolverSession fresh = new SolverSession(sudoku);
+                assertThat(session.getHint().map(Object::toString)).isEqualTo(fresh.getHint().map(Object::toString));
+            }
+        }
+    }
+
+    @Test
+    void editsAreValidated() {
+        final SolverSession session = new SolverSession(new Sudoku(4));
+        assertThrows(IllegalArgumentException.class, () -> session.set(0, 0, 5));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> session.set(4, 0, 1));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> session.clear(0, -1));
+        final int[][] grid = new int[4][4];
+        grid[0][0] = 9;
+        assertThrows(IllegalArgumentException.class, () -> new SolverSession(new Sudoku(grid)));
+    }
+}
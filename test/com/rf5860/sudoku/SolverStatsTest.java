@@ -0,0 +1,84 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.HARD;
+import static com.rf5860.sudoku.Puzzles.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+public class SolverStatsTest {
+    @Test
+    void solve() {
+        final SudokuSolver solver = new SudokuSolver(parse(HARD));
+        final List<String> events = new ArrayList<>();
+        final List<SolverStats> stats = new ArrayList<>();
+        solver.addListener(new SolverListener() {
+            @Override
+            public void solveStarted() {
+                events.add("started");
+            }
+
+            @Override
+            public void solveFinished(final SolverStats solveStats) {
+                events.add("finished");
+                stats.add(solveStats);
+            }
+        });
+        assertThat(solver.solve()).isTrue();
+        assertThat(events).containsExactly("started", "finished");
+        final SolverStats solve = stats.get(0);
+        assertThat(solve.getLength()).isEqualTo(9);
+        assertThat(solve.getSolutions()).isEqualTo(1);
+        assertThat(solve.getNodes()).isGreaterThan(solve.getMaxDepth());
+        assertThat(solve.getBacktracks()).isPositive();
+        assertThat(solve.getMaxDepth()).isBetween(1, 81);
+        assertThat(solve.getCovers()).isGreaterThan(solve.getUncovers());
+        assertThat(solve.getMatrixNanos()).isPositive();
+        assertThat(solve.getSearchNanos()).isPositive();
+    }
+
+    @Test
+    void exhaustiveSearchUndoesEverything() {
+        final SudokuSolver solver = new SudokuSolver(new Sudoku(4));
+        final List<SolverStats> stats = new ArrayList<>();
+        solver.addListener(stats::add);
+        assertThat(solver.countSolutions(1000)).isEqualTo(288);
+        final SolverStats count = stats.get(0);
+        assertThat(count.getSolutions()).isEqualTo(288);
+        assertThat(count.getMaxDepth()).isEqualTo(16);
+        assertThat(count.getCovers()).isEqualTo(count.getUncovers());
+        assertThat(count.getBacktracks()).isEqualTo(count.getNodes());
+        // Every row of every column branched on is tried
+        final long[] branchingFactors = count.getBranchingFactors();
+        long nodes = 0;
+        for (int size = 0; size < branchingFactors.length; size++) {
+            nodes += size * branchingFactors[size];
+        }
+        assertThat(nodes).isEqualTo(count.getNodes());
+    }
+
+    @Test
+    void parallelSearch() {
+        final SudokuSolver solver = new SudokuSolver(new Sudoku(4));
+        final List<SolverStats> stats = new ArrayList<>();
+        solver.addListener(stats::add);
+        assertThat(solver.countSolutions(ForkJoinPool.commonPool(), 1000)).isEqualTo(288);
+        assertThat(stats.get(0).getSolutions()).isEqualTo(288);
+        assertThat(stats.get(0).getMaxDepth()).isEqualTo(16);
+    }
+
+    @Test
+    void removeListener() {
+        final SudokuSolver solver = new SudokuSolver(parse(HARD));
+        final List<SolverStats> stats = new ArrayList<>();
+        final SolverListener listener = stats::add;
+        solver.addListener(listener);
+        solver.removeListener(listener);
+        assertThat(solver.solve()).isTrue();
+        assertThat(stats).isEmpty();
+    }
+}
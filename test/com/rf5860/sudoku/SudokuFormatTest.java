@@ -0,0 +1,180 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.HARD;
+import static com.rf5860.sudoku.Puzzles.parse;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class SudokuFormatTest {
+    private static final String puzzle = "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+
+    private static Sudoku random(final int length, final long seed) {
+        final Random random = new Random(seed);
+        final Sudoku sudoku = new Sudoku(length);
+        for (int row = 0; row < length; row++) {
+            for (int column = 0; column < length; column++) {
+                if (random.nextBoolean()) {
+                    sudoku.set(row, column, 1 + random.nextInt(length));
+                }
+            }
+        }
+        return sudoku;
+    }
+
+    private static String write(final SudokuFormat format, final Sudoku sudoku) {
+        final CharBuffer buffer = CharBuffer.allocate(format.getMaxChars(sudoku.getLength()));
+        format.write(sudoku, buffer);
+        ((Buffer) buffer).flip();
+        return buffer.toString();
+    }
+
+    @Test
+    void writeLine() {
+        assertThat(write(SudokuFormat.LINE, parse(puzzle))).isEqualTo(puzzle + "\n");
+    }
+
+    @Test
+    void writeSdk() {
+        assertThat(write(SudokuFormat.SDK, parse(puzzle))).isEqualTo(
+            "53.|.7.|...\n" +
+            "6..|195|...\n" +
+            ".98|...|.6.\n" +
+            "---+---+---\n" +
+            "8..|.6.|..3\n" +
+            "4..|8.3|..1\n" +
+            "7..|.2.|..6\n" +
+            "---+---+---\n" +
+            ".6.|...|28.\n" +
+            "...|419|..5\n" +
+            "...|.8.|.79\n");
+    }
+
+    @Test
+    void writeBoxMatchesPrint() {
+        final Sudoku sudoku = random(16, 1);
+        assertThat(write(SudokuFormat.BOX, sudoku)).isEqualTo(sudoku.print());
+        assertThat(sudoku.print().split("\n")[1]).startsWith(String.format("║%2d%2d%2d%2d║",
+            sudoku.get(0, 0), sudoku.get(0, 1), sudoku.get(0, 2), sudoku.get(0, 3)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(SudokuFormat.class)
+    void roundTripsThroughChars(final SudokuFormat format) {
+        final CharBuffer buffer = CharBuffer.allocate(format.getMaxChars(16) * 3);
+        final List<Sudoku> written = new ArrayList<>();
+        written.add(parse(puzzle));
+        written.add(random(16, 2));
+        written.add(random(4, 3));
+        for (final Sudoku sudoku : written) {
+            format.write(sudoku, buffer);
+        }
+        ((Buffer) buffer).flip();
+        for (final Sudoku sudoku : written) {
+            assertThat(format.read(buffer)).isEqualTo(sudoku);
+        }
+        assertThat(format.read(buffer)).isNull();
+    }
+
+    @ParameterizedTest
+    @EnumSource(SudokuFormat.class)
+    void roundTripsThroughBytes(final SudokuFormat format) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(format.getMaxBytes(25));
+        for (long seed = 0; seed < 20; seed++) {
+            final Sudoku sudoku = random(seed % 2 == 0 ? 9 : 25, seed);
+            ((Buffer) buffer).clear();
+            format.write(sudoku, buffer);
+            ((Buffer) buffer).flip();
+            final byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            assertThat(new String(bytes, UTF_8)).isEqualTo(write(format, sudoku));
+            assertThat(format.read(buffer)).isEqualTo(sudoku);
+            assertThat(buffer.hasRemaining()).isFalse();
+        }
+    }
+
+    @Test
+    void readsCorpusLines() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(Paths.get("test-resources/corpus/hard.txt")));
+        final List<String> lines = Files.readAllLines(Paths.get("test-resources/corpus/hard.txt"), US_ASCII);
+        for (final String line : lines) {
+            final Sudoku sudoku = SudokuFormat.LINE.read(buffer);
+            assertThat(sudoku).isNotNull();
+            assertThat(write(SudokuFormat.LINE, sudoku)).isEqualTo(line.replace('0', '.') + "\n");
+        }
+        assertThat(SudokuFormat.LINE.read(buffer)).isNull();
+    }
+
+    @Test
+    void readLineSkipsBlankLinesAndSpaces() {
+        final CharBuffer buffer = CharBuffer.wrap("\r\n\n" + puzzle.replace('.', '0').replaceAll("(.{9})", "$1 ") + "\r\n\n1 . . .\t. . . .  . . . . . . . .");
+        assertThat(SudokuFormat.LINE.read(buffer)).isEqualTo(parse(puzzle));
+        final Sudoku small = SudokuFormat.LINE.read(buffer);
+        assertThat(small).isNotNull();
+        assertThat(small.getLength()).isEqualTo(4);
+        assertThat(small.get(0, 0)).isEqualTo(1);
+        assertThat(SudokuFormat.LINE.read(buffer)).isNull();
+    }
+
+    @Test
+    void readSdkSkipsCommentsAndSeparators() {
+        final CharBuffer buffer = CharBuffer.wrap(
+            "#A Puzzle\n" +
+            "#B sample\n" +
+            "53..7....\n" +
+            "6..195...\n" +
+            ".98....6.\n" +
+            "\n" +
+            "8...6...3\n" +
+            "4..8.3..1\n" +
+            "7...2...6\n" +
+            "=========\n" +
+            ".6....28.\n" +
+            "...419..5\n" +
+            "....8..79\n" +
+            write(SudokuFormat.SDK, parse(puzzle)));
+        assertThat(SudokuFormat.SDK.read(buffer)).isEqualTo(parse(puzzle));
+        assertThat(SudokuFormat.SDK.read(buffer)).isEqualTo(parse(puzzle));
+        assertThat(SudokuFormat.SDK.read(buffer)).isNull();
+    }
+
+    @Test
+    void readRejectsMalformedGrids() {
+        assertThrows(IllegalArgumentException.class, () -> parse(puzzle.substring(1)));
+        assertThrows(IllegalArgumentException.class, () -> parse("x" + puzzle.substring(1)));
+        assertThrows(IllegalArgumentException.class, () -> parse(puzzle.replace('.', 'a')));
+        assertThrows(IllegalArgumentException.class, () -> SudokuFormat.SDK.read(CharBuffer.wrap("53.|.7.|...\n6..|195|..\n")));
+        assertThrows(IllegalArgumentException.class, () -> SudokuFormat.SDK.read(CharBuffer.wrap("53.|.7.|...\n")));
+        assertThrows(IllegalArgumentException.class, () -> SudokuFormat.BOX.read(CharBuffer.wrap("not a grid\n")));
+        assertThrows(IllegalArgumentException.class, () -> SudokuFormat.BOX.read(CharBuffer.wrap(parse(puzzle).print().replace("║53", "║5x"))));
+    }
+
+    @Test
+    void readSkipsPastTheBadLine() {
+        final CharBuffer buffer = CharBuffer.wrap("1234\n" + puzzle + "\n");
+        assertThrows(IllegalArgumentException.class, () -> SudokuFormat.LINE.read(buffer));
+        assertThat(SudokuFormat.LINE.read(buffer)).isEqualTo(parse(puzzle));
+    }
+
+    @Test
+    void writeRejectsFullBuffers() {
+        assertThrows(BufferOverflowException.class, () -> SudokuFormat.LINE.write(parse(puzzle), CharBuffer.allocate(81)));
+        assertThrows(IllegalArgumentException.class, () -> SudokuFormat.LINE.write(new Sudoku(36), CharBuffer.allocate(2000)));
+    }
+}
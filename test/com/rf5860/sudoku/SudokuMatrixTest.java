@@ -0,0 +1,81 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.HARD;
+import static com.rf5860.sudoku.Puzzles.cells;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class SudokuMatrixTest {
+    private static final String puzzle = "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+    private static final String solution = "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+    private static void assertEmpty(final SudokuMatrix matrix) {
+        final SudokuMatrix empty = SudokuMatrix.create(matrix.length);
+        assertThat(matrix.links.left).isEqualTo(empty.links.left);
+        assertThat(matrix.links.right).isEqualTo(empty.links.right);
+        assertThat(matrix.links.up).isEqualTo(empty.links.up);
+        assertThat(matrix.links.down).isEqualTo(empty.links.down);
+        assertThat(matrix.links.size).isEqualTo(empty.links.size);
+    }
+
+    @Test
+    void restoreUndoesLoadAndSearch() {
+        final SudokuMatrix matrix = SudokuMatrix.create(9);
+        assertThat(matrix.load(cells(HARD), ColumnSelector.MINIMUM_SIZE)).isTrue();
+        assertThat(matrix.search().next()).isTrue();
+        matrix.restore();
+        assertEmpty(matrix);
+    }
+
+    @Test
+    void restoreUndoesConflictingGivens() {
+        final SudokuMatrix matrix = SudokuMatrix.create(16);
+        final byte[] cells = new byte[256];
+        cells[0] = 1;
+        cells[1] = 1;
+        assertThat(matrix.load(cells, ColumnSelector.MINIMUM_SIZE)).isFalse();
+        matrix.restore();
+        assertEmpty(matrix);
+    }
+
+    @Test
+    void loadSolvesRepeatedly() {
+        final SudokuMatrix matrix = SudokuMatrix.acquire(9);
+        try {
+            for (final String line : new String[]{puzzle, HARD, puzzle}) {
+                final byte[] cells = cells(line);
+                assertThat(matrix.load(cells, ColumnSelector.MINIMUM_SIZE)).isTrue();
+                assertThat(matrix.search().next()).isTrue();
+                SudokuMatrix.fill(cells, 9, matrix.search());
+                if (line.equals(puzzle)) {
+                    assertThat(cells).isEqualTo(cells(solution));
+                }
+                assertThat(matrix.search().next()).isFalse();
+            }
+        } finally {
+            matrix.release();
+        }
+        assertEmpty(matrix);
+    }
+
+    @Test
+    void acquireReusesReleasedMatrix() {
+        final SudokuMatrix first = SudokuMatrix.acquire(9);
+        final SudokuMatrix second = SudokuMatrix.acquire(9);
+        assertThat(second).isNotSameAs(first);
+        second.release();
+        first.release();
+        final SudokuMatrix third = SudokuMatrix.acquire(9);
+        assertThat(third).isSameAs(first);
+        third.release();
+    }
+
+    @Test
+    void loadRejectsInvalidDigits() {
+        final byte[] cells = cells(puzzle);
+        cells[2] = 10;
+        assertThrows(IllegalArgumentException.class, () -> SudokuMatrix.create(9).load(cells, ColumnSelector.MINIMUM_SIZE));
+    }
+}
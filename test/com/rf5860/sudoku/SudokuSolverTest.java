@@ -0,0 +1,250 @@
+package com.rf5860.sudoku;
+
+import static com.rf5860.sudoku.Puzzles.parse;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class SudokuSolverTest {
+    private static final int[][] puzzle = {
+        {5, 3, 0, 0, 7, 0, 0, 0, 0},
+        {6, 0, 0, 1, 9, 5, 0, 0, 0},
+        {0, 9, 8, 0, 0, 0, 0, 6, 0},
+
+        {8, 0, 0, 0, 6, 0, 0, 0, 3},
+        {4, 0, 0, 8, 0, 3, 0, 0, 1},
+        {7, 0, 0, 0, 2, 0, 0, 0, 6},
+
+        {0, 6, 0, 0, 0, 0, 2, 8, 0},
+        {0, 0, 0, 4, 1, 9, 0, 0, 5},
+        {0, 0, 0, 0, 8, 0, 0, 7, 9}
+    };
+
+    private static final int[][] solution = {
+        {5, 3, 4, 6, 7, 8, 9, 1, 2},
+        {6, 7, 2, 1, 9, 5, 3, 4, 8},
+        {1, 9, 8, 3, 4, 2, 5, 6, 7},
+
+        {8, 5, 9, 7, 6, 1, 4, 2, 3},
+        {4, 2, 6, 8, 5, 3, 7, 9, 1},
+        {7, 1, 3, 9, 2, 4, 8, 5, 6},
+
+        {9, 6, 1, 5, 3, 7, 2, 8, 4},
+        {2, 8, 7, 4, 1, 9, 6, 3, 5},
+        {3, 4, 5, 2, 8, 6, 1, 7, 9}
+    };
+
+    @Test
+    void solve() {
+        final SudokuSolver solver = new SudokuSolver(new Sudoku(puzzle));
+        assertThat(solver.solve()).isTrue();
+        assertThat(solver.getPossibleSolution()).isEqualTo(new Sudoku(solution));
+    }
+
+    @Test
+    void solveLeavesGridUnchanged() {
+        final SudokuSolver solver = new SudokuSolver(new Sudoku(puzzle));
+        solver.solve();
+        assertThat(solver.getGrid()).isEqualTo(new Sudoku(puzzle));
+    }
+
+    @Test
+    void solveCompletedPuzzle() {
+        final SudokuSolver solver = new SudokuSolver(new Sudoku(solution));
+        assertThat(solver.solve()).isTrue();
+        assertThat(solver.getPossibleSolution()).isEqualTo(new Sudoku(solution));
+    }
+
+    @Test
+    void solveConflictingGivens() {
+        final Sudoku sudoku = new Sudoku(puzzle);
+        sudoku.set(0, 2, 5);
+        assertThat(new SudokuSolver(sudoku).solve()).isFalse();
+    }
+
+    @Test
+    void solveInvalidDigit() {
+        final Sudoku sudoku = new Sudoku(puzzle);
+        sudoku.set(0, 2, 10);
+        assertThrows(IllegalArgumentException.class, () -> new SudokuSolver(sudoku).solve());
+    }
+
+    @Test
+    void generateAllSolutions() {
+        assertThat(new SudokuSolver(new Sudoku(puzzle)).generateAlSolutions()).containsExactly(new Sudoku(solution));
+    }
+
+    @Test
+    void generateAllSolutionsForEmptyGrid() {
+        assertThat(new SudokuSolver(new Sudoku(4)).generateAlSolutions()).hasSize(288).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void solutionsAreLazy() {
+        // An empty 16x16 grid has far too many solutions to enumerate, so this only terminates if the search stops early
+        assertThat(new SudokuSolver(new Sudoku(16)).solutions().limit(3)).hasSize(3).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void solutionsCanBeReadMoreThanOnce() {
+        final SudokuSolver solver = new SudokuSolver(new Sudoku(4));
+        assertThat(solver.solutions().count()).isEqualTo(288);
+        assertThat(solver.solutions().findFirst()).isPresent();
+    }
+
+    @Test
+    void solutionsForConflictingGivens() {
+        final Sudoku sudoku = new Sudoku(puzzle);
+        sudoku.set(0, 2, 5);
+        assertThat(new SudokuSolver(sudoku).solutions()).isEmpty();
+    }
+
+    @Test
+    void countSolutions() {
+        assertThat(new SudokuSolver(new Sudoku(puzzle)).countSolutions(10)).isEqualTo(1);
+        assertThat(new SudokuSolver(new Sudoku(4)).countSolutions(1000)).isEqualTo(288);
+    }
+
+    @Test
+    void countSolutionsStopsAtLimit() {
+        assertThat(new SudokuSolver(new Sudoku(16)).countSolutions(5)).isEqualTo(5);
+        assertThat(new SudokuSolver(new Sudoku(4)).countSolutions(0)).isZero();
+    }
+
+    @Test
+    void countSolutionsRequiresNonNegativeLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new SudokuSolver(new Sudoku(4)).countSolutions(-1));
+    }
+
+    @Test
+    void hasUniqueSolution() {
+        assertThat(new SudokuSolver(new Sudoku(puzzle)).hasUniqueSolution()).isTrue();
+        assertThat(new SudokuSolver(new Sudoku(4)).hasUniqueSolution()).isFalse();
+
+        final Sudoku conflicting = new Sudoku(puzzle);
+        conflicting.set(0, 2, 5);
+        assertThat(new SudokuSolver(conflicting).hasUniqueSolution()).isFalse();
+    }
+
+    @Test
+    void countSolutionsInParallel() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertThat(new SudokuSolver(new Sudoku(puzzle)).countSolutions(pool, Long.MAX_VALUE)).isEqualTo(1);
+            assertThat(new SudokuSolver(new Sudoku(4)).countSolutions(pool, Long.MAX_VALUE)).isEqualTo(288);
+            assertThat(new SudokuSolver(new Sudoku(16)).countSolutions(pool, 1000)).isEqualTo(1000);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void forEachSolutionInParallel() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Set<Sudoku> solutions = ConcurrentHashMap.newKeySet();
+            new SudokuSolver(new Sudoku(4)).forEachSolution(pool, false, solutions::add);
+            assertThat(solutions).containsExactlyInAnyOrderElementsOf(new SudokuSolver(new Sudoku(4)).generateAlSolutions());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void forEachSolutionInParallelOrdered() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final List<Sudoku> solutions = new ArrayList<>();
+            new SudokuSolver(new Sudoku(4)).forEachSolution(pool, true, solutions::add);
+            assertThat(solutions).containsExactlyElementsOf(new SudokuSolver(new Sudoku(4)).generateAlSolutions());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void forEachSolutionInParallelOrderedStreams() {
+        // An empty grid has too many solutions to find them all, so the first ones must be passed on before it is done
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final List<Sudoku> solutions = new ArrayList<>();
+            final IllegalStateException stop = new IllegalStateException("Enough solutions");
+            final IllegalStateException thrown = assertThrows(IllegalStateException.class, () ->
+                new SudokuSolver(new Sudoku(9)).forEachSolution(pool, true, solution -> {
+                    solutions.add(solution);
+                    if (solutions.size() == 1000) {
+                        throw stop;
+                    }
+                }));
+            assertThat(thrown).isSameAs(stop);
+            assertThat(solutions).containsExactlyElementsOf(new SudokuSolver(new Sudoku(9)).solutions().limit(1000)
+                                                                                           .collect(toList()));
+            assertThat(pool.awaitQuiescence(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {16, 25, 36, 49})
+    void solveLargeGrids(final int length) {
+        final SudokuSolver empty = new SudokuSolver(new Sudoku(length));
+        assertThat(empty.solve()).isTrue();
+        final Sudoku solved = empty.getPossibleSolution();
+        assertThat(solved.isSolved()).isTrue();
+
+        // Blank every third cell of the solution, and check the givens are kept
+        final Sudoku puzzle = new SudokuSolver(solved).getGrid();
+        for (int cell = 0; cell < length * length; cell += 3) {
+            puzzle.clear(cell / length, cell % length);
+        }
+        final SudokuSolver solver = new SudokuSolver(puzzle);
+        assertThat(solver.solve()).isTrue();
+        final Sudoku solution = solver.getPossibleSolution();
+        assertThat(solution.isSolved()).isTrue();
+        for (int cell = 0; cell < length * length; cell++) {
+            final int row = cell / length;
+            final int column = cell % length;
+            if (puzzle.get(row, column) != 0) {
+                assertThat(solution.get(row, column)).isEqualTo(puzzle.get(row, column));
+            }
+            final int digit = solution.get(row, column);
+            solution.clear(row, column);
+            assertThat(solution.isMoveValid(row, column, digit)).as("Digit at [%d][%d]", row, column).isTrue();
+            solution.set(row, column, digit);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"easy", "hard", "hardest", "17-clue"})
+    void corpusPuzzlesHaveUniqueSolutions(final String corpus) throws IOException {
+        final List<String> lines = readCorpus(corpus);
+        assertThat(lines).isNotEmpty();
+        for (final String line : lines) {
+            assertThat(new SudokuSolver(parse(line)).hasUniqueSolution()).as("Expected %s to have a unique solution", line).isTrue();
+        }
+    }
+
+    private static List<String> readCorpus(final String corpus) throws IOException {
+        try (final InputStream in = SudokuSolverTest.class.getResourceAsStream("/corpus/" + corpus + ".txt")) {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(in, US_ASCII));
+            return reader.lines().filter(line -> !line.isEmpty()).collect(toList());
+        }
+    }
+}
@@ -132,7 +132,84 @@ public class SudokuTest {
     @Test
     public void isMoveValid() {
         final Sudoku sudoku = new Sudoku(completedPuzzle);
-        // TODO: Test
+        assertThat(sudoku.isMoveValid(0, 0, 4)).isFalse();
+
+        sudoku.clear(0, 0);
+        assertThat(sudoku.isMoveValid(0, 0, 4)).isTrue();
+        rangeClosed(1, 9).filter(digit -> digit != 4)
+                         .forEachOrdered(digit -> assertThat(sudoku.isMoveValid(0, 0, digit)).as("Expected %d to be invalid", digit).isFalse());
+        assertThat(sudoku.isMoveValid(0, 0, 0)).isFalse();
+        assertThat(sudoku.isMoveValid(0, 0, 10)).isFalse();
+    }
+
+    @Test
+    public void isMoveValidAfterSet() {
+        final Sudoku sudoku = new Sudoku();
+        sudoku.set(4, 4, 7);
+        assertThat(sudoku.isMoveValid(4, 0, 7)).as("Same row").isFalse();
+        assertThat(sudoku.isMoveValid(0, 4, 7)).as("Same column").isFalse();
+        assertThat(sudoku.isMoveValid(3, 5, 7)).as("Same sub-grid").isFalse();
+        assertThat(sudoku.isMoveValid(0, 0, 7)).isTrue();
+
+        sudoku.set(4, 4, 6);
+        assertThat(sudoku.isMoveValid(4, 0, 7)).isTrue();
+        assertThat(sudoku.isMoveValid(4, 0, 6)).isFalse();
+
+        sudoku.clear(4, 4);
+        assertThat(sudoku.isMoveValid(4, 0, 6)).isTrue();
+    }
+
+    @Test
+    public void isMoveValidWithRepeatedDigits() {
+        final Sudoku sudoku = new Sudoku();
+        sudoku.set(0, 0, 5);
+        sudoku.set(0, 8, 5);
+        sudoku.clear(0, 0);
+        assertThat(sudoku.isInRow(0, 5)).isTrue();
+        assertThat(sudoku.isMoveValid(0, 1, 5)).isFalse();
+    }
+
+    @Test
+    public void candidates() {
+        final Sudoku sudoku = new Sudoku(completedPuzzle);
+        assertThat(sudoku.candidates(0, 0)).isZero();
+
+        sudoku.clear(0, 0);
+        sudoku.clear(0, 1);
+        assertThat(sudoku.candidates(0, 0)).isEqualTo(1L << 4);
+        assertThat(sudoku.candidates(0, 1)).isEqualTo(1L << 8);
+
+        assertThat(sudoku.clearAll().candidates(0, 0)).isEqualTo(0b11_1111_1110L);
+        assertThat(new Sudoku(49).candidates(48, 48)).isEqualTo(-1L >>> 14 & ~1L);
+    }
+
+    @Test
+    void concurrentQueries() {
+        for (int round = 0; round < 200; round++) {
+            final Sudoku sudoku = new Sudoku(completedPuzzle);
+            sudoku.clear(0, 0);
+            // Every thread may build the counts on its first query, and must still see them complete
+            assertThat(range(0, 16).parallel().mapToLong(i -> sudoku.candidates(0, 0)).distinct().toArray())
+                .containsExactly(1L << 4);
+        }
+    }
+
+    @Test
+    public void candidatesRequireSmallGrid() {
+        assertThrows(IllegalStateException.class, () -> new Sudoku(64).candidates(0, 0));
+    }
+
+    @Test
+    public void isSolved() {
+        final Sudoku sudoku = new Sudoku(completedPuzzle);
+        assertThat(sudoku.isSolved()).isTrue();
+
+        sudoku.clear(8, 8);
+        assertThat(sudoku.isSolved()).isFalse();
+
+        sudoku.set(8, 8, 2);
+        assertThat(sudoku.isSolved()).isTrue();
+        assertThat(sudoku.clearAll().isSolved()).isFalse();
     }
 
     @Test
@@ -220,6 +297,47 @@ public class SudokuTest {
         assertThat(new Sudoku(completedPuzzle).getSubGridColumn(subGridIndex)).isEqualTo(expectedColumn);
     }
 
+    @Test
+    void getSubGridIndex() {
+        final Sudoku sudoku = new Sudoku(completedPuzzle);
+        assertThat(sudoku.getSubGridIndex(0, 0)).isEqualTo(1);
+        assertThat(sudoku.getSubGridIndex(0, 3)).isEqualTo(2);
+        assertThat(sudoku.getSubGridIndex(3, 0)).isEqualTo(4);
+        assertThat(sudoku.getSubGridIndex(4, 7)).isEqualTo(6);
+        assertThat(sudoku.getSubGridIndex(8, 8)).isEqualTo(9);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {4, 16, 25, 49})
+    void subGridsOfLargeGrids(final int length) {
+        final Sudoku sudoku = new Sudoku(length);
+        final int subGridLength = (int) Math.sqrt(length);
+        for (int row = 0; row < length; row++) {
+            for (int column = 0; column < length; column++) {
+                final int subGrid = sudoku.getSubGridIndex(row, column);
+                assertThat(subGrid).isBetween(1, length);
+                assertThat(sudoku.getSubGridIndexes(subGrid)).contains(Pair.of(row, column)).hasSize(length);
+                assertThat(sudoku.getSubGridStartingIndex(subGrid))
+                    .isEqualTo(Pair.of(row / subGridLength * subGridLength, column / subGridLength * subGridLength));
+            }
+        }
+        sudoku.set(length - 1, 0, length);
+        assertThat(sudoku.isInSubGrid(length - subGridLength + 1, length)).isTrue();
+        assertThat(sudoku.isInSubGrid(length, length)).isFalse();
+    }
+
+    @Test
+    void printLargeGrid() {
+        final Sudoku sudoku = new Sudoku(16);
+        sudoku.set(0, 0, 16);
+        sudoku.set(0, 1, 7);
+        final String[] lines = sudoku.print().split("\n");
+        assertThat(lines).hasSize(21);
+        assertThat(lines[0]).hasSize(16 * 2 + 5);
+        assertThat(lines[1]).startsWith("║16 7 0 0║");
+        assertThat(lines).extracting(String::length).containsOnly(lines[0].length());
+    }
+
     @ParameterizedTest
     @ValueSource(ints = {2, 3, 5, 6, 7, 8})
     void testConstructorRequiresPerfectSquare(final int size) {
@@ -271,6 +389,59 @@ public class SudokuTest {
         assertThat(new Sudoku(completedPuzzle).getRows()).isEqualTo(completedPuzzle);
     }
 
+    @Test
+    void getRowsIsACopy() {
+        final Sudoku sudoku = new Sudoku(completedPuzzle);
+        sudoku.getRows()[0][0] = 0;
+        assertThat(sudoku.get(0, 0)).isEqualTo(4);
+    }
+
+    @Test
+    void getSize() {
+        assertThat(new Sudoku(completedPuzzle).getSize()).isEqualTo(9);
+        assertThat(new Sudoku(16).getSize()).isEqualTo(16);
+    }
+
+    @Test
+    void cloneIsIndependent() {
+        final Sudoku sudoku = new Sudoku(completedPuzzle);
+        final Sudoku clone = sudoku.clone();
+        assertThat(clone).isEqualTo(sudoku).hasSameHashCodeAs(sudoku);
+
+        clone.clear(0, 0);
+        assertThat(clone).isNotEqualTo(sudoku);
+        assertThat(sudoku.get(0, 0)).isEqualTo(4);
+        assertThat(clone.isMoveValid(0, 0, 4)).isTrue();
+        assertThat(sudoku.isSolved()).isTrue();
+    }
+
+    @Test
+    void equalsComparesSize() {
+        assertThat(new Sudoku(4)).isNotEqualTo(new Sudoku(new int[2][2]));
+        assertThat(new Sudoku(4)).isEqualTo(new Sudoku(new int[4][4]));
+    }
+
+    @Test
+    void constructorRejectsJaggedGrid() {
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku(new int[][] {{1, 2}, {3}}));
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku(new int[4][5]));
+    }
+
+    @Test
+    void digitsMustFitInAByte() {
+        final int[][] digits = new int[4][4];
+        digits[1][1] = Sudoku.MAX_DIGIT + 1;
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku(digits));
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku(4).set(0, 0, -1));
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku(144));
+    }
+
+    @Test
+    void getRejectsCellsOutsideGrid() {
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> new Sudoku().get(0, 9));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> new Sudoku().set(-1, 0, 1));
+    }
+
     @Test
     void getColumns() {
         assertThat(new Sudoku(completedPuzzle).getColumns()).isEqualTo(new int[][] {